@@ -9,6 +9,7 @@ import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.blockrenderlayer.v1.BlockRenderLayerMap;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
@@ -107,6 +108,14 @@ public class StarflightModClient implements ClientModInitializer
 			ClientPlayNetworking.registerReceiver(new Identifier(StarflightMod.MOD_ID, "jet"), (client1, handler1, buf, sender1) -> StarflightEffects.receiveJet(handler1, sender1, client1, buf));
 		});
 		
+		ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> client.execute(() -> MovingCraftRenderList.clear()));
+		
+		// Release the baked mesh of a moving craft when it leaves the client world. The render data is kept in case the craft is tracked again and the mesh is baked again when it is next rendered.
+		ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+			if(entity instanceof MovingCraftEntity)
+				MovingCraftRenderList.setMesh(entity.getUuid(), null);
+		});
+		
 		// Client side block properties.
 		BlockRenderLayerMap.INSTANCE.putBlock(StarflightBlocks.ALUMINUM_FRAME, RenderLayer.getCutout());
 		BlockRenderLayerMap.INSTANCE.putBlock(StarflightBlocks.WALKWAY, RenderLayer.getCutout());
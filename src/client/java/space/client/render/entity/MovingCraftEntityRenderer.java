@@ -1,6 +1,5 @@
 package space.client.render.entity;
 
-import java.util.ArrayList;
 import java.util.UUID;
 
 import org.joml.Quaternionf;
@@ -16,11 +15,10 @@ import net.minecraft.client.texture.SpriteAtlasTexture;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.random.Random;
 import net.minecraft.world.World;
 import space.entity.MovingCraftEntity;
 import space.util.QuaternionUtil;
-import space.vessel.MovingCraftBlockRenderData;
+import space.vessel.MovingCraftMesh;
 import space.vessel.MovingCraftRenderList;
 
 @Environment(value=EnvType.CLIENT)
@@ -49,15 +47,20 @@ public class MovingCraftEntityRenderer extends EntityRenderer<MovingCraftEntity>
 		else if(entity.clientQuaternion != null)
 			matrixStack.multiply(entity.clientQuaternion);
 		
-		ArrayList<MovingCraftBlockRenderData> blockList = MovingCraftRenderList.getBlocksForEntity(entityUUID);
 		World world = entity.getEntityWorld();
-		Random random = world.getRandom();
 		BlockPos centerBlockPos = entity.getBlockPos();
 		BlockPos centerBlockPosInitial = entity.getInitialBlockPos();
 		int lightLevel = WorldRenderer.getLightmapCoordinates(world, Blocks.AIR.getDefaultState(), centerBlockPos);
+		MovingCraftMesh mesh = MovingCraftRenderList.getMesh(entityUUID);
 		
-		for(MovingCraftBlockRenderData blockData : blockList)
-			blockData.renderBlock(world, entity, matrixStack, vertexConsumerProvider, random, centerBlockPos, centerBlockPosInitial, lightLevel, entity.getCraftYaw());
+		// Bake the blocks of the craft the first time it is rendered and again whenever its light level changes.
+		if(mesh == null || mesh.getLightLevel() != lightLevel)
+		{
+			mesh = MovingCraftMesh.build(MovingCraftRenderList.getBlocksForEntity(entityUUID), world, centerBlockPosInitial, lightLevel);
+			MovingCraftRenderList.setMesh(entityUUID, mesh);
+		}
+		
+		mesh.render(world, matrixStack, vertexConsumerProvider, centerBlockPos, centerBlockPosInitial);
 	}
 
 	@SuppressWarnings("deprecation")
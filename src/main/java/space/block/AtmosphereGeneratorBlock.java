@@ -27,6 +27,7 @@ import net.minecraft.world.World;
 import net.minecraft.world.WorldAccess;
 import space.block.entity.AtmosphereGeneratorBlockEntity;
 import space.energy.EnergyNet;
+import space.fluid.FluidSupply;
 import space.util.AirUtil;
 import space.util.StarflightEffects;
 
@@ -110,10 +111,9 @@ public class AtmosphereGeneratorBlock extends BlockWithEntity implements FluidUt
 		{
 			//long time = System.currentTimeMillis();
 			
-			ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
 			ArrayList<BlockPos> foundList = new ArrayList<BlockPos>();
 			ArrayList<BlockPos> updateList = new ArrayList<BlockPos>();
-			double supply = AirUtil.searchSupply(world, pos, checkList, AirUtil.MAX_VOLUME, StarflightBlocks.ATMOSPHERE_GENERATOR);
+			FluidSupply supply = FluidSupply.find(world, pos, "oxygen");
 			
 			//System.out.println("searchSupply: " + (System.currentTimeMillis() - time));
 			//time = System.currentTimeMillis();
@@ -124,7 +124,7 @@ public class AtmosphereGeneratorBlock extends BlockWithEntity implements FluidUt
 			//System.out.println("findVolume: " + (System.currentTimeMillis() - time));
 			//time = System.currentTimeMillis();
 			
-			if(tooLarge || required > supply)
+			if(tooLarge || required > supply.getStoredFluid())
 			{
 				MutableText text = Text.translatable("block.space.atmosphere_generator.error_" + (tooLarge ? "volume" : "supply"));
 				
@@ -136,7 +136,7 @@ public class AtmosphereGeneratorBlock extends BlockWithEntity implements FluidUt
 			}
 			else
 			{
-				AirUtil.useSupply(world, checkList, required);
+				supply.use(required);
 				
 				//System.out.println("useSupply: " + (System.currentTimeMillis() - time));
 				//time = System.currentTimeMillis();
@@ -1,7 +1,5 @@
 package space.block;
 
-import java.util.ArrayList;
-
 import org.jetbrains.annotations.Nullable;
 
 import net.minecraft.block.AbstractBlock;
@@ -48,6 +46,9 @@ public class BreakerSwitchBlock extends Block
 	{
 		if(state.isOf(newState.getBlock()))
 			return;
+		
+		if(!world.isClient() && state.get(LIT))
+			EnergyNet.removeConduit(world, pos);
 
 		BlockEntity blockEntity = world.getBlockEntity(pos);
 
@@ -75,9 +76,17 @@ public class BreakerSwitchBlock extends Block
 		if(world.isClient)
 			return;
 		
-		world.setBlockState(pos, state.with(LIT, world.isReceivingRedstonePower(pos)), Block.NOTIFY_LISTENERS);
-		ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-		EnergyNet.updateEnergyNodes(world, pos, checkList);
+		boolean powered = world.isReceivingRedstonePower(pos);
+		
+		if(powered == state.get(LIT))
+			return;
+		
+		world.setBlockState(pos, state.with(LIT, powered), Block.NOTIFY_LISTENERS);
+		
+		if(powered)
+			EnergyNet.addConduit(world, pos);
+		else
+			EnergyNet.removeConduit(world, pos);
     }
 	
 	@Override
@@ -1,7 +1,5 @@
 package space.block;
 
-import java.util.ArrayList;
-
 import org.jetbrains.annotations.Nullable;
 
 import net.minecraft.block.Block;
@@ -101,20 +99,15 @@ public class EnergyCableBlock extends Block implements Waterloggable
 		world.setBlockState(pos, state);
 		
 		if(!world.isClient())
-		{
-			ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-			EnergyNet.updateEnergyNodes(world, pos, checkList);
-		}
+			EnergyNet.addConduit(world, pos);
 	}
 	
 	@Override
 	public void onStateReplaced(BlockState state, World world, BlockPos pos, BlockState newState, boolean moved)
 	{
-		if(!world.isClient())
-		{
-			ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-			EnergyNet.updateEnergyNodes(world, pos, checkList);
-		}
+		// Connection state changes do not affect the energy grid, only removing the cable does.
+		if(!world.isClient() && !state.isOf(newState.getBlock()))
+			EnergyNet.removeConduit(world, pos);
 	}
 	
 	@Override
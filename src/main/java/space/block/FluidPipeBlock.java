@@ -27,6 +27,7 @@ import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldAccess;
 import space.block.entity.FluidContainerBlockEntity;
+import space.fluid.FluidPipeNetwork;
 
 public class FluidPipeBlock extends BlockWithEntity implements Waterloggable, FluidUtilityBlock
 {
@@ -136,7 +137,18 @@ public class FluidPipeBlock extends BlockWithEntity implements Waterloggable, Fl
 		if(state.get(WATERLOGGED).booleanValue())
 			world.scheduleFluidTick(pos, Fluids.WATER, Fluids.WATER.getTickRate(world));
 
-		return updateStateForConnection(world, neighborPos, neighborState, state, direction);
+		BlockState result = updateStateForConnection(world, neighborPos, neighborState, state, direction);
+
+		// Rebuild the pipe network only when the connection on the updated side is made or broken.
+		if(!world.isClient() && isConnected(world, pos, result, direction) != isConnected(world, pos, state, direction) && world.getBlockEntity(pos) instanceof FluidContainerBlockEntity)
+		{
+			FluidPipeNetwork network = ((FluidContainerBlockEntity) world.getBlockEntity(pos)).getNetwork();
+
+			if(network != null)
+				network.invalidate();
+		}
+
+		return result;
 	}
 
 	@Override
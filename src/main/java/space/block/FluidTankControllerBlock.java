@@ -6,6 +6,7 @@ import java.util.function.BiPredicate;
 
 import org.jetbrains.annotations.Nullable;
 
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockRenderType;
 import net.minecraft.block.BlockState;
@@ -27,6 +28,8 @@ import net.minecraft.world.WorldAccess;
 import space.block.entity.FluidTankControllerBlockEntity;
 import space.block.entity.FluidTankInterfaceBlockEntity;
 import space.client.StarflightModClient;
+import space.fluid.FluidPipeNetwork;
+import space.fluid.FluidTankGeometry;
 import space.util.BlockSearch;
 import space.util.StarflightEffects;
 
@@ -114,100 +117,194 @@ public class FluidTankControllerBlock extends BlockWithEntity
 		return 0;
 	}
 
+	/**
+	 * Activate the fluid tank of the given controller and return 0, or return 1 if no enclosed interior is found, 2 if the tank has another controller and 3 if it is missing an inlet or outlet valve.
+	 * The cached interior and shell of the tank are checked first, so a tank that has not changed is not searched again.
+	 */
 	protected static int initializeFluidTank(World world, BlockPos position, String fluidName, double capacity, FluidTankControllerBlockEntity fluidTankController)
 	{
-		boolean valid = false;
 		fluidTankController.setStorageCapacity(0);
 		fluidTankController.setStoredFluid(0);
-
+		FluidTankGeometry geometry = fluidTankController.getGeometry();
+		
+		if(geometry != null)
+		{
+			ArrayList<BlockPos> interiorList = new ArrayList<BlockPos>(geometry.getInteriorCount());
+			ArrayList<BlockPos> shellList = new ArrayList<BlockPos>();
+			geometry.getShell(position, shellList);
+			
+			if(isShell(world, shellList))
+			{
+				geometry.getInterior(position, interiorList);
+				
+				if(isInterior(world, interiorList))
+					return activateFluidTank(world, position, fluidName, capacity, fluidTankController, interiorList, findInterfaces(world, shellList));
+			}
+			
+			fluidTankController.setGeometry(null);
+		}
+		
+		int result = 1;
+		LongOpenHashSet searched = new LongOpenHashSet();
+		
 		for(Direction direction : Direction.values())
 		{
-			ArrayList<BlockPos> checkList = new ArrayList<BlockPos>(); // Check list to avoid ensure each block is only checked once.
-			ArrayList<BlockPos> actionList = new ArrayList<BlockPos>(); // List of all fluid tank controller and interface blocks found.
+			BlockPos start = position.offset(direction);
+			
+			if(world.getBlockState(start).isIn(StarflightBlocks.FLUID_TANK_BLOCK_TAG) || searched.contains(start.asLong()))
+				continue;
+			
+			ArrayList<BlockPos> interiorList = new ArrayList<BlockPos>();
 			
 			BiPredicate<WorldAccess, BlockPos> include = (w, p) -> {
 				return !world.getBlockState(p).isIn(StarflightBlocks.FLUID_TANK_BLOCK_TAG);
 			};
 			
-			BlockSearch.search(world, position.offset(direction), checkList, include, BlockSearch.MAX_VOLUME, true);
+			BlockSearch.search(world, start, interiorList, include, BlockSearch.MAX_VOLUME, true);
+			
+			if(interiorList.isEmpty())
+				continue;
+			
+			LongOpenHashSet interiorSet = new LongOpenHashSet(interiorList.size());
+			
+			for(BlockPos p : interiorList)
+				interiorSet.add(p.asLong());
 			
-			if(checkList.size() > 0 && checkList.size() < BlockSearch.MAX_VOLUME)
+			searched.addAll(interiorSet);
+			
+			// The shell is every block next to the interior that is not part of it.
+			LongOpenHashSet shellSet = new LongOpenHashSet();
+			ArrayList<BlockPos> shellList = new ArrayList<BlockPos>();
+			
+			for(BlockPos p : interiorList)
 			{
-				double cx = 0;
-				double cy = 0;
-				double cz = 0;
-				int count = 0;
-
-				for(BlockPos p : checkList)
-				{
-					if(world.getBlockState(p).isAir())
-					{
-						world.setBlockState(p, StarflightBlocks.FLUID_TANK_INSIDE.getDefaultState(), Block.FORCE_STATE);
-						fluidTankController.setStorageCapacity(fluidTankController.getStorageCapacity() + capacity);
-						cx += p.getX();
-						cy += p.getY();
-						cz += p.getZ();
-						count++;
-						
-						for(Direction direction1 : Direction.values())
-						{
-							BlockPos offset = p.offset(direction1);
-							BlockEntity blockEntity = world.getBlockEntity(offset);
-
-							if(blockEntity != null && (blockEntity instanceof FluidTankControllerBlockEntity || blockEntity instanceof FluidTankInterfaceBlockEntity))
-								actionList.add(offset);
-						}
-					}
-				}
-				
-				cx /= count;
-				cy /= count;
-				cz /= count;
-				
-				// Check for excess fluid tank controllers and a minimum of one inlet and one outlet valve.
-				boolean inlet = false;
-				boolean outlet = false;
-				
-				for(BlockPos p : actionList)
+				for(Direction direction1 : Direction.values())
 				{
-					if(p.equals(position))
-						continue;
-					
-					BlockState blockState = world.getBlockState(p);
-					
-					if(blockState.getBlock() instanceof FluidTankControllerBlock)
-						return 2;
-					if(blockState.getBlock().getName().getString().toLowerCase().contains("inlet"))
-						inlet = true;
-					else if(blockState.getBlock().getName().getString().toLowerCase().contains("outlet"))
-						outlet = true;
-				}
-				
-				if(!inlet || !outlet)
-					return 3;
-				
-				// Activate inlet and outlet valves.
-				for(BlockPos p : actionList)
-				{
-					if(p.equals(position))
-						continue;
-
-					BlockEntity blockEntityAction = world.getBlockEntity(p);
+					BlockPos offset = p.offset(direction1);
 					
-					if(blockEntityAction instanceof FluidTankInterfaceBlockEntity && ((FluidTankInterfaceBlockEntity) blockEntityAction).getFluidName() == fluidName)
-					{
-						FluidTankInterfaceBlockEntity fluidTankInterface = (FluidTankInterfaceBlockEntity) blockEntityAction;
-						fluidTankInterface.setActive(true);
-						fluidTankInterface.setControllerPosition(position);
-					}
+					if(!interiorSet.contains(offset.asLong()) && shellSet.add(offset.asLong()))
+						shellList.add(offset);
 				}
-				
-				fluidTankController.setCenterOfMass(new BlockPos((int) cx, (int) cy, (int) cz));
-				fluidTankController.setActive(true);
-				valid = true;
 			}
+			
+			int activateResult = activateFluidTank(world, position, fluidName, capacity, fluidTankController, interiorList, findInterfaces(world, shellList));
+			
+			if(activateResult != 0)
+				return activateResult;
+			
+			// Only tanks with a single interior are cached.
+			fluidTankController.setGeometry(result == 1 ? FluidTankGeometry.create(position, interiorList, shellList) : null);
+			result = 0;
 		}
-
-		return valid ? 0 : 1;
+		
+		return result;
+	}
+	
+	private static boolean isShell(World world, ArrayList<BlockPos> shellList)
+	{
+		for(BlockPos p : shellList)
+		{
+			if(!world.getBlockState(p).isIn(StarflightBlocks.FLUID_TANK_BLOCK_TAG))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	private static boolean isInterior(World world, ArrayList<BlockPos> interiorList)
+	{
+		for(BlockPos p : interiorList)
+		{
+			if(world.getBlockState(p).isIn(StarflightBlocks.FLUID_TANK_BLOCK_TAG))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Find the fluid tank controllers and valves in the shell of a tank.
+	 */
+	private static ArrayList<BlockPos> findInterfaces(World world, ArrayList<BlockPos> shellList)
+	{
+		ArrayList<BlockPos> interfaceList = new ArrayList<BlockPos>();
+		
+		for(BlockPos p : shellList)
+		{
+			if(!world.getBlockState(p).hasBlockEntity())
+				continue;
+			
+			BlockEntity blockEntity = world.getBlockEntity(p);
+			
+			if(blockEntity instanceof FluidTankControllerBlockEntity || blockEntity instanceof FluidTankInterfaceBlockEntity)
+				interfaceList.add(p);
+		}
+		
+		return interfaceList;
+	}
+	
+	/**
+	 * Fill the interior of a tank, activate its valves and add its capacity to the controller.
+	 */
+	private static int activateFluidTank(World world, BlockPos position, String fluidName, double capacity, FluidTankControllerBlockEntity fluidTankController, ArrayList<BlockPos> interiorList, ArrayList<BlockPos> interfaceList)
+	{
+		// Check for excess fluid tank controllers and a minimum of one inlet and one outlet valve.
+		boolean inlet = false;
+		boolean outlet = false;
+		
+		for(BlockPos p : interfaceList)
+		{
+			if(p.equals(position))
+				continue;
+			
+			BlockEntity blockEntity = world.getBlockEntity(p);
+			
+			if(blockEntity instanceof FluidTankControllerBlockEntity)
+				return 2;
+			else if(FluidPipeNetwork.isInlet(blockEntity, fluidName))
+				inlet = true;
+			else if(FluidPipeNetwork.isOutlet(blockEntity, fluidName))
+				outlet = true;
+		}
+		
+		if(!inlet || !outlet)
+			return 3;
+		
+		double cx = 0;
+		double cy = 0;
+		double cz = 0;
+		int count = 0;
+		
+		for(BlockPos p : interiorList)
+		{
+			if(world.getBlockState(p).isAir())
+			{
+				world.setBlockState(p, StarflightBlocks.FLUID_TANK_INSIDE.getDefaultState(), Block.FORCE_STATE);
+				fluidTankController.setStorageCapacity(fluidTankController.getStorageCapacity() + capacity);
+				cx += p.getX();
+				cy += p.getY();
+				cz += p.getZ();
+				count++;
+			}
+		}
+		
+		// Activate inlet and outlet valves.
+		for(BlockPos p : interfaceList)
+		{
+			BlockEntity blockEntity = world.getBlockEntity(p);
+			
+			if(blockEntity instanceof FluidTankInterfaceBlockEntity && ((FluidTankInterfaceBlockEntity) blockEntity).getFluidName().equals(fluidName))
+			{
+				FluidTankInterfaceBlockEntity fluidTankInterface = (FluidTankInterfaceBlockEntity) blockEntity;
+				fluidTankInterface.setActive(true);
+				fluidTankInterface.setControllerPosition(position);
+			}
+		}
+		
+		if(count > 0)
+			fluidTankController.setCenterOfMass(new BlockPos((int) (cx / count), (int) (cy / count), (int) (cz / count)));
+		
+		fluidTankController.setActive(true);
+		return 0;
 	}
 }
\ No newline at end of file
@@ -1,10 +1,10 @@
 package space.block;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.function.BiPredicate;
 
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.block.AirBlock;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
@@ -17,10 +17,13 @@ import net.minecraft.state.property.Properties;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.random.Random;
+import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
 import space.block.entity.AtmosphereGeneratorBlockEntity;
 import space.util.AirUtil;
 import space.util.BlockSearch;
+import space.util.SealedVolume;
+import space.util.SealedVolumeRegistry;
 import space.util.StarflightEffects;
 
 public class HabitableAirBlock extends AirBlock
@@ -46,12 +49,24 @@ public class HabitableAirBlock extends AirBlock
         if(world.isClient || !state.get(UNSTABLE).booleanValue())
         	return;
         
-        BiPredicate<World, BlockPos> include = (w, p) -> {
+		AtmosphereGeneratorBlockEntity generator = findRegisteredGenerator(world, pos);
+		
+		if(generator != null)
+		{
+			if(generator.getPowerState() == 0)
+				AirUtil.remove(world, pos, BlockSearch.MAX_VOLUME);
+			else
+				world.setBlockState(pos, state.with(UNSTABLE, false), Block.NOTIFY_LISTENERS);
+			
+			return;
+		}
+		
+        BiPredicate<BlockView, BlockPos> include = (w, p) -> {
 			BlockState blockState = w.getBlockState(p);
 			return !AirUtil.airBlocking(w, p) || blockState.getBlock() == StarflightBlocks.HABITABLE_AIR;
 		};
 		
-		BiPredicate<World, BlockPos> edgeCase = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> edgeCase = (w, p) -> {
 			BlockState blockState = w.getBlockState(p);
 			return blockState.getBlock() == StarflightBlocks.ATMOSPHERE_GENERATOR;
 		};
@@ -84,6 +99,7 @@ public class HabitableAirBlock extends AirBlock
 		if(world.isClient)
 			return;
 		
+		SealedVolumeRegistry.neighborChanged(world, pos, fromPos);
 		BlockState currentNeighborState = world.getBlockState(fromPos);
 		
 		if(block == StarflightBlocks.HABITABLE_AIR || block == StarflightBlocks.LEAK)
@@ -92,16 +108,28 @@ public class HabitableAirBlock extends AirBlock
 		if(currentNeighborState.getBlock() == block && !(block instanceof SealedDoorBlock || block instanceof SealedTrapdoorBlock))
 			return;
 
-		//long time = System.currentTimeMillis();
-		ArrayList<BlockPos> volumeList = new ArrayList<BlockPos>();
-		ArrayList<BlockPos> updateList = new ArrayList<BlockPos>();
-		boolean foundVolume = AirUtil.findVolume(world, pos, volumeList, updateList, BlockSearch.MAX_VOLUME);
-
-		if(foundVolume)
+		// The positions are kept until the search has finished so they must not be mutable.
+		BlockPos position = pos.toImmutable();
+		BlockPos neighborPosition = fromPos.toImmutable();
+		AirUtil.findVolumeAsync((ServerWorld) world, position, result -> applyVolume(world, position, neighborPosition, result));
+    }
+	
+	/**
+	 * Fill or remove habitable air on the server thread once a volume search started by a neighbor update has finished.
+	 */
+	private static void applyVolume(World world, BlockPos pos, BlockPos fromPos, AirUtil.VolumeSearchResult result)
+	{
+		BlockState state = world.getBlockState(pos);
+		
+		// Another update may have already removed the air block that started the search.
+		if(!(state.getBlock() instanceof HabitableAirBlock))
+			return;
+		
+		if(result.foundVolume())
 		{
-			//System.out.println("Found Volume: " + (System.currentTimeMillis() - time));
-			//time = System.currentTimeMillis();
-
+			ArrayList<BlockPos> volumeList = result.getVolumeList();
+			ArrayList<BlockPos> updateList = result.getUpdateList();
+			
 			if(volumeList.size() == 0)
 				return;
 			else if(volumeList.size() > 0 && volumeList.size() < 3)
@@ -109,54 +137,45 @@ public class HabitableAirBlock extends AirBlock
 				AirUtil.fillVolume(world, volumeList, updateList);
 				return;
 			}
-
-			Set<BlockPos> set = new HashSet<BlockPos>();
-			ArrayList<BlockPos> foundList = new ArrayList<BlockPos>();
-			BlockSearch.sourceSearch(world, pos, set, foundList);
-
-			//System.out.println("Found Source: " + (System.currentTimeMillis() - time));
-			//time = System.currentTimeMillis();
-
-			for(BlockPos blockPos : foundList)
+			
+			BlockPos.Mutable mutable = new BlockPos.Mutable();
+			LongIterator iterator = result.getGeneratorSet().iterator();
+			
+			while(iterator.hasNext())
 			{
-				BlockEntity blockEntity = world.getBlockEntity(blockPos);
-
+				BlockEntity blockEntity = world.getBlockEntity(mutable.set(iterator.nextLong()));
+				
 				if(blockEntity != null && blockEntity instanceof AtmosphereGeneratorBlockEntity)
 				{
 					if(((AtmosphereGeneratorBlockEntity) blockEntity).getPowerState() == 0)
 						setUnstable(world, pos, state);
 					else
 						world.setBlockState(pos, state.with(UNSTABLE, false), Block.NOTIFY_LISTENERS);
-
-					if(AirUtil.requestSupply(world, blockPos, volumeList.size() * DENSITY, StarflightBlocks.ATMOSPHERE_GENERATOR))
+					
+					if(AirUtil.requestSupply(world, blockEntity.getPos(), volumeList.size() * DENSITY, StarflightBlocks.ATMOSPHERE_GENERATOR))
 						AirUtil.fillVolume(world, volumeList, updateList);
 					else
 						AirUtil.remove(world, pos, BlockSearch.MAX_VOLUME);
-
+					
 					return;
 				}
 			}
-
+			
 			setUnstable(world, pos, state);
 		}
 		else
 		{
-			BiPredicate<World, BlockPos> include = (w, p) -> {
-				BlockState blockState = w.getBlockState(p);
-				return blockState.getBlock() != Blocks.AIR && (!AirUtil.airBlocking(w, p) || blockState.getBlock() == StarflightBlocks.HABITABLE_AIR);
-			};
-
-			BiPredicate<World, BlockPos> edgeCase = (w, p) -> {
-				return false;
-			};
-
-			ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-			ArrayList<BlockPos> foundList = new ArrayList<BlockPos>();
-			BlockSearch.search(world, pos, checkList, foundList, include, edgeCase, BlockSearch.MAX_VOLUME, true);
-			AirUtil.removeOrLeak(world, pos, fromPos, checkList.size() / 5, BlockSearch.MAX_VOLUME);
+			AirUtil.removeOrLeak(world, pos, fromPos, result.getBreachVolume() / 5, BlockSearch.MAX_VOLUME);
 			StarflightEffects.sendOutgas(world, pos, fromPos, true);
 		}
-    }
+	}
+	
+	@Override
+	public void onBlockAdded(BlockState state, World world, BlockPos pos, BlockState oldState, boolean notify)
+	{
+		if(!world.isClient && !oldState.isOf(this))
+			SealedVolumeRegistry.blockAdded(world, pos);
+	}
 	
 	@Override
 	public void onStateReplaced(BlockState state, World world, BlockPos pos, BlockState newState, boolean moved)
@@ -164,10 +183,13 @@ public class HabitableAirBlock extends AirBlock
 		if(world.isClient)
 			return;
 		
+		if(!newState.isOf(this))
+			SealedVolumeRegistry.blockRemoved(world, pos);
+		
 		if(newState.getBlock() == Blocks.AIR || newState.getBlock() == StarflightBlocks.LEAK || !AirUtil.airBlockingState(world, pos, newState))
 			return;
 		
-		Set<BlockPos> set = new HashSet<BlockPos>();
+		LongOpenHashSet set = new LongOpenHashSet();
 		
 		for(Direction direction : Direction.values())
 		{
@@ -176,11 +198,16 @@ public class HabitableAirBlock extends AirBlock
 		}
 	}
 	
-	public static void checkSource(World world, BlockPos pos, Set<BlockPos> set)
+	public static void checkSource(World world, BlockPos pos, LongOpenHashSet set)
 	{
 		BlockState state = world.getBlockState(pos);
 		
-		if(!(state.getBlock() instanceof HabitableAirBlock) || set.contains(pos))
+		if(!(state.getBlock() instanceof HabitableAirBlock) || set.contains(pos.asLong()))
+			return;
+		
+		AtmosphereGeneratorBlockEntity generator = findRegisteredGenerator(world, pos);
+		
+		if(generator != null && generator.getPowerState() == 1)
 			return;
 		
 		//long time = System.currentTimeMillis();
@@ -207,6 +234,41 @@ public class HabitableAirBlock extends AirBlock
 			setUnstable(world, pos, state);
 	}
 	
+	/**
+	 * Find an atmosphere generator next to the registered sealed volume containing the given position, preferring one that is powered.
+	 * Return null if the volume is not registered or has no generators, in which case a block search is still needed.
+	 */
+	private static AtmosphereGeneratorBlockEntity findRegisteredGenerator(World world, BlockPos pos)
+	{
+		SealedVolume volume = SealedVolumeRegistry.getVolume(world, pos);
+		
+		if(volume == null)
+			return null;
+		
+		AtmosphereGeneratorBlockEntity found = null;
+		BlockPos.Mutable mutable = new BlockPos.Mutable();
+		LongIterator iterator = volume.getGenerators().iterator();
+		
+		while(iterator.hasNext())
+		{
+			BlockEntity blockEntity = world.getBlockEntity(mutable.set(iterator.nextLong()));
+			
+			// Forget generators that have been removed since they were recorded.
+			if(blockEntity == null || !(blockEntity instanceof AtmosphereGeneratorBlockEntity))
+			{
+				iterator.remove();
+				continue;
+			}
+			
+			found = (AtmosphereGeneratorBlockEntity) blockEntity;
+			
+			if(found.getPowerState() == 1)
+				break;
+		}
+		
+		return found;
+	}
+	
 	public static void setUnstable(World world, BlockPos pos, BlockState state)
 	{
 		if(!state.get(UNSTABLE))
@@ -1,6 +1,5 @@
 package space.block;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.jetbrains.annotations.Nullable;
@@ -28,10 +27,10 @@ import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldAccess;
 import space.client.StarflightModClient;
+import space.fluid.FluidSupply;
 import space.item.OxygenTankItem;
 import space.item.SpaceSuitItem;
 import space.item.StarflightItems;
-import space.util.AirUtil;
 import space.util.StarflightEffects;
 
 public class OxygenDispenserBlock extends Block implements FluidUtilityBlock
@@ -89,11 +88,10 @@ public class OxygenDispenserBlock extends Block implements FluidUtilityBlock
 		if(requiredOxygen <= 0)
 			return ActionResult.PASS;
 
-		ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-		double availableOxygen = AirUtil.searchSupply(world, pos, checkList, AirUtil.MAX_VOLUME, StarflightBlocks.OXYGEN_DISPENSER);
+		FluidSupply supply = FluidSupply.find(world, pos, "oxygen");
 		
 		// Do effects and transfer oxygen.
-		if(availableOxygen >= requiredOxygen)
+		if(supply.getStoredFluid() >= requiredOxygen)
 		{
 			StarflightEffects.sendFizz(world, pos);
 			MutableText text = Text.translatable("block.space.oxygen_dispenser.message");
@@ -113,7 +111,7 @@ public class OxygenDispenserBlock extends Block implements FluidUtilityBlock
 				}
 			}
 
-			AirUtil.useSupply(world, checkList, requiredOxygen);
+			supply.use(requiredOxygen);
 			return ActionResult.SUCCESS;
 		}
 		
@@ -1,16 +1,16 @@
 package space.block;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.function.BiPredicate;
 
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.block.BlockSetType;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.DoorBlock;
 import net.minecraft.block.enums.DoubleBlockHalf;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
 import space.util.AirUtil;
 import space.util.BlockSearch;
@@ -28,19 +28,19 @@ public class SealedDoorBlock extends DoorBlock
 		if(world.isClient || state.get(HALF) == DoubleBlockHalf.UPPER || !state.isOf(newState.getBlock()))
 			return;
 		
-		BiPredicate<World, BlockPos> include = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> include = (w, p) -> {
 			BlockState blockState = w.getBlockState(p);
 			return blockState.getBlock() instanceof SealedDoorBlock || (blockState.getBlock() != Blocks.AIR && !AirUtil.airBlocking(w, p));
 		};
 
-		BiPredicate<World, BlockPos> edgeCase = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> edgeCase = (w, p) -> {
 			BlockState blockState = w.getBlockState(p);
 			return blockState.getBlock() == StarflightBlocks.HABITABLE_AIR;
 		};
 
 		ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
 		ArrayList<BlockPos> foundList = new ArrayList<BlockPos>();
-		Set<BlockPos> set = new HashSet<BlockPos>();
+		LongOpenHashSet set = new LongOpenHashSet();
 		BlockSearch.search(world, pos, checkList, foundList, include, edgeCase, BlockSearch.MAX_VOLUME, true);
 		
 		for(BlockPos blockPos : foundList)
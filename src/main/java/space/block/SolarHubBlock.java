@@ -151,7 +151,7 @@ public class SolarHubBlock extends BlockWithEntity implements EnergyBlock
 			return;
 		}
 		
-		BiPredicate<World, BlockPos> include = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> include = (w, p) -> {
 			BlockState blockState = w.getBlockState(p);
 			return blockState.getBlock() == StarflightBlocks.SOLAR_PANEL || blockState.getBlock() == StarflightBlocks.SOLAR_HUB;
 		};
@@ -5,10 +5,12 @@ import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.util.math.BlockPos;
+import space.fluid.FluidPipeNetwork;
 
 public class FluidContainerBlockEntity extends BlockEntity
 {
 	private double storedFluid;
+	private FluidPipeNetwork network;
 	
 	public FluidContainerBlockEntity(BlockEntityType<?> type, BlockPos pos, BlockState state)
 	{
@@ -25,13 +27,25 @@ public class FluidContainerBlockEntity extends BlockEntity
 		return 4.0;
 	}
 	
+	/**
+	 * Get the fluid stored in this container. Pipes in a network hold their share of the network's fluid.
+	 */
 	public double getStoredFluid()
 	{
+		if(network != null)
+			return network.getFillLevel() * getStorageCapacity();
+		
 		return storedFluid;
 	}
 	
 	public void changeStoredFluid(double d)
 	{
+		if(network != null)
+		{
+			network.changeStoredFluid(d);
+			return;
+		}
+		
 		storedFluid += d;
 		
 		if(storedFluid < 0.0)
@@ -40,9 +54,35 @@ public class FluidContainerBlockEntity extends BlockEntity
 			storedFluid = getStorageCapacity();
 	}
 	
+	public FluidPipeNetwork getNetwork()
+	{
+		return network;
+	}
+	
+	/**
+	 * Set the pipe network of this container. The container keeps its current share of the old network's fluid.
+	 */
+	public void setNetwork(FluidPipeNetwork network_)
+	{
+		storedFluid = getStoredFluid();
+		network = network_;
+	}
+	
+	@Override
+	public void markRemoved()
+	{
+		super.markRemoved();
+		
+		if(network != null)
+			network.invalidate();
+	}
+	
 	@Override
 	public void readNbt(NbtCompound nbt)
 	{
+		if(network != null)
+			network.invalidate();
+		
 		super.readNbt(nbt);
 		this.storedFluid = nbt.getDouble("storedFluid");
 	}
@@ -51,6 +91,6 @@ public class FluidContainerBlockEntity extends BlockEntity
 	public void writeNbt(NbtCompound nbt)
 	{
 		super.writeNbt(nbt);
-		nbt.putDouble("storedFluid", storedFluid);
+		nbt.putDouble("storedFluid", getStoredFluid());
 	}
 }
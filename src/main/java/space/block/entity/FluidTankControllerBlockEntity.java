@@ -6,6 +6,7 @@ import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtHelper;
 import net.minecraft.util.math.BlockPos;
+import space.fluid.FluidTankGeometry;
 
 public class FluidTankControllerBlockEntity extends BlockEntity
 {
@@ -13,6 +14,7 @@ public class FluidTankControllerBlockEntity extends BlockEntity
 	private double storageCapacity;
 	private double storedFluid;
 	private BlockPos centerOfMass;
+	private FluidTankGeometry geometry;
 	
 	public FluidTankControllerBlockEntity(BlockEntityType<?> type, BlockPos pos, BlockState state)
 	{
@@ -51,6 +53,14 @@ public class FluidTankControllerBlockEntity extends BlockEntity
 		return centerOfMass;
 	}
 	
+	/**
+	 * The cached interior and shell of the tank, or null if the tank has to be searched.
+	 */
+	public FluidTankGeometry getGeometry()
+	{
+		return geometry;
+	}
+	
 	public void setActive(boolean b)
 	{
 		active = b;
@@ -81,6 +91,11 @@ public class FluidTankControllerBlockEntity extends BlockEntity
 		centerOfMass = position;
 	}
 	
+	public void setGeometry(FluidTankGeometry fluidTankGeometry)
+	{
+		geometry = fluidTankGeometry;
+	}
+	
 	@Override
 	public void readNbt(NbtCompound nbt)
 	{
@@ -88,6 +103,7 @@ public class FluidTankControllerBlockEntity extends BlockEntity
 		this.storageCapacity = nbt.getDouble("storageCapacity");
 		this.storedFluid = nbt.getDouble("storedFluid");
 		this.centerOfMass = NbtHelper.toBlockPos(nbt.getCompound("centerOfMass"));
+		this.geometry = nbt.contains("geometry") ? FluidTankGeometry.readNbt(nbt.getCompound("geometry")) : null;
 	}
 
 	@Override
@@ -97,5 +113,8 @@ public class FluidTankControllerBlockEntity extends BlockEntity
 		nbt.putDouble("storageCapacity", storageCapacity);
 		nbt.putDouble("storedFluid", storedFluid);
 		nbt.put("centerOfMass", NbtHelper.fromBlockPos(centerOfMass));
+		
+		if(geometry != null)
+			nbt.put("geometry", geometry.writeNbt());
 	}
 }
@@ -1,6 +1,5 @@
 package space.block.entity;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -32,6 +31,7 @@ import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
 import space.block.IceElectrolyzerBlock;
 import space.block.StarflightBlocks;
+import space.fluid.FluidPipeNetwork;
 import space.screen.IceElectrolyzerScreenHandler;
 
 public class IceElectrolyzerBlockEntity extends LockableContainerBlockEntity implements SidedInventory, PoweredBlockEntity
@@ -150,10 +150,8 @@ public class IceElectrolyzerBlockEntity extends LockableContainerBlockEntity imp
 					double hydrogen = totalMassFlow * (1.0 / 9.0);
 					BlockPos leftSide = pos.offset(state.get(HorizontalFacingBlock.FACING).rotateYClockwise());
 					BlockPos rightSide = pos.offset(state.get(HorizontalFacingBlock.FACING).rotateYCounterclockwise());
-					ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-					ElectrolyzerBlockEntity.recursiveSpread(world, leftSide, checkList, oxygen, "oxygen", 2048);
-					checkList.clear();
-					ElectrolyzerBlockEntity.recursiveSpread(world, rightSide, checkList, hydrogen, "hydrogen", 2048);
+					FluidPipeNetwork.inject(world, leftSide, "oxygen", oxygen);
+					FluidPipeNetwork.inject(world, rightSide, "hydrogen", hydrogen);
 					blockEntity.inventory.get(0).decrement(1);
 					blockEntity.totalTime = 0;
 				}
@@ -46,11 +46,6 @@ public class OxygenOutletValveBlockEntity extends FluidTankInterfaceBlockEntity
 					blockEntity.getFluidTankController().changeStoredFluid(-deltaFluid);
 					adjacentBlockEntity.changeStoredFluid(deltaFluid);
 					blockEntity.markDirty();
-					adjacentBlockEntity.markDirty();
-					
-					/*ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-					double remaining = ElectrolyzerBlockEntity.recursiveSpread(world, offsetPos, checkList, StarflightBlocks.OXYGEN_PIPE_CAPACITY, "oxygen", 2048);
-					blockEntity.getFluidTankController().changeStoredFluid(remaining - StarflightBlocks.OXYGEN_PIPE_CAPACITY);*/
 				}
 			}
 		}
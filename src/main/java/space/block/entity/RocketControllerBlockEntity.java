@@ -23,18 +23,16 @@ import net.minecraft.util.collection.DefaultedList;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import space.StarflightMod;
-import space.block.RocketThrusterBlock;
 import space.block.StarflightBlocks;
-import space.planet.PlanetDimensionData;
-import space.planet.PlanetList;
-import space.util.BlockSearch;
-import space.vessel.BlockMass;
+import space.vessel.CraftModel;
+import space.vessel.CraftScan;
 
 public class RocketControllerBlockEntity extends BlockEntity
 {
 	private final DefaultedList<ItemStack> inventory = DefaultedList.ofSize(2, ItemStack.EMPTY);
 	private ArrayList<PlayerEntity> viewingList = new ArrayList<PlayerEntity>();
 	private ArrayList<BlockPos> positionList = new ArrayList<BlockPos>();
+	private CraftModel craftModel;
 	private String targetName = "null";
 	private double mass = 0.0;
 	private double thrust = 0.0;
@@ -58,6 +56,7 @@ public class RocketControllerBlockEntity extends BlockEntity
 	
 	/**
 	 * Compile a list of blocks to be included in vehicle construction and determine various parameters.
+	 * The blocks found are kept until a block changes near the craft, so scanning an unchanged craft again only counts the contents of its tanks and inventories.
 	 */
 	public void runScan()
 	{
@@ -78,65 +77,30 @@ public class RocketControllerBlockEntity extends BlockEntity
 		requiredDeltaV2 = 0.0;
 		positionList.clear();
 		
-		// Detect blocks to be included in the craft construction.
-        ArrayList<BlockPos> positionList = new ArrayList<BlockPos>();
-        BlockSearch.movingCraftSearch(world, getPos(), positionList, BlockSearch.MAX_VOLUME);
-		
-        if(positionList.size() >= BlockSearch.MAX_VOLUME)
-        {
-        	positionList.clear();
-        	return;
-        }
+		// Detect blocks to be included in the craft construction unless they are already known.
+		if(craftModel == null || !craftModel.isValid())
+		{
+			if(craftModel != null)
+				craftModel.discard();
+			
+			craftModel = CraftModel.build(world, getPos());
+			
+			if(craftModel == null)
+				return;
+		}
         
-        // Update the rocket's mass, fuel supply, and thrust data.
-        double massFlowSum = 0;
+        positionList.addAll(craftModel.getPositionList());
         
-        for(BlockPos pos : positionList)
-        {
-        	boolean redstone = world.isReceivingRedstonePower(pos);
-        	mass += BlockMass.getMass(world, pos);
-        	BlockEntity blockEntity = world.getBlockEntity(pos);
-        	
-        	if(blockEntity != null)
-        	{
-        		if(blockEntity instanceof HydrogenTankBlockEntity)
-        		{
-        			HydrogenTankBlockEntity hydrogenTank = (HydrogenTankBlockEntity) blockEntity;
-        			
-        			if(!redstone)
-        			{
-        				hydrogen += hydrogenTank.getStoredFluid();
-            			hydrogenCapacity += hydrogenTank.getStorageCapacity();
-        			}
-        			
-        			mass += hydrogenTank.getStoredFluid();
-        		}
-        		else if(blockEntity instanceof OxygenTankBlockEntity)
-        		{
-        			OxygenTankBlockEntity oxygenTank = (OxygenTankBlockEntity) blockEntity;
-
-        			if(!redstone)
-        			{
-        				oxygen += oxygenTank.getStoredFluid();
-        				oxygenCapacity += oxygenTank.getStorageCapacity();
-        			}
-        			
-        			mass += oxygenTank.getStoredFluid();
-        		}
-        	}
-        	else if(world.getBlockState(pos).getBlock() instanceof RocketThrusterBlock && !redstone)
-        	{
-        		PlanetDimensionData data = PlanetList.getDimensionDataForWorld(world);
-        		double pressure = 0.0;
-        		
-        		if(data != null && !data.isOrbit())
-        			pressure = data.getPressure();
-        		
-        		thrust += ((RocketThrusterBlock) world.getBlockState(pos).getBlock()).getThrust(pressure);
-        		thrustVacuum += ((RocketThrusterBlock) world.getBlockState(pos).getBlock()).getThrust(0.0);
-        		massFlowSum += ((RocketThrusterBlock) world.getBlockState(pos).getBlock()).getMassFlow();
-        	}
-        }
+        // Update the rocket's mass, fuel supply, and thrust data.
+        CraftScan scan = craftModel.refresh();
+        mass = scan.getMass();
+        hydrogen = scan.getHydrogen();
+        hydrogenCapacity = scan.getHydrogenCapacity();
+        oxygen = scan.getOxygen();
+        oxygenCapacity = scan.getOxygenCapacity();
+        thrust = scan.getThrust();
+        thrustVacuum = scan.getThrustVacuum();
+        double massFlowSum = scan.getMassFlow();
         
         averageVE = 9.80665 * (thrust / massFlowSum);
         averageVEVacuum = 9.80665 * (thrustVacuum / massFlowSum);
@@ -272,6 +236,18 @@ public class RocketControllerBlockEntity extends BlockEntity
 		}
 	}
 
+	@Override
+	public void markRemoved()
+	{
+		super.markRemoved();
+		
+		if(craftModel != null)
+		{
+			craftModel.discard();
+			craftModel = null;
+		}
+	}
+	
 	@Override
 	public void readNbt(NbtCompound nbt)
 	{
@@ -0,0 +1,25 @@
+package space.command;
+
+import static net.minecraft.server.command.CommandManager.argument;
+import static net.minecraft.server.command.CommandManager.literal;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+
+import net.minecraft.server.command.ServerCommandSource;
+import space.planet.PlanetList;
+
+public class EphemerisCommand
+{
+	public static void register(CommandDispatcher<ServerCommandSource> dispatcher)
+	{
+		dispatcher.register(literal("ephemeris").requires(source -> source.hasPermissionLevel(2)).then(argument("enabled", BoolArgumentType.bool()).executes(ctx -> ephemeris(ctx, BoolArgumentType.getBool(ctx, "enabled")))));
+	}
+	
+	public static int ephemeris(CommandContext<ServerCommandSource> context, boolean booleanArgument)
+	{
+		PlanetList.setEphemeris(booleanArgument);
+		return 1;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package space.command;
+
+import static net.minecraft.server.command.CommandManager.argument;
+import static net.minecraft.server.command.CommandManager.literal;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+
+import net.minecraft.server.command.ServerCommandSource;
+import space.energy.EnergyNet;
+
+public class ParallelEnergyCommand
+{
+	public static void register(CommandDispatcher<ServerCommandSource> dispatcher)
+	{
+		dispatcher.register(literal("parallelenergy").requires(source -> source.hasPermissionLevel(2)).then(argument("enabled", BoolArgumentType.bool()).executes(ctx -> parallelEnergy(ctx, BoolArgumentType.getBool(ctx, "enabled")))));
+	}
+	
+	public static int parallelEnergy(CommandContext<ServerCommandSource> context, boolean booleanArgument)
+	{
+		EnergyNet.setParallelSolve(booleanArgument);
+		return 1;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package space.command;
+
+import static net.minecraft.server.command.CommandManager.argument;
+import static net.minecraft.server.command.CommandManager.literal;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+
+import net.minecraft.server.command.ServerCommandSource;
+import space.planet.PlanetList;
+
+public class PlanetSyncCommand
+{
+	public static void register(CommandDispatcher<ServerCommandSource> dispatcher)
+	{
+		dispatcher.register(literal("planetsync").requires(source -> source.hasPermissionLevel(2)).then(argument("interval", IntegerArgumentType.integer(1, 200)).executes(ctx -> planetSync(ctx, IntegerArgumentType.getInteger(ctx, "interval")))));
+	}
+	
+	public static int planetSync(CommandContext<ServerCommandSource> context, int integerArgument)
+	{
+		PlanetList.setSendInterval(integerArgument);
+		return 1;
+	}
+}
\ No newline at end of file
@@ -8,6 +8,9 @@ public class StarflightCommands
 	{
 		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
 			TimeStepsCommand.register(dispatcher);
+			ParallelEnergyCommand.register(dispatcher);
+			EphemerisCommand.register(dispatcher);
+			PlanetSyncCommand.register(dispatcher);
 		});
 	}
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package space.energy;
+
+import java.util.LinkedHashSet;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.world.World;
+
+/**
+ * A connected network of energy conduits (energy cables and closed breaker switches) along with the energy producers and consumers attached to it.
+ * Every producer on a grid is connected to every consumer on the same grid.
+ */
+public class EnergyGrid
+{
+	private final RegistryKey<World> dimension;
+	private final LongOpenHashSet conduits = new LongOpenHashSet();
+	private final LinkedHashSet<EnergyNode> producers = new LinkedHashSet<EnergyNode>();
+	private final LinkedHashSet<EnergyNode> consumers = new LinkedHashSet<EnergyNode>();
+	
+	public EnergyGrid(RegistryKey<World> dimension_)
+	{
+		dimension = dimension_;
+	}
+	
+	public RegistryKey<World> getDimension()
+	{
+		return dimension;
+	}
+	
+	/**
+	 * Get the packed positions of all conduit blocks in this grid.
+	 */
+	public LongOpenHashSet getConduits()
+	{
+		return conduits;
+	}
+	
+	public LinkedHashSet<EnergyNode> getProducers()
+	{
+		return producers;
+	}
+	
+	public LinkedHashSet<EnergyNode> getConsumers()
+	{
+		return consumers;
+	}
+	
+	public void addConduit(long position)
+	{
+		conduits.add(position);
+	}
+	
+	public void removeConduit(long position)
+	{
+		conduits.remove(position);
+	}
+	
+	public int size()
+	{
+		return conduits.size();
+	}
+}
\ No newline at end of file
@@ -1,7 +1,12 @@
 package space.energy;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.darkhax.ess.DataCompound;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
@@ -10,9 +15,9 @@ import net.minecraft.registry.RegistryKey;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
 import space.block.BatteryBlock;
 import space.block.BreakerSwitchBlock;
 import space.block.EnergyBlock;
@@ -23,8 +28,14 @@ import space.block.entity.PoweredBlockEntity;
 public class EnergyNet
 {
 	private static final Direction[] DIRECTIONS = Direction.values();
-	private static ArrayList<EnergyNode> energyProducers = new ArrayList<EnergyNode>();
-	private static ArrayList<EnergyNode> energyConsumers = new ArrayList<EnergyNode>();
+	private static EnergyNodeRegistry energyProducers = new EnergyNodeRegistry();
+	private static EnergyNodeRegistry energyConsumers = new EnergyNodeRegistry();
+	private static HashMap<RegistryKey<World>, Long2ObjectOpenHashMap<EnergyGrid>> energyGrids = new HashMap<RegistryKey<World>, Long2ObjectOpenHashMap<EnergyGrid>>();
+	private static HashMap<RegistryKey<World>, EnergySolver> energySolvers = new HashMap<RegistryKey<World>, EnergySolver>();
+	private static final ArrayList<ServerWorld> activeWorlds = new ArrayList<ServerWorld>();
+	private static final ArrayList<EnergySolver> activeSolvers = new ArrayList<EnergySolver>();
+	private static final ArrayList<EnergyNode> overloadedConsumers = new ArrayList<EnergyNode>();
+	private static boolean parallelSolve = false;
 	
 	public static void addProducer(World world, BlockPos position, double storedEnergy)
 	{
@@ -33,9 +44,10 @@ public class EnergyNet
 		
 		EnergyNode energyNode = new EnergyNode(position, world.getRegistryKey(), true, false);
 		
-		if(!energyProducers.contains(energyNode))
+		if(energyProducers.add(energyNode))
 		{
-			energyProducers.add(energyNode);
+			markDirty(world.getRegistryKey());
+			EnergyStorage.markDirty(energyNode);
 			connectProducer(world, energyNode);
 		}
 	}
@@ -47,9 +59,10 @@ public class EnergyNet
 		
 		EnergyNode energyNode = new EnergyNode(position, world.getRegistryKey(), false, true);
 		
-		if(!energyConsumers.contains(energyNode))
+		if(energyConsumers.add(energyNode))
 		{
-			energyConsumers.add(energyNode);
+			markDirty(world.getRegistryKey());
+			EnergyStorage.markDirty(energyNode);
 			connectConsumer(world, energyNode);
 		}
 	}
@@ -61,15 +74,17 @@ public class EnergyNet
 		
 		EnergyNode energyNode = new EnergyNode(position, world.getRegistryKey(), true, true);
 		
-		if(!energyProducers.contains(energyNode))
+		if(energyProducers.add(energyNode))
 		{
-			energyProducers.add(energyNode);
+			markDirty(world.getRegistryKey());
+			EnergyStorage.markDirty(energyNode);
 			connectProducer(world, energyNode);
 		}
 		
-		if(!energyConsumers.contains(energyNode))
+		if(energyConsumers.add(energyNode))
 		{
-			energyConsumers.add(energyNode);
+			markDirty(world.getRegistryKey());
+			EnergyStorage.markDirty(energyNode);
 			connectConsumer(world, energyNode);
 		}
 	}
@@ -91,279 +106,379 @@ public class EnergyNet
 	
 	public static void removeProducer(World world, BlockPos position)
 	{
-		EnergyNode producer = getProducer(position, world.getRegistryKey());
+		EnergyNode producer = energyProducers.remove(world.getRegistryKey(), position);
 		
-		for(EnergyNode consumer : energyConsumers)
+		if(producer != null)
+		{
+			markDirty(world.getRegistryKey());
+			EnergyStorage.markDirty(producer);
+			disconnectOutputs(producer);
+			detachProducer(producer);
+		}
+	}
+	
+	public static void removeConsumer(World world, BlockPos position)
+	{
+		EnergyNode consumer = energyConsumers.remove(world.getRegistryKey(), position);
+		
+		if(consumer != null)
+		{
+			markDirty(world.getRegistryKey());
+			EnergyStorage.markDirty(consumer);
+			disconnectInputs(consumer);
+			detachConsumer(consumer);
+		}
+	}
+	
+	/**
+	 * Clear the outputs of an energy producer and remove it from the inputs of the affected consumers.
+	 * Input and output links are kept symmetric so only the connected nodes need to be visited.
+	 */
+	private static void disconnectOutputs(EnergyNode producer)
+	{
+		if(!producer.getOutputs().isEmpty())
+			markDirty(producer.getDimension());
+		
+		for(EnergyNode consumer : producer.getOutputs())
+		{
 			consumer.getInputs().remove(producer);
+			EnergyStorage.markDirty(consumer);
+		}
 		
-		energyProducers.remove(producer);
+		producer.getOutputs().clear();
 	}
 	
-	public static void removeConsumer(World world, BlockPos position)
+	/**
+	 * Clear the inputs of an energy consumer and remove it from the outputs of the affected producers.
+	 */
+	private static void disconnectInputs(EnergyNode consumer)
 	{
-		EnergyNode consumer = getConsumer(position, world.getRegistryKey());
+		if(!consumer.getInputs().isEmpty())
+		{
+			markDirty(consumer.getDimension());
+			EnergyStorage.markDirty(consumer);
+		}
 		
-		for(EnergyNode producer : energyProducers)
-			producer.getInputs().remove(consumer);
+		for(EnergyNode producer : consumer.getInputs())
+			producer.getOutputs().remove(consumer);
 		
-		energyConsumers.remove(consumer);
+		consumer.getInputs().clear();
 	}
 	
-	public static ArrayList<EnergyNode> getEnergyProducers()
+	public static EnergyNodeRegistry getEnergyProducers()
 	{
 		return energyProducers;
 	}
 	
-	public static ArrayList<EnergyNode> getEnergyConsumers()
+	public static EnergyNodeRegistry getEnergyConsumers()
 	{
 		return energyConsumers;
 	}
 	
 	public static EnergyNode getProducer(BlockPos position, RegistryKey<World> dimension)
 	{
-		for(EnergyNode energyNode : energyProducers)
-		{
-			if(energyNode.getPosition().equals(position) && energyNode.getDimension().getValue().equals(dimension.getValue()))
-				return energyNode;
-		}
-		
-		return null;
+		return energyProducers.get(dimension, position);
 	}
 	
 	public static EnergyNode getConsumer(BlockPos position, RegistryKey<World> dimension)
 	{
-		for(EnergyNode energyNode : energyConsumers)
-		{
-			if(energyNode.getPosition().equals(position) && energyNode.getDimension().getValue().equals(dimension.getValue()))
-				return energyNode;
-		}
-		
-		return null;
+		return energyConsumers.get(dimension, position);
 	}
 	
 	public static void doEnergyFlow(MinecraftServer server)
 	{
-		for(EnergyNode energyNode : energyProducers)
-			energyNode.setPowerSourceLoad(0.0);
+		activeWorlds.clear();
+		activeSolvers.clear();
 		
 		for(ServerWorld world : server.getWorlds())
 		{
-			ArrayList<BlockPos> removalListProducers = new ArrayList<BlockPos>();
-			ArrayList<BlockPos> removalListConsumers = new ArrayList<BlockPos>();
+			EnergySolver solver = getSolver(world.getRegistryKey());
+			
+			// The packed arrays only need to be rebuilt after energy nodes are connected, disconnected, loaded or unloaded.
+			if(solver.isDirty())
+				solver.build(energyProducers.getLoadedChunks(world.getRegistryKey()), energyConsumers.getLoadedChunks(world.getRegistryKey()));
+			
+			if(solver.getProducerCount() == 0 && solver.getConsumerCount() == 0)
+				continue;
+			
+			sampleEnergyNodes(world, solver);
+			activeWorlds.add(world);
+			activeSolvers.add(solver);
+		}
+		
+		EnergySolver.solveAll(activeSolvers, parallelSolve);
+		
+		// World changes are always applied on the server thread in dimension and node order.
+		for(int i = 0; i < activeWorlds.size(); i++)
+			applyEnergyFlow(activeWorlds.get(i), activeSolvers.get(i));
+	}
+	
+	/**
+	 * Read the power output and draw of the energy nodes in loaded chunks into the packed solver arrays.
+	 * Nodes whose block is no longer an energy block are given a null state and removed when the results are applied.
+	 */
+	private static void sampleEnergyNodes(ServerWorld world, EnergySolver solver)
+	{
+		// Producers in unloaded chunks keep their last output.
+		for(int i = 0; i < solver.getLoadedProducerCount(); i++)
+		{
+			EnergyNode energyNode = solver.getProducer(i);
+			BlockState state = world.getBlockState(energyNode.getPosition());
 			
-			// Update the power output of all energy producers.
-			for(EnergyNode energyNode : energyProducers)
+			if(state.getBlock() instanceof EnergyBlock)
 			{
-				ChunkPos chunkPos = new ChunkPos(energyNode.getPosition());
-				
-				if(energyNode.getDimension() != world.getRegistryKey() || !world.isChunkLoaded(chunkPos.x, chunkPos.z))
-					continue;
+				solver.setProducerState(i, state);
 				
-				BlockState state = world.getBlockState(energyNode.getPosition());
-				
-				if(state.getBlock() instanceof EnergyBlock)
+				if(state.getBlock() instanceof BatteryBlock)
 				{
-					if(state.getBlock() instanceof BatteryBlock)
-					{
-						BatteryBlockEntity batteryBlockEntity = (BatteryBlockEntity) world.getBlockEntity(energyNode.getPosition());
-						
-						if(!batteryBlockEntity.hasAnyCharge())
-							energyNode.setPowerOutput(0.0d);
-						else
-							energyNode.setPowerOutput(BatteryBlock.POWER_OUTPUT);
-					}
-					else
-						energyNode.setPowerOutput(((EnergyBlock) state.getBlock()).getPowerOutput(world, energyNode.getPosition(), state));
+					BatteryBlockEntity batteryBlockEntity = (BatteryBlockEntity) world.getBlockEntity(energyNode.getPosition());
+					solver.setPowerOutput(i, batteryBlockEntity.hasAnyCharge() ? BatteryBlock.POWER_OUTPUT : 0.0);
 				}
 				else
-					removalListProducers.add(energyNode.getPosition());
+					solver.setPowerOutput(i, ((EnergyBlock) state.getBlock()).getPowerOutput(world, energyNode.getPosition(), state));
 			}
-			
-			// Distribute the power use of each energy consumer across any connected energy producers.
-			for(EnergyNode energyNode : energyConsumers)
+			else
 			{
-				ChunkPos chunkPos = new ChunkPos(energyNode.getPosition());
-				
-				if(energyNode.getDimension() != world.getRegistryKey() || !world.isChunkLoaded(chunkPos.x, chunkPos.z))
-					continue;
-				
-				BlockState state = world.getBlockState(energyNode.getPosition());
-				
-				if(state.getBlock() instanceof EnergyBlock)
-					energyNode.distributePowerLoad(((EnergyBlock) state.getBlock()).getPowerDraw(world, energyNode.getPosition(), state));
-				else
-					removalListConsumers.add(energyNode.getPosition());
+				solver.setProducerState(i, null);
+				solver.setPowerOutput(i, 0.0);
 			}
+		}
+		
+		for(int i = 0; i < solver.getConsumerCount(); i++)
+		{
+			EnergyNode energyNode = solver.getConsumer(i);
+			BlockState state = world.getBlockState(energyNode.getPosition());
 			
-			// Determine whether or not each energy consumer has enough power to function.
-			for(EnergyNode energyNode : energyConsumers)
+			if(state.getBlock() instanceof EnergyBlock)
 			{
-				ChunkPos chunkPos = new ChunkPos(energyNode.getPosition());
-				
-				if(energyNode.getDimension() != world.getRegistryKey() || !world.isChunkLoaded(chunkPos.x, chunkPos.z))
-					continue;
-				
-				BlockState state = world.getBlockState(energyNode.getPosition());	
-				
-				if(state.getBlock() instanceof EnergyBlock)
-				{
-					// Trip breaker switch blocks.
-					boolean overloaded = false;
-					
-					for(EnergyNode producer : energyNode.getInputs())
-					{
-						if(producer.isPowerSourceOverloaded())
-						{
-							overloaded = true;
-							break;
-						}
-					}
-					
-					if(overloaded && !energyNode.getBreakers().isEmpty())
-					{
-						for(BlockPos breakerPos : energyNode.getBreakers())
-						{
-							BlockState breakerState = world.getBlockState(breakerPos);
-							
-							if(breakerState.getBlock() instanceof BreakerSwitchBlock)
-							{
-								world.setBlockState(breakerPos, breakerState.with(BreakerSwitchBlock.LIT, false));
-								ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-								EnergyNet.updateEnergyNodes(world, breakerPos, checkList);
-							}
-						}
-					}
-					
-					// Charge battery blocks if enough power is available.
-					if(state.getBlock() instanceof BatteryBlock && !energyNode.getInputs().isEmpty() && energyNode.hasSufficientPower())
-					{
-						BatteryBlockEntity batteryBlockEntity = (BatteryBlockEntity) world.getBlockEntity(energyNode.getPosition());
-						batteryBlockEntity.charge(((BatteryBlock) state.getBlock()).getPowerDraw(world, energyNode.getPosition(), state) / 20.0);
-					}
-					
-					BlockEntity blockEntity = world.getBlockEntity(energyNode.getPosition());
-					
-					if(blockEntity instanceof PoweredBlockEntity)
-					{
-						if(!energyNode.getInputs().isEmpty() && energyNode.hasSufficientPower())
-							((PoweredBlockEntity) blockEntity).setPowerState(1);
-						else
-							((PoweredBlockEntity) blockEntity).setPowerState(0);
-					}
-				}
+				solver.setConsumerState(i, state);
+				solver.setPowerDraw(i, ((EnergyBlock) state.getBlock()).getPowerDraw(world, energyNode.getPosition(), state));
 			}
-			
-			// Deal damage to energy producers that are overloaded and remove stored energy from battery blocks that have a power load.
-			for(EnergyNode energyNode : energyProducers)
+			else
 			{
-				ChunkPos chunkPos = new ChunkPos(energyNode.getPosition());
-				
-				if(energyNode.getDimension() != world.getRegistryKey() || !world.isChunkLoaded(chunkPos.x, chunkPos.z))
-					continue;
-				
-				BlockState state = world.getBlockState(energyNode.getPosition());
-				
-				if(state.getBlock() instanceof BatteryBlock)
-				{
-					BatteryBlockEntity batteryBlockEntity = (BatteryBlockEntity) world.getBlockEntity(energyNode.getPosition());
-					batteryBlockEntity.discharge(energyNode.getPowerSourceLoad() / 20.0);
-					
-					// Update the "lit" state of battery blocks.
-					if(state != (BlockState) state.with(BatteryBlock.LIT, batteryBlockEntity.hasAnyCharge()))
-					{
-						state = (BlockState) state.with(BatteryBlock.LIT, batteryBlockEntity.hasAnyCharge());
-						world.setBlockState(energyNode.getPosition(), state, Block.NOTIFY_ALL);
-					}
-				}
+				solver.setConsumerState(i, null);
+				solver.setPowerDraw(i, 0.0);
 			}
-			
-			for(BlockPos position : removalListProducers)
-				removeProducer(world, position);
-			
-			for(BlockPos position : removalListConsumers)
-				removeConsumer(world, position);
 		}
 	}
 	
-	public static void connectProducer(World world, EnergyNode energyNode)
+	/**
+	 * Apply the solved power loads of a dimension to the world.
+	 */
+	private static void applyEnergyFlow(ServerWorld world, EnergySolver solver)
 	{
-		if(energyNode.getDimension() != world.getRegistryKey())
-			return;
+		overloadedConsumers.clear();
+		solver.writeBack();
 		
-		ArrayList<EnergyNode> found = new ArrayList<EnergyNode>();
-		ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-		BlockPos position = energyNode.getPosition();
-		BlockState blockState = world.getBlockState(position);
-		energyNode.getOutputs().clear();
-		checkList.add(position);
+		// Determine whether or not each energy consumer has enough power to function.
+		for(int i = 0; i < solver.getConsumerCount(); i++)
+		{
+			BlockState state = solver.getConsumerState(i);
+			
+			if(state == null)
+				continue;
+			
+			EnergyNode energyNode = solver.getConsumer(i);
+			boolean powered = solver.hasInputs(i) && solver.hasSufficientPower(i);
+			
+			// Find consumers with an overloaded power source to trip breaker switch blocks.
+			if(solver.isOverloaded(i))
+				overloadedConsumers.add(energyNode);
+			
+			BlockEntity blockEntity = world.getBlockEntity(energyNode.getPosition());
+			
+			// Charge battery blocks if enough power is available.
+			if(state.getBlock() instanceof BatteryBlock && powered)
+				((BatteryBlockEntity) blockEntity).charge(solver.getPowerDraw(i) / 20.0);
+			
+			if(blockEntity instanceof PoweredBlockEntity)
+				((PoweredBlockEntity) blockEntity).setPowerState(powered ? 1 : 0);
+		}
 		
-		if(!(blockState.getBlock() instanceof EnergyBlock))
-			return;
+		// Breaker switches are tripped after the consumer pass since opening them changes the connections of other consumers.
+		for(EnergyNode energyNode : overloadedConsumers)
+			tripBreakers(world, energyNode);
 		
-		EnergyBlock energyBlock = (EnergyBlock) blockState.getBlock();
-		energyNode.getOutputs().clear();
+		// Remove stored energy from battery blocks that have a power load.
+		for(int i = 0; i < solver.getLoadedProducerCount(); i++)
+		{
+			BlockState state = solver.getProducerState(i);
+			
+			if(state == null || !(state.getBlock() instanceof BatteryBlock))
+				continue;
+			
+			EnergyNode energyNode = solver.getProducer(i);
+			BatteryBlockEntity batteryBlockEntity = (BatteryBlockEntity) world.getBlockEntity(energyNode.getPosition());
+			batteryBlockEntity.discharge(solver.getPowerLoad(i) / 20.0);
+			
+			// Update the "lit" state of battery blocks.
+			state = world.getBlockState(energyNode.getPosition());
+			
+			if(state.getBlock() instanceof BatteryBlock && state.get(BatteryBlock.LIT) != batteryBlockEntity.hasAnyCharge())
+				world.setBlockState(energyNode.getPosition(), (BlockState) state.with(BatteryBlock.LIT, batteryBlockEntity.hasAnyCharge()), Block.NOTIFY_ALL);
+		}
 		
-		for(Direction direction : Direction.values())
+		// Removing nodes only flags the solver for rebuilding, so the packed arrays can still be read here.
+		for(int i = 0; i < solver.getLoadedProducerCount(); i++)
 		{
-			if(energyBlock.isSideOutput(world, position, blockState, direction))
-				checkDirectionProducer(world, position, direction, checkList, found, energyNode);
+			if(solver.getProducerState(i) == null)
+				removeProducer(world, solver.getProducer(i).getPosition());
 		}
 		
-		for(EnergyNode consumer : found)
+		for(int i = 0; i < solver.getConsumerCount(); i++)
 		{
-			if(!energyNode.getOutputs().contains(consumer))
-				energyNode.getOutputs().add(consumer);
-			
-			if(!consumer.getInputs().contains(energyNode))
-				consumer.getInputs().add(energyNode);
+			if(solver.getConsumerState(i) == null)
+				removeConsumer(world, solver.getConsumer(i).getPosition());
 		}
 	}
 	
-	public static void checkDirectionProducer(World world, BlockPos position, Direction direction, ArrayList<BlockPos> checkList, ArrayList<EnergyNode> found, EnergyNode producer)
+	/**
+	 * Enable or disable solving power loads on the common fork-join pool.
+	 */
+	public static void setParallelSolve(boolean parallelSolve_)
+	{
+		parallelSolve = parallelSolve_;
+	}
+	
+	public static boolean isParallelSolve()
+	{
+		return parallelSolve;
+	}
+	
+	private static EnergySolver getSolver(RegistryKey<World> dimension)
+	{
+		return energySolvers.computeIfAbsent(dimension, key -> new EnergySolver());
+	}
+	
+	/**
+	 * Flag the packed energy solver arrays of a dimension for rebuilding.
+	 */
+	private static void markDirty(RegistryKey<World> dimension)
+	{
+		EnergySolver solver = energySolvers.get(dimension);
+		
+		if(solver != null)
+			solver.markDirty();
+	}
+	
+	/**
+	 * Start ticking the energy nodes of a chunk when it is loaded.
+	 */
+	public static void chunkLoaded(ServerWorld world, WorldChunk chunk)
+	{
+		long chunkKey = chunk.getPos().toLong();
+		boolean producers = energyProducers.chunkLoaded(world.getRegistryKey(), chunkKey);
+		boolean consumers = energyConsumers.chunkLoaded(world.getRegistryKey(), chunkKey);
+		
+		if(producers || consumers)
+			markDirty(world.getRegistryKey());
+	}
+	
+	/**
+	 * Stop ticking the energy nodes of a chunk when it is unloaded.
+	 */
+	public static void chunkUnloaded(ServerWorld world, WorldChunk chunk)
+	{
+		long chunkKey = chunk.getPos().toLong();
+		boolean producers = energyProducers.chunkUnloaded(world.getRegistryKey(), chunkKey);
+		boolean consumers = energyConsumers.chunkUnloaded(world.getRegistryKey(), chunkKey);
+		
+		if(producers || consumers)
+			markDirty(world.getRegistryKey());
+	}
+	
+	public static void clearLoadedChunks()
+	{
+		energyProducers.clearLoadedChunks();
+		energyConsumers.clearLoadedChunks();
+		energySolvers.clear();
+	}
+	
+	/**
+	 * Get the energy grid containing the given conduit position, building it from the world if it has not been indexed yet.
+	 */
+	public static EnergyGrid getGrid(World world, BlockPos position)
+	{
+		EnergyGrid grid = getGrids(world.getRegistryKey()).get(position.asLong());
+		
+		if(grid != null)
+			return grid;
+		
+		if(!isConduit(world.getBlockState(position)))
+			return null;
+		
+		return buildGrid(world, position, Long.MIN_VALUE, null);
+	}
+	
+	private static Long2ObjectOpenHashMap<EnergyGrid> getGrids(RegistryKey<World> dimension)
+	{
+		return energyGrids.computeIfAbsent(dimension, k -> new Long2ObjectOpenHashMap<EnergyGrid>());
+	}
+	
+	/**
+	 * Energy cables and closed breaker switches carry power between energy blocks.
+	 */
+	private static boolean isConduit(BlockState blockState)
+	{
+		return blockState.getBlock() instanceof EnergyCableBlock || (blockState.getBlock() instanceof BreakerSwitchBlock && blockState.get(BreakerSwitchBlock.LIT));
+	}
+	
+	/**
+	 * Whether power can pass through the given side of a conduit block. Closed breaker switches only pass power along their facing axis.
+	 */
+	private static boolean isConduitSide(BlockState blockState, Direction direction)
+	{
+		if(blockState.getBlock() instanceof EnergyCableBlock)
+			return true;
+		else if(blockState.getBlock() instanceof BreakerSwitchBlock)
+			return blockState.get(BreakerSwitchBlock.LIT) && blockState.get(BreakerSwitchBlock.FACING).getAxis() == direction.getAxis();
+		
+		return false;
+	}
+	
+	public static void connectProducer(World world, EnergyNode energyNode)
 	{
-		BlockPos adjacentPosition = position.offset(direction);
+		if(energyNode.getDimension() != world.getRegistryKey())
+			return;
+		
+		BlockPos position = energyNode.getPosition();
+		BlockState blockState = world.getBlockState(position);
+		disconnectOutputs(energyNode);
+		detachProducer(energyNode);
 		
-		if(checkList.contains(adjacentPosition))
+		if(!(blockState.getBlock() instanceof EnergyBlock))
 			return;
 		
-		checkList.add(adjacentPosition);
-		BlockState adjacentBlockState = world.getBlockState(adjacentPosition);
+		EnergyBlock energyBlock = (EnergyBlock) blockState.getBlock();
 		
-		if(adjacentBlockState.getBlock() instanceof EnergyBlock)
+		for(Direction direction : DIRECTIONS)
 		{
-			EnergyBlock energyBlock = (EnergyBlock) adjacentBlockState.getBlock();
+			if(!energyBlock.isSideOutput(world, position, blockState, direction))
+				continue;
 			
-			if(energyBlock.isSideInput(world, adjacentPosition, adjacentBlockState, direction.getOpposite()))
-			{
-				EnergyNode adjacentEnergyNode = getConsumer(adjacentPosition, world.getRegistryKey());
-				
-				if(adjacentEnergyNode != null)
-					found.add(adjacentEnergyNode);
-			}
-		}
-		else if(adjacentBlockState.getBlock() instanceof EnergyCableBlock)
-		{
-			// Connect through energy cable blocks.
-			EnergyCableBlock energyCableBlock = (EnergyCableBlock) adjacentBlockState.getBlock();
+			BlockPos adjacentPosition = position.offset(direction);
+			BlockState adjacentState = world.getBlockState(adjacentPosition);
 			
-			if(energyCableBlock.isConnected(world, adjacentPosition, adjacentBlockState, direction.getOpposite()))
+			if(adjacentState.getBlock() instanceof EnergyBlock)
 			{
-				for(Direction adjacentDirection : DIRECTIONS)
+				// Connect directly to an adjacent energy consumer.
+				if(((EnergyBlock) adjacentState.getBlock()).isSideInput(world, adjacentPosition, adjacentState, direction.getOpposite()))
 				{
-					if(energyCableBlock.isConnected(world, adjacentPosition, adjacentBlockState, adjacentDirection))
-						checkDirectionProducer(world, adjacentPosition, adjacentDirection, checkList, found, producer);
+					EnergyNode consumer = getConsumer(adjacentPosition, energyNode.getDimension());
+					
+					if(consumer != null)
+						link(energyNode, consumer);
 				}
 			}
-		}
-		else if(adjacentBlockState.getBlock() instanceof BreakerSwitchBlock && adjacentBlockState.get(BreakerSwitchBlock.LIT))
-		{
-			// Connect through breaker switch blocks.
-			Direction breakerDirection = adjacentBlockState.get(BreakerSwitchBlock.FACING);
-			
-			if(direction == breakerDirection)
-				checkDirectionProducer(world, adjacentPosition, breakerDirection, checkList, found, producer);
-			else if(direction == breakerDirection.getOpposite())
-				checkDirectionProducer(world, adjacentPosition, breakerDirection.getOpposite(), checkList, found, producer);
+			else if(isConduitSide(adjacentState, direction.getOpposite()))
+			{
+				// Connect to every energy consumer on the adjacent grid.
+				EnergyGrid grid = getGrid(world, adjacentPosition);
+				grid.getProducers().add(energyNode);
+				
+				for(EnergyNode consumer : grid.getConsumers())
+					link(energyNode, consumer);
+			}
 		}
 	}
 	
@@ -372,192 +487,475 @@ public class EnergyNet
 		if(energyNode.getDimension() != world.getRegistryKey())
 			return;
 		
-		ArrayList<EnergyNode> found = new ArrayList<EnergyNode>();
-		ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();	
 		BlockPos position = energyNode.getPosition();
 		BlockState blockState = world.getBlockState(position);
-		energyNode.getOutputs().clear();
-		checkList.add(position);
+		disconnectInputs(energyNode);
+		detachConsumer(energyNode);
 		
 		if(!(blockState.getBlock() instanceof EnergyBlock))
 			return;
 		
 		EnergyBlock energyBlock = (EnergyBlock) blockState.getBlock();
-		energyNode.getInputs().clear();
 		
-		for(Direction direction : Direction.values())
+		for(Direction direction : DIRECTIONS)
 		{
-			if(energyBlock.isSideInput(world, position, blockState, direction))
-				checkDirectionConsumer(world, position, direction, checkList, found, energyNode);
+			if(!energyBlock.isSideInput(world, position, blockState, direction))
+				continue;
+			
+			BlockPos adjacentPosition = position.offset(direction);
+			BlockState adjacentState = world.getBlockState(adjacentPosition);
+			
+			if(adjacentState.getBlock() instanceof EnergyBlock)
+			{
+				// Connect directly to an adjacent energy producer.
+				if(((EnergyBlock) adjacentState.getBlock()).isSideOutput(world, adjacentPosition, adjacentState, direction.getOpposite()))
+				{
+					EnergyNode producer = getProducer(adjacentPosition, energyNode.getDimension());
+					
+					if(producer != null)
+						link(producer, energyNode);
+				}
+			}
+			else if(isConduitSide(adjacentState, direction.getOpposite()))
+			{
+				// Connect to every energy producer on the adjacent grid.
+				EnergyGrid grid = getGrid(world, adjacentPosition);
+				grid.getConsumers().add(energyNode);
+				
+				for(EnergyNode producer : grid.getProducers())
+					link(producer, energyNode);
+			}
 		}
-
-		for(EnergyNode producer : found)
+	}
+	
+	private static void link(EnergyNode producer, EnergyNode consumer)
+	{
+		if(producer == consumer || consumer.getInputs().contains(producer))
+			return;
+		
+		consumer.getInputs().add(producer);
+		producer.getOutputs().add(consumer);
+		markDirty(consumer.getDimension());
+		EnergyStorage.markDirty(consumer);
+	}
+	
+	/**
+	 * Remove an energy producer from the grids next to it.
+	 */
+	private static void detachProducer(EnergyNode producer)
+	{
+		Long2ObjectOpenHashMap<EnergyGrid> grids = getGrids(producer.getDimension());
+		long position = producer.getPosition().asLong();
+		
+		for(Direction direction : DIRECTIONS)
 		{
-			if(!energyNode.getInputs().contains(producer))
-				energyNode.getInputs().add(producer);
+			EnergyGrid grid = grids.get(BlockPos.offset(position, direction));
 			
-			if(!producer.getOutputs().contains(energyNode))
-				producer.getOutputs().add(energyNode);
+			if(grid != null)
+				grid.getProducers().remove(producer);
 		}
-		
-		// Recursively find breaker switches.
-		energyNode.getBreakers().clear();
-		checkList.clear();
-		ArrayList<BlockPos> breakerList = new ArrayList<BlockPos>();
-		findBreakerSwitches(world, position, checkList, breakerList);
-		energyNode.getBreakers().addAll(breakerList);
 	}
 	
-	public static void checkDirectionConsumer(World world, BlockPos position, Direction direction, ArrayList<BlockPos> checkList, ArrayList<EnergyNode> found, EnergyNode consumer)
+	/**
+	 * Remove an energy consumer from the grids next to it.
+	 */
+	private static void detachConsumer(EnergyNode consumer)
 	{
-		BlockPos adjacentPosition = position.offset(direction);
+		Long2ObjectOpenHashMap<EnergyGrid> grids = getGrids(consumer.getDimension());
+		long position = consumer.getPosition().asLong();
 		
-		if(checkList.contains(adjacentPosition))
-			return;
+		for(Direction direction : DIRECTIONS)
+		{
+			EnergyGrid grid = grids.get(BlockPos.offset(position, direction));
+			
+			if(grid != null)
+				grid.getConsumers().remove(consumer);
+		}
+	}
+	
+	/**
+	 * Add an energy block to a grid through one of its sides. If the link parameter is true, new producers and consumers are also connected to the rest of the grid.
+	 * Energy blocks without a registered energy node are added to the unregistered list if one is given.
+	 */
+	private static void attachEndpoint(World world, EnergyGrid grid, BlockPos position, BlockState blockState, Direction side, boolean link, ArrayList<BlockPos> unregistered)
+	{
+		EnergyBlock energyBlock = (EnergyBlock) blockState.getBlock();
 		
-		checkList.add(adjacentPosition);
-		BlockState adjacentBlockState = world.getBlockState(adjacentPosition);
+		if(energyBlock.isSideOutput(world, position, blockState, side))
+		{
+			EnergyNode producer = getProducer(position, grid.getDimension());
+			
+			if(producer == null)
+			{
+				if(unregistered != null)
+					unregistered.add(position.toImmutable());
+			}
+			else if(grid.getProducers().add(producer) && link)
+			{
+				for(EnergyNode consumer : grid.getConsumers())
+					link(producer, consumer);
+			}
+		}
 		
-		if(adjacentBlockState.getBlock() instanceof EnergyBlock)
+		if(energyBlock.isSideInput(world, position, blockState, side))
 		{
-			EnergyBlock energyBlock = (EnergyBlock) adjacentBlockState.getBlock();
+			EnergyNode consumer = getConsumer(position, grid.getDimension());
 			
-			if(energyBlock.isSideOutput(world, adjacentPosition, adjacentBlockState, direction.getOpposite()))
+			if(consumer == null)
 			{
-				EnergyNode adjacentEnergyNode = getProducer(adjacentPosition, world.getRegistryKey());
-				
-				if(adjacentEnergyNode != null)
-					found.add(adjacentEnergyNode);
+				if(unregistered != null)
+					unregistered.add(position.toImmutable());
+			}
+			else if(grid.getConsumers().add(consumer) && link)
+			{
+				for(EnergyNode producer : grid.getProducers())
+					link(producer, consumer);
 			}
 		}
-		else if(adjacentBlockState.getBlock() instanceof EnergyCableBlock)
+	}
+	
+	/**
+	 * Flood fill a new energy grid through the conduits connected to the starting position, skipping the excluded position.
+	 * Existing links between energy nodes are trusted, so the producers and consumers found are only attached and not connected.
+	 */
+	private static EnergyGrid buildGrid(World world, BlockPos start, long excluded, ArrayList<BlockPos> unregistered)
+	{
+		RegistryKey<World> dimension = world.getRegistryKey();
+		Long2ObjectOpenHashMap<EnergyGrid> grids = getGrids(dimension);
+		EnergyGrid grid = new EnergyGrid(dimension);
+		LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+		BlockPos.Mutable position = new BlockPos.Mutable();
+		BlockPos.Mutable adjacentPosition = new BlockPos.Mutable();
+		long startKey = start.asLong();
+		grid.addConduit(startKey);
+		grids.put(startKey, grid);
+		queue.enqueue(startKey);
+		
+		while(!queue.isEmpty())
 		{
-			// Connect through energy cable blocks.
-			EnergyCableBlock energyCableBlock = (EnergyCableBlock) adjacentBlockState.getBlock();
+			position.set(queue.dequeueLong());
+			BlockState blockState = world.getBlockState(position);
 			
-			if(energyCableBlock.isConnected(world, adjacentPosition, adjacentBlockState, direction.getOpposite()))
+			for(Direction direction : DIRECTIONS)
 			{
-				for(Direction adjacentDirection : DIRECTIONS)
+				if(!isConduitSide(blockState, direction))
+					continue;
+				
+				adjacentPosition.set(position, direction);
+				long adjacentKey = adjacentPosition.asLong();
+				
+				if(adjacentKey == excluded || grid.getConduits().contains(adjacentKey))
+					continue;
+				
+				BlockState adjacentState = world.getBlockState(adjacentPosition);
+				
+				if(isConduitSide(adjacentState, direction.getOpposite()))
 				{
-					if(energyCableBlock.isConnected(world, adjacentPosition, adjacentBlockState, adjacentDirection))
-						checkDirectionConsumer(world, adjacentPosition, adjacentDirection, checkList, found, consumer);
+					grid.addConduit(adjacentKey);
+					grids.put(adjacentKey, grid);
+					queue.enqueue(adjacentKey);
 				}
+				else if(adjacentState.getBlock() instanceof EnergyBlock)
+					attachEndpoint(world, grid, adjacentPosition, adjacentState, direction.getOpposite(), false, unregistered);
 			}
 		}
-		else if(adjacentBlockState.getBlock() instanceof BreakerSwitchBlock && adjacentBlockState.get(BreakerSwitchBlock.LIT))
+		
+		return grid;
+	}
+	
+	/**
+	 * Move all conduits and energy nodes of one grid into another and connect the producers and consumers of both.
+	 */
+	private static void mergeGrids(EnergyGrid grid, EnergyGrid other)
+	{
+		for(EnergyNode producer : other.getProducers())
 		{
-			// Connect through breaker switch blocks.
-			Direction breakerDirection = adjacentBlockState.get(BreakerSwitchBlock.FACING);
-			
-			if(direction == breakerDirection)
-				checkDirectionConsumer(world, adjacentPosition, breakerDirection, checkList, found, consumer);
-			else if(direction == breakerDirection.getOpposite())
-				checkDirectionConsumer(world, adjacentPosition, breakerDirection.getOpposite(), checkList, found, consumer);
+			for(EnergyNode consumer : grid.getConsumers())
+				link(producer, consumer);
+		}
+		
+		for(EnergyNode producer : grid.getProducers())
+		{
+			for(EnergyNode consumer : other.getConsumers())
+				link(producer, consumer);
 		}
+		
+		Long2ObjectOpenHashMap<EnergyGrid> grids = getGrids(grid.getDimension());
+		LongIterator iterator = other.getConduits().iterator();
+		
+		while(iterator.hasNext())
+			grids.put(iterator.nextLong(), grid);
+		
+		grid.getConduits().addAll(other.getConduits());
+		grid.getProducers().addAll(other.getProducers());
+		grid.getConsumers().addAll(other.getConsumers());
 	}
 	
 	/**
-	 * Recursively update energy nodes when an energy conduit is placed or broken.
+	 * Update the energy grids when an energy conduit is placed or a breaker switch is closed.
+	 * The new conduit joins the largest adjacent grid and any other adjacent grids are merged into it.
 	 */
-	public static void updateEnergyNodes(World world, BlockPos position, ArrayList<BlockPos> checkList)
+	public static void addConduit(World world, BlockPos position)
 	{
-		if(checkList.contains(position))
+		if(world.isClient())
+			return;
+		
+		RegistryKey<World> dimension = world.getRegistryKey();
+		Long2ObjectOpenHashMap<EnergyGrid> grids = getGrids(dimension);
+		long key = position.asLong();
+		BlockState blockState = world.getBlockState(position);
+		
+		if(grids.containsKey(key) || !isConduit(blockState))
 			return;
 		
-		checkList.add(position);
+		ArrayList<EnergyGrid> adjacentGrids = new ArrayList<EnergyGrid>();
+		ArrayList<BlockPos> unregistered = new ArrayList<BlockPos>();
+		EnergyGrid grid = null;
 		
-		for(Direction direction : Direction.values())
+		for(Direction direction : DIRECTIONS)
 		{
+			if(!isConduitSide(blockState, direction))
+				continue;
+			
 			BlockPos adjacentPosition = position.offset(direction);
-			BlockState adjacentState = world.getBlockState(adjacentPosition);
-			EnergyNode producer = EnergyNet.getProducer(adjacentPosition, world.getRegistryKey());
-			EnergyNode consumer = EnergyNet.getConsumer(adjacentPosition, world.getRegistryKey());
 			
-			if(adjacentState == null)
+			if(!isConduitSide(world.getBlockState(adjacentPosition), direction.getOpposite()))
+				continue;
+			
+			EnergyGrid adjacentGrid = grids.get(adjacentPosition.asLong());
+			
+			if(adjacentGrid == null)
+				adjacentGrid = buildGrid(world, adjacentPosition, key, unregistered);
+			
+			if(!adjacentGrids.contains(adjacentGrid))
+				adjacentGrids.add(adjacentGrid);
+			
+			if(grid == null || adjacentGrid.size() > grid.size())
+				grid = adjacentGrid;
+		}
+		
+		if(grid == null)
+			grid = new EnergyGrid(dimension);
+		
+		for(EnergyGrid adjacentGrid : adjacentGrids)
+		{
+			if(adjacentGrid != grid)
+				mergeGrids(grid, adjacentGrid);
+		}
+		
+		grid.addConduit(key);
+		grids.put(key, grid);
+		
+		// Attach and connect the energy blocks next to the new conduit.
+		for(Direction direction : DIRECTIONS)
+		{
+			if(!isConduitSide(blockState, direction))
 				continue;
 			
-			if(adjacentState.getBlock() instanceof EnergyCableBlock)
-				updateEnergyNodes(world, adjacentPosition, checkList);
-			else if(adjacentState.getBlock() instanceof BreakerSwitchBlock && adjacentState.get(BreakerSwitchBlock.LIT) && (direction == adjacentState.get(BreakerSwitchBlock.FACING) || direction == adjacentState.get(BreakerSwitchBlock.FACING).getOpposite()))
-				updateEnergyNodes(world, adjacentPosition, checkList);
-			else if(adjacentState.getBlock() instanceof EnergyBlock)
+			BlockPos adjacentPosition = position.offset(direction);
+			BlockState adjacentState = world.getBlockState(adjacentPosition);
+			
+			if(adjacentState.getBlock() instanceof EnergyBlock)
+				attachEndpoint(world, grid, adjacentPosition, adjacentState, direction.getOpposite(), true, unregistered);
+		}
+		
+		addUnregisteredNodes(world, unregistered);
+	}
+	
+	/**
+	 * Update the energy grids when an energy conduit is broken or a breaker switch is opened.
+	 * The grid is only flood filled again when removing the conduit may have split it, and only the consumers of a split grid are reconnected.
+	 */
+	public static void removeConduit(World world, BlockPos position)
+	{
+		if(world.isClient())
+			return;
+		
+		RegistryKey<World> dimension = world.getRegistryKey();
+		Long2ObjectOpenHashMap<EnergyGrid> grids = getGrids(dimension);
+		long key = position.asLong();
+		EnergyGrid grid = grids.get(key);
+		
+		if(grid == null && isConduit(world.getBlockState(position)))
+			return;
+		
+		ArrayList<BlockPos> adjacentConduits = new ArrayList<BlockPos>();
+		ArrayList<EnergyNode> adjacentProducers = new ArrayList<EnergyNode>();
+		ArrayList<EnergyNode> adjacentConsumers = new ArrayList<EnergyNode>();
+		ArrayList<BlockPos> unregistered = new ArrayList<BlockPos>();
+		
+		for(Direction direction : DIRECTIONS)
+		{
+			BlockPos adjacentPosition = position.offset(direction);
+			
+			if(grid != null ? grid.getConduits().contains(adjacentPosition.asLong()) : isConduitSide(world.getBlockState(adjacentPosition), direction.getOpposite()))
+				adjacentConduits.add(adjacentPosition);
+			else
 			{
-				EnergyBlock energyBlock = (EnergyBlock) adjacentState.getBlock();
+				EnergyNode producer = getProducer(adjacentPosition, dimension);
+				EnergyNode consumer = getConsumer(adjacentPosition, dimension);
 				
 				if(producer != null)
-					EnergyNet.connectProducer(world, producer);
-				else if(energyBlock.isSideOutput(world, adjacentPosition, adjacentState, direction.getOpposite()))
-					energyBlock.addNode(world, adjacentPosition);
+					adjacentProducers.add(producer);
 				
 				if(consumer != null)
-					EnergyNet.connectConsumer(world, consumer);
-				else if(energyBlock.isSideInput(world, adjacentPosition, adjacentState, direction.getOpposite()))
-					energyBlock.addNode(world, adjacentPosition);
+					adjacentConsumers.add(consumer);
 			}
 		}
-	}
-	
-	private static void findBreakerSwitches(World world, BlockPos position, ArrayList<BlockPos> checkList, ArrayList<BlockPos> breakerList)
-	{
-		if(checkList.contains(position))
-			return;
 		
-		checkList.add(position);
+		if(grid != null)
+		{
+			grids.remove(key);
+			grid.removeConduit(key);
+		}
+		
+		ArrayList<EnergyNode> splitConsumers = new ArrayList<EnergyNode>();
 		
-		for(Direction direction : Direction.values())
+		if(grid != null && adjacentConduits.size() <= 1)
 		{
-			BlockPos adjacentPosition = position.offset(direction);
-			BlockState adjacentState = world.getBlockState(adjacentPosition);
+			// Removing the end of a conduit line can not split the grid.
+			for(EnergyNode producer : adjacentProducers)
+				grid.getProducers().remove(producer);
 			
-			if(adjacentState == null)
-				continue;
+			for(EnergyNode consumer : adjacentConsumers)
+				grid.getConsumers().remove(consumer);
+		}
+		else
+		{
+			if(grid != null)
+			{
+				LongIterator iterator = grid.getConduits().iterator();
+				
+				while(iterator.hasNext())
+					grids.remove(iterator.nextLong());
+			}
+			
+			ArrayList<EnergyGrid> newGrids = new ArrayList<EnergyGrid>();
+			
+			for(BlockPos adjacentPosition : adjacentConduits)
+			{
+				EnergyGrid adjacentGrid = grids.get(adjacentPosition.asLong());
+				
+				if(adjacentGrid == null)
+				{
+					adjacentGrid = buildGrid(world, adjacentPosition, key, unregistered);
+					newGrids.add(adjacentGrid);
+				}
+				else if(grid == null && !newGrids.contains(adjacentGrid))
+					newGrids.add(adjacentGrid);
+			}
+			
+			// Reconnect every consumer if the grid was split into separate parts.
+			if(newGrids.size() > 1)
+			{
+				if(grid != null)
+					splitConsumers.addAll(grid.getConsumers());
+				else
+				{
+					for(EnergyGrid newGrid : newGrids)
+						splitConsumers.addAll(newGrid.getConsumers());
+				}
+			}
+		}
+		
+		for(EnergyNode consumer : splitConsumers)
+			connectConsumer(world, consumer);
+		
+		for(EnergyNode producer : adjacentProducers)
+			connectProducer(world, producer);
+		
+		for(EnergyNode consumer : adjacentConsumers)
+			connectConsumer(world, consumer);
+		
+		addUnregisteredNodes(world, unregistered);
+	}
+	
+	private static void addUnregisteredNodes(World world, ArrayList<BlockPos> unregistered)
+	{
+		for(BlockPos position : unregistered)
+		{
+			BlockState blockState = world.getBlockState(position);
 			
-			if(adjacentState.getBlock() instanceof EnergyCableBlock)
-				findBreakerSwitches(world, adjacentPosition, checkList, breakerList);
-			else if(adjacentState.getBlock() instanceof BreakerSwitchBlock)
-				breakerList.add(adjacentPosition);
+			if(blockState.getBlock() instanceof EnergyBlock)
+				((EnergyBlock) blockState.getBlock()).addNode(world, position);
 		}
 	}
 	
 	/**
-	 * Save all world specific energy network data.
+	 * Open the closed breaker switches bordering the energy cables that lead into an overloaded energy consumer.
+	 * Only cables are followed, so breakers beyond the first ones found on each path are left closed.
 	 */
-	public static DataCompound saveData()
+	private static void tripBreakers(World world, EnergyNode consumer)
 	{
-		DataCompound data = new DataCompound();
-		DataCompound energyNodeData = new DataCompound();
-		ArrayList<EnergyNode> combinedList = new ArrayList<EnergyNode>();
+		BlockPos position = consumer.getPosition();
+		BlockState blockState = world.getBlockState(position);
+		
+		if(!(blockState.getBlock() instanceof EnergyBlock))
+			return;
 		
-		for(EnergyNode energyProducer : energyProducers)
-			combinedList.add(energyProducer);
+		EnergyBlock energyBlock = (EnergyBlock) blockState.getBlock();
+		LongOpenHashSet checked = new LongOpenHashSet();
+		LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+		ArrayList<BlockPos> breakers = new ArrayList<BlockPos>();
+		checked.add(position.asLong());
 		
-		for(EnergyNode energyConsumer : energyConsumers)
+		for(Direction direction : DIRECTIONS)
 		{
-			if(!combinedList.contains(energyConsumer))
-				combinedList.add(energyConsumer);
+			if(energyBlock.isSideInput(world, position, blockState, direction))
+				checkBreakerPath(world, position.offset(direction), checked, queue, breakers);
 		}
 		
-		String[] energyNodeNames = new String[combinedList.size()];
+		BlockPos.Mutable cablePosition = new BlockPos.Mutable();
+		
+		while(!queue.isEmpty())
+		{
+			cablePosition.set(queue.dequeueLong());
+			
+			for(Direction direction : DIRECTIONS)
+				checkBreakerPath(world, cablePosition.offset(direction), checked, queue, breakers);
+		}
 		
-		for(int i = 0; i < combinedList.size(); i++)
+		for(BlockPos breakerPos : breakers)
 		{
-			EnergyNode energyNode = combinedList.get(i);
-			energyNode.saveData(energyNodeData);
-			energyNodeNames[i] = energyNode.getName();
+			world.setBlockState(breakerPos, world.getBlockState(breakerPos).with(BreakerSwitchBlock.LIT, false));
+			removeConduit(world, breakerPos);
 		}
+	}
+	
+	/**
+	 * Queue an energy cable to be searched for breaker switches or record a closed breaker switch.
+	 */
+	private static void checkBreakerPath(World world, BlockPos position, LongOpenHashSet checked, LongArrayFIFOQueue queue, ArrayList<BlockPos> breakers)
+	{
+		if(!checked.add(position.asLong()))
+			return;
+		
+		BlockState blockState = world.getBlockState(position);
 		
-		data.setValue("energyNodes", energyNodeData);
-		data.setValue("energyNodeNames", energyNodeNames);
-		return data;
+		if(blockState.getBlock() instanceof EnergyCableBlock)
+			queue.enqueue(position.asLong());
+		else if(blockState.getBlock() instanceof BreakerSwitchBlock && blockState.get(BreakerSwitchBlock.LIT))
+			breakers.add(position);
 	}
 	
 	/**
-	 * Load all world specific energy network data.
+	 * Remove all energy nodes and grids.
 	 */
-	public static void loadData(DataCompound data)
+	public static void clear()
 	{
 		energyProducers.clear();
 		energyConsumers.clear();
+		energyGrids.clear();
+		energySolvers.clear();
+		EnergyStorage.clear();
+	}
+	
+	/**
+	 * Load energy network data from the legacy energy.dat format. The loaded nodes are flagged so that they are written to region files on the next save.
+	 */
+	public static void loadLegacyData(DataCompound data)
+	{
+		clear();
 		
 		if(data == null)
 			return;
@@ -575,39 +973,36 @@ public class EnergyNet
 			if(energyNode.isConsumer())
 				energyConsumers.add(energyNode);
 		}
-
-		for(EnergyNode energyNode : energyProducers)
-		{	
-			ArrayList<EnergyNode> newOutputs = new ArrayList<EnergyNode>();
-			
-			for(int i = 0; i < energyNode.getOutputs().size(); i++)
-			{
-				for(EnergyNode c : energyConsumers)
-				{
-					if(c.getPosition().equals(energyNode.getOutputs().get(i).getPosition()) && c.getDimension().equals(energyNode.getDimension()))
-						newOutputs.add(c);
-				}
-			}
-			
-			energyNode.getOutputs().clear();
-			energyNode.getOutputs().addAll(newOutputs);
+		
+		// Outputs are rebuilt from the consumer inputs so that links stay symmetric.
+		for(RegistryKey<World> dimension : energyProducers.getDimensions())
+		{
+			for(EnergyNode energyNode : energyProducers.getNodes(dimension))
+				energyNode.getOutputs().clear();
 		}
 		
-		for(EnergyNode energyNode : energyConsumers)
-		{	
-			ArrayList<EnergyNode> newInputs = new ArrayList<EnergyNode>();
-			
-			for(int i = 0; i < energyNode.getInputs().size(); i++)
+		for(RegistryKey<World> dimension : energyConsumers.getDimensions())
+		{
+			for(EnergyNode energyNode : energyConsumers.getNodes(dimension))
 			{
-				for(EnergyNode p : energyProducers)
+				ArrayList<EnergyNode> newInputs = new ArrayList<EnergyNode>(energyNode.getInputs().size());
+				
+				for(EnergyNode input : energyNode.getInputs())
 				{
-					if(p.getPosition().equals(energyNode.getInputs().get(i).getPosition()) && p.getDimension().equals(energyNode.getDimension()))
+					EnergyNode p = energyProducers.get(dimension, input.getPosition());
+					
+					if(p != null && !newInputs.contains(p))
+					{
 						newInputs.add(p);
+						p.getOutputs().add(energyNode);
+					}
 				}
+				
+				energyNode.getInputs().clear();
+				energyNode.getInputs().addAll(newInputs);
 			}
-			
-			energyNode.getInputs().clear();
-			energyNode.getInputs().addAll(newInputs);
 		}
+		
+		EnergyStorage.markAllDirty();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package space.energy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+
+/**
+ * Energy nodes indexed first by dimension and then by packed block position, with a secondary index by chunk.
+ * Chunk buckets are also tracked separately while their chunk is loaded so that unloaded areas can be skipped entirely.
+ */
+public class EnergyNodeRegistry
+{
+	private final HashMap<RegistryKey<World>, Long2ObjectLinkedOpenHashMap<EnergyNode>> nodes = new HashMap<RegistryKey<World>, Long2ObjectLinkedOpenHashMap<EnergyNode>>();
+	private final HashMap<RegistryKey<World>, Long2ObjectOpenHashMap<ArrayList<EnergyNode>>> chunks = new HashMap<RegistryKey<World>, Long2ObjectOpenHashMap<ArrayList<EnergyNode>>>();
+	private final HashMap<RegistryKey<World>, Long2ObjectLinkedOpenHashMap<ArrayList<EnergyNode>>> loadedBuckets = new HashMap<RegistryKey<World>, Long2ObjectLinkedOpenHashMap<ArrayList<EnergyNode>>>();
+	private final HashMap<RegistryKey<World>, LongOpenHashSet> loadedChunks = new HashMap<RegistryKey<World>, LongOpenHashSet>();
+	private int size;
+	
+	public EnergyNode get(RegistryKey<World> dimension, BlockPos position)
+	{
+		return get(dimension, position.asLong());
+	}
+	
+	/**
+	 * Get the energy node at the given packed block position.
+	 */
+	public EnergyNode get(RegistryKey<World> dimension, long position)
+	{
+		Long2ObjectLinkedOpenHashMap<EnergyNode> dimensionNodes = nodes.get(dimension);
+		
+		if(dimensionNodes == null)
+			return null;
+		
+		return dimensionNodes.get(position);
+	}
+	
+	public boolean contains(RegistryKey<World> dimension, BlockPos position)
+	{
+		return get(dimension, position) != null;
+	}
+	
+	/**
+	 * Add an energy node to the registry. Returns false if a node already exists at the same position and dimension.
+	 */
+	public boolean add(EnergyNode energyNode)
+	{
+		Long2ObjectLinkedOpenHashMap<EnergyNode> dimensionNodes = nodes.computeIfAbsent(energyNode.getDimension(), key -> new Long2ObjectLinkedOpenHashMap<EnergyNode>());
+		long key = energyNode.getPosition().asLong();
+		
+		if(dimensionNodes.containsKey(key))
+			return false;
+		
+		dimensionNodes.put(key, energyNode);
+		Long2ObjectOpenHashMap<ArrayList<EnergyNode>> dimensionChunks = chunks.computeIfAbsent(energyNode.getDimension(), k -> new Long2ObjectOpenHashMap<ArrayList<EnergyNode>>());
+		long chunkKey = ChunkPos.toLong(energyNode.getPosition());
+		ArrayList<EnergyNode> chunkNodes = dimensionChunks.get(chunkKey);
+		
+		if(chunkNodes == null)
+		{
+			chunkNodes = new ArrayList<EnergyNode>();
+			dimensionChunks.put(chunkKey, chunkNodes);
+			
+			if(isChunkLoaded(energyNode.getDimension(), chunkKey))
+				loadedBuckets.computeIfAbsent(energyNode.getDimension(), k -> new Long2ObjectLinkedOpenHashMap<ArrayList<EnergyNode>>()).put(chunkKey, chunkNodes);
+		}
+		
+		chunkNodes.add(energyNode);
+		size++;
+		return true;
+	}
+	
+	/**
+	 * Remove and return the energy node at the given position and dimension, or null if there is none.
+	 */
+	public EnergyNode remove(RegistryKey<World> dimension, BlockPos position)
+	{
+		Long2ObjectLinkedOpenHashMap<EnergyNode> dimensionNodes = nodes.get(dimension);
+		
+		if(dimensionNodes == null)
+			return null;
+		
+		EnergyNode energyNode = dimensionNodes.remove(position.asLong());
+		
+		if(energyNode == null)
+			return null;
+		
+		Long2ObjectOpenHashMap<ArrayList<EnergyNode>> dimensionChunks = chunks.get(dimension);
+		long chunkKey = ChunkPos.toLong(position);
+		ArrayList<EnergyNode> chunkNodes = dimensionChunks.get(chunkKey);
+		chunkNodes.remove(energyNode);
+		
+		if(chunkNodes.isEmpty())
+		{
+			dimensionChunks.remove(chunkKey);
+			Long2ObjectLinkedOpenHashMap<ArrayList<EnergyNode>> dimensionBuckets = loadedBuckets.get(dimension);
+			
+			if(dimensionBuckets != null)
+				dimensionBuckets.remove(chunkKey);
+		}
+		
+		size--;
+		return energyNode;
+	}
+	
+	public Set<RegistryKey<World>> getDimensions()
+	{
+		return nodes.keySet();
+	}
+	
+	/**
+	 * Get all energy nodes in the given dimension in insertion order.
+	 */
+	public Collection<EnergyNode> getNodes(RegistryKey<World> dimension)
+	{
+		Long2ObjectLinkedOpenHashMap<EnergyNode> dimensionNodes = nodes.get(dimension);
+		
+		if(dimensionNodes == null)
+			return Collections.emptyList();
+		
+		return dimensionNodes.values();
+	}
+	
+	/**
+	 * Get all energy nodes in the given chunk.
+	 */
+	public List<EnergyNode> getNodes(RegistryKey<World> dimension, int chunkX, int chunkZ)
+	{
+		Long2ObjectOpenHashMap<ArrayList<EnergyNode>> dimensionChunks = chunks.get(dimension);
+		
+		if(dimensionChunks == null)
+			return Collections.emptyList();
+		
+		ArrayList<EnergyNode> chunkNodes = dimensionChunks.get(ChunkPos.toLong(chunkX, chunkZ));
+		return chunkNodes == null ? Collections.emptyList() : chunkNodes;
+	}
+	
+	/**
+	 * Get the chunk buckets of all energy nodes in loaded chunks of the given dimension.
+	 */
+	public Collection<ArrayList<EnergyNode>> getLoadedChunks(RegistryKey<World> dimension)
+	{
+		Long2ObjectLinkedOpenHashMap<ArrayList<EnergyNode>> dimensionBuckets = loadedBuckets.get(dimension);
+		
+		if(dimensionBuckets == null)
+			return Collections.emptyList();
+		
+		return dimensionBuckets.values();
+	}
+	
+	public boolean isChunkLoaded(RegistryKey<World> dimension, long chunkKey)
+	{
+		LongOpenHashSet dimensionChunks = loadedChunks.get(dimension);
+		return dimensionChunks != null && dimensionChunks.contains(chunkKey);
+	}
+	
+	/**
+	 * Mark a chunk as loaded. Returns true if the chunk contains any energy nodes.
+	 */
+	public boolean chunkLoaded(RegistryKey<World> dimension, long chunkKey)
+	{
+		loadedChunks.computeIfAbsent(dimension, k -> new LongOpenHashSet()).add(chunkKey);
+		Long2ObjectOpenHashMap<ArrayList<EnergyNode>> dimensionChunks = chunks.get(dimension);
+		
+		if(dimensionChunks == null)
+			return false;
+		
+		ArrayList<EnergyNode> chunkNodes = dimensionChunks.get(chunkKey);
+		
+		if(chunkNodes == null)
+			return false;
+		
+		loadedBuckets.computeIfAbsent(dimension, k -> new Long2ObjectLinkedOpenHashMap<ArrayList<EnergyNode>>()).put(chunkKey, chunkNodes);
+		return true;
+	}
+	
+	/**
+	 * Mark a chunk as unloaded. Returns true if the chunk contains any energy nodes.
+	 */
+	public boolean chunkUnloaded(RegistryKey<World> dimension, long chunkKey)
+	{
+		LongOpenHashSet dimensionChunks = loadedChunks.get(dimension);
+		Long2ObjectLinkedOpenHashMap<ArrayList<EnergyNode>> dimensionBuckets = loadedBuckets.get(dimension);
+		
+		if(dimensionChunks != null)
+			dimensionChunks.remove(chunkKey);
+		
+		return dimensionBuckets != null && dimensionBuckets.remove(chunkKey) != null;
+	}
+	
+	/**
+	 * Forget all loaded chunks. Used when the server stops since the chunk unload events are not guaranteed to arrive.
+	 */
+	public void clearLoadedChunks()
+	{
+		loadedChunks.clear();
+		loadedBuckets.clear();
+	}
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Remove all energy nodes. The set of loaded chunks is kept since it is driven by chunk events rather than saved data.
+	 */
+	public void clear()
+	{
+		nodes.clear();
+		chunks.clear();
+		loadedBuckets.clear();
+		size = 0;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,453 @@
+package space.energy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.block.BlockState;
+
+/**
+ * Packed arrays of the energy nodes in the loaded chunks of one dimension used to solve power loads every tick without allocation.
+ * Consumer inputs and producer outputs are stored in compressed sparse row form and the arrays are only rebuilt after the connections between energy nodes change.
+ * Every value is computed by a single writer from values of the previous phase, so the result is the same whether or not the phases are split across threads.
+ */
+public class EnergySolver
+{
+	private static final int SPLIT_THRESHOLD = 2048;
+	private EnergyNode[] producers = new EnergyNode[0];
+	private EnergyNode[] consumers = new EnergyNode[0];
+	private BlockState[] producerStates = new BlockState[0];
+	private BlockState[] consumerStates = new BlockState[0];
+	private double[] powerOutput = new double[0];
+	private double[] powerLoad = new double[0];
+	private double[] powerDraw = new double[0];
+	private double[] powerSupply = new double[0];
+	private boolean[] producerOverloaded = new boolean[0];
+	private boolean[] consumerOverloaded = new boolean[0];
+	private boolean[] sufficientPower = new boolean[0];
+	private int[] inputStart = new int[1];
+	private int[] inputIndex = new int[0];
+	private int[] outputStart = new int[1];
+	private int[] outputIndex = new int[0];
+	private int producerCount;
+	private int loadedProducerCount;
+	private int consumerCount;
+	private boolean dirty = true;
+	
+	public void markDirty()
+	{
+		dirty = true;
+	}
+	
+	public boolean isDirty()
+	{
+		return dirty;
+	}
+	
+	/**
+	 * Pack the energy nodes of the given chunk buckets. Producers in loaded chunks come first and are followed by any producers in unloaded chunks that still supply a loaded consumer.
+	 */
+	public void build(Collection<ArrayList<EnergyNode>> producerChunks, Collection<ArrayList<EnergyNode>> consumerChunks)
+	{
+		Reference2IntOpenHashMap<EnergyNode> producerIndices = new Reference2IntOpenHashMap<EnergyNode>();
+		ArrayList<EnergyNode> producerList = new ArrayList<EnergyNode>();
+		ArrayList<EnergyNode> consumerList = new ArrayList<EnergyNode>();
+		int edgeCount = 0;
+		
+		for(ArrayList<EnergyNode> chunkNodes : producerChunks)
+		{
+			for(EnergyNode energyNode : chunkNodes)
+			{
+				producerIndices.put(energyNode, producerList.size());
+				producerList.add(energyNode);
+			}
+		}
+		
+		loadedProducerCount = producerList.size();
+		
+		for(ArrayList<EnergyNode> chunkNodes : consumerChunks)
+		{
+			for(EnergyNode energyNode : chunkNodes)
+			{
+				consumerList.add(energyNode);
+				edgeCount += energyNode.getInputs().size();
+				
+				for(EnergyNode producer : energyNode.getInputs())
+				{
+					if(!producerIndices.containsKey(producer))
+					{
+						producerIndices.put(producer, producerList.size());
+						producerList.add(producer);
+					}
+				}
+			}
+		}
+		
+		producerCount = producerList.size();
+		consumerCount = consumerList.size();
+		
+		if(producers.length < producerCount)
+		{
+			producers = new EnergyNode[producerCount];
+			producerStates = new BlockState[producerCount];
+			powerOutput = new double[producerCount];
+			powerLoad = new double[producerCount];
+			producerOverloaded = new boolean[producerCount];
+			outputStart = new int[producerCount + 1];
+		}
+		
+		if(consumers.length < consumerCount)
+		{
+			consumers = new EnergyNode[consumerCount];
+			consumerStates = new BlockState[consumerCount];
+			powerDraw = new double[consumerCount];
+			powerSupply = new double[consumerCount];
+			consumerOverloaded = new boolean[consumerCount];
+			sufficientPower = new boolean[consumerCount];
+			inputStart = new int[consumerCount + 1];
+		}
+		
+		if(inputIndex.length < edgeCount)
+		{
+			inputIndex = new int[edgeCount];
+			outputIndex = new int[edgeCount];
+		}
+		
+		for(int i = 0; i < producerCount; i++)
+		{
+			producers[i] = producerList.get(i);
+			producerStates[i] = null;
+			powerOutput[i] = producers[i].getPowerOutput();
+		}
+		
+		int edge = 0;
+		inputStart[0] = 0;
+		
+		for(int i = 0; i < consumerCount; i++)
+		{
+			consumers[i] = consumerList.get(i);
+			consumerStates[i] = null;
+			
+			for(EnergyNode producer : consumers[i].getInputs())
+				inputIndex[edge++] = producerIndices.getInt(producer);
+			
+			inputStart[i + 1] = edge;
+		}
+		
+		// Transpose the consumer inputs so that the load on each producer can be summed by that producer alone.
+		for(int i = 0; i <= producerCount; i++)
+			outputStart[i] = 0;
+		
+		for(int j = 0; j < edge; j++)
+			outputStart[inputIndex[j] + 1]++;
+		
+		for(int i = 0; i < producerCount; i++)
+			outputStart[i + 1] += outputStart[i];
+		
+		for(int i = 0; i < consumerCount; i++)
+		{
+			for(int j = inputStart[i]; j < inputStart[i + 1]; j++)
+			{
+				int producer = inputIndex[j];
+				outputIndex[outputStart[producer]++] = i;
+			}
+		}
+		
+		for(int i = producerCount; i > 0; i--)
+			outputStart[i] = outputStart[i - 1];
+		
+		outputStart[0] = 0;
+		
+		// Release references to energy nodes beyond the packed range.
+		for(int i = producerCount; i < producers.length && producers[i] != null; i++)
+		{
+			producers[i] = null;
+			producerStates[i] = null;
+		}
+		
+		for(int i = consumerCount; i < consumers.length && consumers[i] != null; i++)
+		{
+			consumers[i] = null;
+			consumerStates[i] = null;
+		}
+		
+		dirty = false;
+	}
+	
+	/**
+	 * Distribute the power draw of every consumer across its producers in proportion to their output, then find overloaded producers and the consumers with sufficient power.
+	 */
+	public void solve()
+	{
+		solveSupply(0, consumerCount);
+		solveLoad(0, producerCount);
+		solveStatus(0, consumerCount);
+	}
+	
+	/**
+	 * Sum the power output available to each consumer in the given range.
+	 */
+	private void solveSupply(int from, int to)
+	{
+		for(int i = from; i < to; i++)
+		{
+			double totalPowerSupply = 0.0;
+			
+			for(int j = inputStart[i]; j < inputStart[i + 1]; j++)
+				totalPowerSupply += powerOutput[inputIndex[j]];
+			
+			powerSupply[i] = totalPowerSupply;
+		}
+	}
+	
+	/**
+	 * Sum the share of consumer power draw taken by each producer in the given range.
+	 */
+	private void solveLoad(int from, int to)
+	{
+		for(int i = from; i < to; i++)
+		{
+			double load = 0.0;
+			
+			for(int j = outputStart[i]; j < outputStart[i + 1]; j++)
+			{
+				int consumer = outputIndex[j];
+				
+				if(powerSupply[consumer] > 0.0)
+					load += powerDraw[consumer] * (powerOutput[i] / powerSupply[consumer]);
+			}
+			
+			powerLoad[i] = load;
+			producerOverloaded[i] = powerOutput[i] < load;
+		}
+	}
+	
+	/**
+	 * Determine whether each consumer in the given range has sufficient power and whether any of its producers are overloaded.
+	 */
+	private void solveStatus(int from, int to)
+	{
+		for(int i = from; i < to; i++)
+		{
+			boolean sufficient = false;
+			boolean overloaded = false;
+			
+			for(int j = inputStart[i]; j < inputStart[i + 1]; j++)
+			{
+				int producer = inputIndex[j];
+				
+				if(producerOverloaded[producer])
+					overloaded = true;
+				else if(powerOutput[producer] > 0.0)
+					sufficient = true;
+			}
+			
+			sufficientPower[i] = sufficient;
+			consumerOverloaded[i] = overloaded;
+		}
+	}
+	
+	/**
+	 * Solve all of the given energy solvers. In parallel mode large solvers have each phase split into node ranges on the common fork-join pool and separate dimensions are solved concurrently.
+	 * Solving never touches the world, so all block and block entity updates are left to the server thread afterwards.
+	 */
+	public static void solveAll(ArrayList<EnergySolver> solvers, boolean parallel)
+	{
+		int work = 0;
+		
+		for(EnergySolver solver : solvers)
+			work += solver.producerCount + solver.consumerCount;
+		
+		if(!parallel || work < SPLIT_THRESHOLD)
+		{
+			for(EnergySolver solver : solvers)
+				solver.solve();
+			
+			return;
+		}
+		
+		ForkJoinPool.commonPool().invoke(new SolveAllTask(solvers));
+	}
+	
+	private static class SolveAllTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final ArrayList<EnergySolver> solvers;
+		
+		public SolveAllTask(ArrayList<EnergySolver> solvers_)
+		{
+			solvers = solvers_;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			ArrayList<SolveTask> tasks = new ArrayList<SolveTask>(solvers.size());
+			
+			for(EnergySolver solver : solvers)
+				tasks.add(new SolveTask(solver));
+			
+			ForkJoinTask.invokeAll(tasks);
+		}
+	}
+	
+	private static class SolveTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final EnergySolver solver;
+		
+		public SolveTask(EnergySolver solver_)
+		{
+			solver = solver_;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			// Each phase reads only the results of the previous one, so the phases are separated by a join.
+			new PhaseTask(solver, PhaseTask.SUPPLY, 0, solver.consumerCount).invoke();
+			new PhaseTask(solver, PhaseTask.LOAD, 0, solver.producerCount).invoke();
+			new PhaseTask(solver, PhaseTask.STATUS, 0, solver.consumerCount).invoke();
+		}
+	}
+	
+	private static class PhaseTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private static final int SUPPLY = 0;
+		private static final int LOAD = 1;
+		private static final int STATUS = 2;
+		private final EnergySolver solver;
+		private final int phase;
+		private final int from;
+		private final int to;
+		
+		public PhaseTask(EnergySolver solver_, int phase_, int from_, int to_)
+		{
+			solver = solver_;
+			phase = phase_;
+			from = from_;
+			to = to_;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if(to - from > SPLIT_THRESHOLD)
+			{
+				int middle = (from + to) >>> 1;
+				invokeAll(new PhaseTask(solver, phase, from, middle), new PhaseTask(solver, phase, middle, to));
+			}
+			else if(phase == SUPPLY)
+				solver.solveSupply(from, to);
+			else if(phase == LOAD)
+				solver.solveLoad(from, to);
+			else
+				solver.solveStatus(from, to);
+		}
+	}
+	
+	/**
+	 * Copy the solved power output and load back to the energy nodes.
+	 */
+	public void writeBack()
+	{
+		for(int i = 0; i < producerCount; i++)
+		{
+			producers[i].setPowerOutput(powerOutput[i]);
+			producers[i].setPowerSourceLoad(powerLoad[i]);
+		}
+	}
+	
+	public int getProducerCount()
+	{
+		return producerCount;
+	}
+	
+	/**
+	 * Get the number of producers in loaded chunks. These are always packed before producers in unloaded chunks.
+	 */
+	public int getLoadedProducerCount()
+	{
+		return loadedProducerCount;
+	}
+	
+	public int getConsumerCount()
+	{
+		return consumerCount;
+	}
+	
+	public EnergyNode getProducer(int i)
+	{
+		return producers[i];
+	}
+	
+	public EnergyNode getConsumer(int i)
+	{
+		return consumers[i];
+	}
+	
+	/**
+	 * Get the block state sampled for a producer this tick, or null if the block is no longer an energy block.
+	 */
+	public BlockState getProducerState(int i)
+	{
+		return producerStates[i];
+	}
+	
+	public void setProducerState(int i, BlockState state)
+	{
+		producerStates[i] = state;
+	}
+	
+	/**
+	 * Get the block state sampled for a consumer this tick, or null if the block is no longer an energy block.
+	 */
+	public BlockState getConsumerState(int i)
+	{
+		return consumerStates[i];
+	}
+	
+	public void setConsumerState(int i, BlockState state)
+	{
+		consumerStates[i] = state;
+	}
+	
+	public void setPowerOutput(int i, double output)
+	{
+		powerOutput[i] = output;
+	}
+	
+	public double getPowerLoad(int i)
+	{
+		return powerLoad[i];
+	}
+	
+	public void setPowerDraw(int i, double draw)
+	{
+		powerDraw[i] = draw;
+	}
+	
+	public double getPowerDraw(int i)
+	{
+		return powerDraw[i];
+	}
+	
+	public boolean hasInputs(int i)
+	{
+		return inputStart[i + 1] > inputStart[i];
+	}
+	
+	public boolean hasSufficientPower(int i)
+	{
+		return sufficientPower[i];
+	}
+	
+	public boolean isOverloaded(int i)
+	{
+		return consumerOverloaded[i];
+	}
+}
\ No newline at end of file
@@ -0,0 +1,306 @@
+package space.energy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import space.StarflightMod;
+
+/**
+ * Binary storage of energy nodes in region files of 32 by 32 chunks. Each region file holds the nodes of that region and the packed positions of each consumer's inputs.
+ * Only regions that changed since the last save are written, and the files are written on a separate thread from a snapshot taken on the server thread.
+ */
+public class EnergyStorage
+{
+	public static final ExecutorService THREAD_POOL = Executors.newFixedThreadPool(1); // For writing energy region files in a separate thread.
+	private static final int FORMAT_VERSION = 1;
+	private static final byte PRODUCER = 1;
+	private static final byte CONSUMER = 2;
+	private static HashMap<RegistryKey<World>, LongOpenHashSet> dirtyRegions = new HashMap<RegistryKey<World>, LongOpenHashSet>();
+	
+	/**
+	 * Flag the region containing the given energy node for saving.
+	 */
+	public static void markDirty(EnergyNode energyNode)
+	{
+		BlockPos position = energyNode.getPosition();
+		dirtyRegions.computeIfAbsent(energyNode.getDimension(), key -> new LongOpenHashSet()).add(ChunkPos.toLong(position.getX() >> 9, position.getZ() >> 9));
+	}
+	
+	/**
+	 * Flag the regions of every registered energy node for saving.
+	 */
+	public static void markAllDirty()
+	{
+		for(RegistryKey<World> dimension : EnergyNet.getEnergyProducers().getDimensions())
+		{
+			for(EnergyNode energyNode : EnergyNet.getEnergyProducers().getNodes(dimension))
+				markDirty(energyNode);
+		}
+		
+		for(RegistryKey<World> dimension : EnergyNet.getEnergyConsumers().getDimensions())
+		{
+			for(EnergyNode energyNode : EnergyNet.getEnergyConsumers().getNodes(dimension))
+				markDirty(energyNode);
+		}
+	}
+	
+	/**
+	 * Write all dirty regions to the given directory. Set wait to true to block until the files are written, such as when the server is stopping.
+	 */
+	public static void save(File directory, boolean wait)
+	{
+		ArrayList<RegionSnapshot> snapshots = new ArrayList<RegionSnapshot>();
+		
+		for(Map.Entry<RegistryKey<World>, LongOpenHashSet> entry : dirtyRegions.entrySet())
+		{
+			LongIterator iterator = entry.getValue().iterator();
+			
+			while(iterator.hasNext())
+			{
+				long regionKey = iterator.nextLong();
+				snapshots.add(new RegionSnapshot(entry.getKey(), ChunkPos.getPackedX(regionKey), ChunkPos.getPackedZ(regionKey)));
+			}
+		}
+		
+		dirtyRegions.clear();
+		
+		if(snapshots.isEmpty())
+			return;
+		
+		Future<?> future = THREAD_POOL.submit(() -> {
+			for(RegionSnapshot snapshot : snapshots)
+			{
+				try
+				{
+					snapshot.write(directory);
+				}
+				catch(IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		});
+		
+		if(!wait)
+			return;
+		
+		try
+		{
+			future.get();
+		}
+		catch(InterruptedException | ExecutionException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Load all energy nodes from the region files in the given directory. Returns false if the directory does not exist.
+	 * Consumer inputs are resolved by position once every node is registered, so loading is linear in the number of nodes and connections.
+	 */
+	public static boolean load(File directory)
+	{
+		dirtyRegions.clear();
+		
+		if(!directory.isDirectory())
+			return false;
+		
+		EnergyNodeRegistry energyProducers = EnergyNet.getEnergyProducers();
+		EnergyNodeRegistry energyConsumers = EnergyNet.getEnergyConsumers();
+		ArrayList<EnergyNode> consumers = new ArrayList<EnergyNode>();
+		ArrayList<long[]> consumerInputs = new ArrayList<long[]>();
+		List<Path> files;
+		
+		try(Stream<Path> stream = Files.walk(directory.toPath()))
+		{
+			files = stream.filter(path -> path.getFileName().toString().endsWith(".dat")).toList();
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+			return true;
+		}
+		
+		for(Path file : files)
+		{
+			try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file.toFile()))))
+			{
+				int version = input.readInt();
+				
+				if(version != FORMAT_VERSION)
+				{
+					StarflightMod.LOGGER.warn("Skipping energy region file " + file + " with unknown version " + version);
+					continue;
+				}
+				
+				RegistryKey<World> dimension = RegistryKey.of(RegistryKeys.WORLD, new Identifier(input.readUTF()));
+				int nodeCount = input.readInt();
+				
+				for(int i = 0; i < nodeCount; i++)
+				{
+					BlockPos position = BlockPos.fromLong(input.readLong());
+					byte flags = input.readByte();
+					long[] inputs = new long[input.readInt()];
+					
+					for(int j = 0; j < inputs.length; j++)
+						inputs[j] = input.readLong();
+					
+					EnergyNode energyNode = new EnergyNode(position, dimension, (flags & PRODUCER) != 0, (flags & CONSUMER) != 0);
+					
+					if(energyNode.isProducer())
+						energyProducers.add(energyNode);
+					
+					if(energyNode.isConsumer() && energyConsumers.add(energyNode))
+					{
+						consumers.add(energyNode);
+						consumerInputs.add(inputs);
+					}
+				}
+			}
+			catch(IOException e)
+			{
+				StarflightMod.LOGGER.error("Failed to read energy region file " + file, e);
+			}
+		}
+		
+		for(int i = 0; i < consumers.size(); i++)
+		{
+			EnergyNode consumer = consumers.get(i);
+			
+			for(long inputPosition : consumerInputs.get(i))
+			{
+				EnergyNode producer = energyProducers.get(consumer.getDimension(), inputPosition);
+				
+				if(producer != null && producer != consumer)
+				{
+					consumer.getInputs().add(producer);
+					producer.getOutputs().add(consumer);
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	public static void clear()
+	{
+		dirtyRegions.clear();
+	}
+	
+	/**
+	 * A copy of the energy nodes in one region that can be written without touching the live energy network.
+	 */
+	private static class RegionSnapshot
+	{
+		private final String dimension;
+		private final int regionX;
+		private final int regionZ;
+		private final long[] positions;
+		private final byte[] flags;
+		private final long[][] inputs;
+		
+		public RegionSnapshot(RegistryKey<World> dimension_, int regionX_, int regionZ_)
+		{
+			dimension = dimension_.getValue().toString();
+			regionX = regionX_;
+			regionZ = regionZ_;
+			EnergyNodeRegistry energyProducers = EnergyNet.getEnergyProducers();
+			EnergyNodeRegistry energyConsumers = EnergyNet.getEnergyConsumers();
+			ArrayList<EnergyNode> regionNodes = new ArrayList<EnergyNode>();
+			
+			for(int chunkX = regionX << 5; chunkX < (regionX + 1) << 5; chunkX++)
+			{
+				for(int chunkZ = regionZ << 5; chunkZ < (regionZ + 1) << 5; chunkZ++)
+				{
+					regionNodes.addAll(energyProducers.getNodes(dimension_, chunkX, chunkZ));
+					
+					// Dual nodes are registered as both a producer and a consumer so only add them once.
+					for(EnergyNode energyNode : energyConsumers.getNodes(dimension_, chunkX, chunkZ))
+					{
+						if(energyProducers.get(dimension_, energyNode.getPosition()) != energyNode)
+							regionNodes.add(energyNode);
+					}
+				}
+			}
+			
+			positions = new long[regionNodes.size()];
+			flags = new byte[regionNodes.size()];
+			inputs = new long[regionNodes.size()][];
+			
+			for(int i = 0; i < regionNodes.size(); i++)
+			{
+				EnergyNode energyNode = regionNodes.get(i);
+				positions[i] = energyNode.getPosition().asLong();
+				flags[i] = (byte) ((energyNode.isProducer() ? PRODUCER : 0) | (energyNode.isConsumer() ? CONSUMER : 0));
+				inputs[i] = new long[energyNode.getInputs().size()];
+				
+				for(int j = 0; j < inputs[i].length; j++)
+					inputs[i][j] = energyNode.getInputs().get(j).getPosition().asLong();
+			}
+		}
+		
+		/**
+		 * Write this region to a temporary file and move it into place, or delete the region file if the region is now empty.
+		 */
+		public void write(File directory) throws IOException
+		{
+			Identifier identifier = new Identifier(dimension);
+			Path folder = directory.toPath().resolve(identifier.getNamespace()).resolve(identifier.getPath());
+			Path file = folder.resolve("r." + regionX + "." + regionZ + ".dat");
+			
+			if(positions.length == 0)
+			{
+				Files.deleteIfExists(file);
+				return;
+			}
+			
+			Files.createDirectories(folder);
+			Path temporaryFile = folder.resolve("r." + regionX + "." + regionZ + ".tmp");
+			
+			try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile.toFile()))))
+			{
+				output.writeInt(FORMAT_VERSION);
+				output.writeUTF(dimension);
+				output.writeInt(positions.length);
+				
+				for(int i = 0; i < positions.length; i++)
+				{
+					output.writeLong(positions[i]);
+					output.writeByte(flags[i]);
+					output.writeInt(inputs[i].length);
+					
+					for(long inputPosition : inputs[i])
+						output.writeLong(inputPosition);
+				}
+			}
+			
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+}
\ No newline at end of file
@@ -10,11 +10,11 @@ import org.joml.Vector3f;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.fabricmc.fabric.api.dimension.v1.FabricDimensions;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.fabricmc.fabric.api.networking.v1.PacketSender;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
-import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.SlabBlock;
@@ -48,10 +48,11 @@ import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.TeleportTarget;
 import net.minecraft.world.World;
 import space.StarflightMod;
-import space.block.StarflightBlocks;
 import space.inventory.ImplementedInventory;
 import space.mixin.common.EntityMixin;
+import space.util.BlockTransaction;
 import space.vessel.MovingCraftBlockData;
+import space.vessel.MovingCraftRenderPacket;
 
 public class MovingCraftEntity extends Entity
 {
@@ -66,6 +67,8 @@ public class MovingCraftEntity extends Entity
 	private static final TrackedData<Float> TRACKED_VZ = DataTracker.registerData(MovingCraftEntity.class, TrackedDataHandlerRegistry.FLOAT);
 	protected ArrayList<MovingCraftBlockData> blockDataList = new ArrayList<MovingCraftBlockData>();
 	protected ArrayList<ServerPlayerEntity> playersInRange = new ArrayList<ServerPlayerEntity>();
+	protected HashMap<UUID, Integer> renderDataProgress = new HashMap<UUID, Integer>(); // The number of render data bytes already sent to each player still receiving it.
+	private byte[] renderData;
 	protected HashMap<UUID, BlockPos> entityOffsets = new HashMap<UUID, BlockPos>();
 	protected BlockPos centerOfMass;
 	public Quaternionf clientQuaternion;
@@ -288,17 +291,30 @@ public class MovingCraftEntity extends Entity
 
 	public static ArrayList<MovingCraftBlockData> captureBlocks(World world, BlockPos centerPos, ArrayList<BlockPos> positionList)
 	{
-		ArrayList<MovingCraftBlockData> blockDataList = new ArrayList<MovingCraftBlockData>();
+		ArrayList<MovingCraftBlockData> blockDataList = new ArrayList<MovingCraftBlockData>(positionList.size());
+		BlockTransaction transaction = new BlockTransaction(world);
+		LongOpenHashSet nonSolidPositions = new LongOpenHashSet();
+		Box itemBox = null;
 
-		// Fill the block data array list.
+		// Fill the block data array list and remove every block in one transaction afterwards.
 		for(BlockPos pos : positionList)
 		{
-			if(world.getBlockState(pos).getBlock() instanceof Waterloggable)
-				world.setBlockState(pos, world.getBlockState(pos).with(Properties.WATERLOGGED, false));
+			BlockState blockState = world.getBlockState(pos);
 
-			blockDataList.add(MovingCraftBlockData.fromBlock(world, pos, centerPos, isBlockSolid(world, pos)));
+			if(blockState.getBlock() instanceof Waterloggable && blockState.get(Properties.WATERLOGGED))
+				world.setBlockState(pos, blockState.with(Properties.WATERLOGGED, false));
+
+			boolean solid = isBlockSolid(world, pos);
+			blockDataList.add(MovingCraftBlockData.fromBlock(world, pos, centerPos, solid));
+			transaction.setBlockState(pos, Blocks.AIR.getDefaultState());
 			BlockEntity blockEntity = world.getBlockEntity(pos);
 
+			if(!solid)
+			{
+				nonSolidPositions.add(pos.asLong());
+				itemBox = itemBox == null ? new Box(pos) : itemBox.union(new Box(pos));
+			}
+
 			if(blockEntity != null)
 			{
 				if(blockEntity instanceof ImplementedInventory)
@@ -308,37 +324,36 @@ public class MovingCraftEntity extends Entity
 			}
 		}
 
-		// Remove blocks from the world.
-		for(BlockPos pos : positionList)
-		{
-			if(world.getBlockState(pos).getBlock() == StarflightBlocks.FLUID_TANK_INSIDE)
-			{
-				world.setBlockState(pos, Blocks.AIR.getDefaultState(), Block.NOTIFY_LISTENERS);
-				continue;
-			}
+		transaction.apply();
 
-			if(world.getBlockState(pos).getBlock() == StarflightBlocks.HABITABLE_AIR)
-				world.setBlockState(pos, Blocks.AIR.getDefaultState(), Block.NOTIFY_LISTENERS);
+		// Remove items dropped next to non-solid blocks with a single query.
+		if(itemBox != null)
+		{
+			for(Entity item : world.getEntitiesByClass(ItemEntity.class, itemBox.expand(1.0), entity -> isNextTo(entity.getBlockPos(), nonSolidPositions)))
+				item.remove(RemovalReason.DISCARDED);
 		}
 
-		for(BlockPos pos : positionList)
+		return blockDataList;
+	}
+
+	/**
+	 * Return true if any position within one block of the given position is in the given set.
+	 */
+	private static boolean isNextTo(BlockPos pos, LongOpenHashSet positions)
+	{
+		for(int x = -1; x <= 1; x++)
 		{
-			if(!isBlockSolid(world, pos))
+			for(int y = -1; y <= 1; y++)
 			{
-				world.setBlockState(pos, Blocks.AIR.getDefaultState(), Block.NOTIFY_LISTENERS);
-
-				for(Entity item : world.getEntitiesByClass(ItemEntity.class, new Box(pos.add(-1, -1, -1), pos.add(1, 1, 1)), b -> true))
-					item.remove(RemovalReason.DISCARDED);
+				for(int z = -1; z <= 1; z++)
+				{
+					if(positions.contains(BlockPos.asLong(pos.getX() + x, pos.getY() + y, pos.getZ() + z)))
+						return true;
+				}
 			}
 		}
 
-		for(BlockPos pos : positionList)
-		{
-			if(isBlockSolid(world, pos))
-				world.setBlockState(pos, Blocks.AIR.getDefaultState(), Block.NOTIFY_LISTENERS);
-		}
-
-		return blockDataList;
+		return false;
 	}
 
 	private static boolean isBlockSolid(World world, BlockPos blockPos)
@@ -447,11 +462,25 @@ public class MovingCraftEntity extends Entity
 				toPlaceLast.add(blockData);
 		}
 		
+		BlockTransaction transaction = new BlockTransaction(this.getWorld());
+		ArrayList<MovingCraftBlockData> placed = new ArrayList<MovingCraftBlockData>(blockDataList.size());
+		
 		for(MovingCraftBlockData blockData : toPlaceFirst)
-			blockData.toBlock(this.getWorld(), this.getBlockPos(), rotationSteps);
+		{
+			if(blockData.toBlock(this.getWorld(), transaction, this.getBlockPos(), rotationSteps))
+				placed.add(blockData);
+		}
 		
 		for(MovingCraftBlockData blockData : toPlaceLast)
-			blockData.toBlock(this.getWorld(), this.getBlockPos(), rotationSteps);
+		{
+			if(blockData.toBlock(this.getWorld(), transaction, this.getBlockPos(), rotationSteps))
+				placed.add(blockData);
+		}
+		
+		transaction.apply();
+		
+		for(MovingCraftBlockData blockData : placed)
+			blockData.onPlaced(this.getWorld(), this.getBlockPos(), rotationSteps);
 		
 		for(MovingCraftBlockData blockData : toPlaceFirst)
 			onBlockReleased(blockData, rotation);
@@ -549,37 +578,50 @@ public class MovingCraftEntity extends Entity
 
 			if(!forceUnload && !this.playersInRange.contains(player) && inRange)
 			{
-				PacketByteBuf buffer = PacketByteBufs.create();
 				this.playersInRange.add(player);
-				buffer.writeBoolean(true);
-				buffer.writeUuid(this.getUuid());
-				buffer.writeInt(this.blockDataList.size());
-
-				for(MovingCraftBlockData data : this.blockDataList)
-				{
-					buffer.writeNbt(NbtHelper.fromBlockState(data.getBlockState()));
-					buffer.writeBlockPos(data.getPosition());
-					buffer.writeBoolean(data.redstonePower());
-
-					for(int i = 0; i < 6; i++)
-						buffer.writeBoolean(data.getSidesShowing()[i]);
-				}
-
-				ServerPlayNetworking.send(player, new Identifier(StarflightMod.MOD_ID, "moving_craft_render_data"), buffer);
+				this.renderDataProgress.put(player.getUuid(), 0);
 			}
 			else if(forceUnload && this.playersInRange.contains(player) && !inRange)
 			{
 				PacketByteBuf buffer = PacketByteBufs.create();
 				this.playersInRange.remove(player);
+				this.renderDataProgress.remove(player.getUuid());
 				buffer.writeBoolean(false);
 				buffer.writeUuid(this.getUuid());
 				ServerPlayNetworking.send(player, new Identifier(StarflightMod.MOD_ID, "moving_craft_render_data"), buffer);
 			}
 			else if(this.age < 8 && !forceUnload && inRange)
 				sendEntityOffsets(player);
+
+			if(this.renderDataProgress.containsKey(player.getUuid()))
+				sendRenderDataChunk(player, this.renderDataProgress.get(player.getUuid()));
 		}
 	}
 
+	/**
+	 * Send the next chunk of the encoded render data to a player. The data is only encoded once and shared by all players.
+	 */
+	private void sendRenderDataChunk(ServerPlayerEntity player, int offset)
+	{
+		if(this.renderData == null)
+			this.renderData = MovingCraftRenderPacket.encode(this.blockDataList);
+
+		int length = Math.min(this.renderData.length - offset, MovingCraftRenderPacket.CHUNK_SIZE);
+		PacketByteBuf buffer = PacketByteBufs.create();
+		buffer.writeBoolean(true);
+		buffer.writeUuid(this.getUuid());
+		buffer.writeInt(this.renderData.length);
+		buffer.writeInt(offset);
+		buffer.writeInt(length);
+		buffer.writeBytes(this.renderData, offset, length);
+		ServerPlayNetworking.send(player, new Identifier(StarflightMod.MOD_ID, "moving_craft_render_data"), buffer);
+
+		if(offset + length < this.renderData.length)
+			this.renderDataProgress.put(player.getUuid(), offset + length);
+		else
+			this.renderDataProgress.remove(player.getUuid());
+	}
+
 	public void sendEntityOffsets(ServerPlayerEntity player)
 	{
 		PacketByteBuf buffer = PacketByteBufs.create();
@@ -32,15 +32,12 @@ import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
-import net.minecraft.util.shape.VoxelShape;
 import net.minecraft.world.World;
 import space.StarflightMod;
 import space.block.FluidTankControllerBlock;
 import space.block.RocketThrusterBlock;
 import space.block.StarflightBlocks;
 import space.block.entity.FluidTankControllerBlockEntity;
-import space.block.entity.HydrogenTankBlockEntity;
-import space.block.entity.OxygenTankBlockEntity;
 import space.block.entity.RocketControllerBlockEntity;
 import space.client.gui.SpaceNavigationScreen;
 import space.particle.StarflightParticleTypes;
@@ -48,10 +45,11 @@ import space.planet.Planet;
 import space.planet.PlanetDimensionData;
 import space.planet.PlanetList;
 import space.util.AirUtil;
+import space.util.GroundHeightCache;
 import space.util.QuaternionUtil;
 import space.util.StarflightEffects;
 import space.util.VectorUtil;
-import space.vessel.BlockMass;
+import space.vessel.CraftScan;
 import space.vessel.MovingCraftBlockData;
 import space.vessel.MovingCraftBlockRenderData;
 import space.vessel.MovingCraftRenderList;
@@ -98,6 +96,7 @@ public class RocketEntity extends MovingCraftEntity
 	private float yawSpeed;
 	private int soundEffectTimer;
 	private boolean pausePhysics;
+	private GroundHeightCache groundHeightCache = new GroundHeightCache();
 	
 	public RocketEntity(EntityType<? extends MovingCraftEntity> entityType, World world)
 	{
@@ -112,74 +111,20 @@ public class RocketEntity extends MovingCraftEntity
 		this.arrivalDirection = forward.getHorizontal();
 		setForwardDirection(forward.getHorizontal());
 		setQuaternion(new Quaternionf());
-		Vec3d centerOfMass = Vec3d.ZERO;
-		BlockPos min = new BlockPos(blockPosList.get(0));
-		BlockPos max = new BlockPos(blockPosList.get(0));
-    	
-		for(BlockPos pos : blockPosList)
-		{
-			VoxelShape blockShape = world.getBlockState(pos).getCollisionShape(world, pos);
-			BlockPos downPos = pos;
-			
-			if(!blockShape.isEmpty())
-				downPos = new BlockPos(pos.getX(), (int) (pos.getY() - blockShape.getBoundingBox().getYLength() + 1), pos.getZ());
-			
-			if(pos.getX() < min.getX())
-				min = new BlockPos(pos.getX(), min.getY(), min.getZ());
-			else if(pos.getX() > max.getX())
-				max = new BlockPos(pos.getX(), max.getY(), max.getZ());
-			
-			if(downPos.getY() < min.getY())
-				min = new BlockPos(min.getX(), downPos.getY(), min.getZ());
-			else if(pos.getY() > max.getY())
-				max = new BlockPos(max.getX(), pos.getY(), max.getZ());
-			
-			if(pos.getZ() < min.getZ())
-				min = new BlockPos(min.getX(), min.getY(), pos.getZ());
-			else if(pos.getZ() > max.getZ())
-				max = new BlockPos(max.getX(), max.getY(), pos.getZ());
-			
-			double blockMass = BlockMass.getMass(world, pos);
-			craftMass += blockMass;
-			centerOfMass = centerOfMass.add(pos.getX() * blockMass, pos.getY() * blockMass, pos.getZ() * blockMass);
-        	BlockEntity blockEntity = world.getBlockEntity(pos);
-        	boolean redstone = world.isReceivingRedstonePower(pos);
-        	
-        	if(blockEntity != null)
-        	{
-        		if(blockEntity instanceof HydrogenTankBlockEntity)
-        		{
-        			HydrogenTankBlockEntity hydrogenTank = (HydrogenTankBlockEntity) blockEntity;
-        			Vec3d fluidTankCenter = new Vec3d(hydrogenTank.getCenterOfMass().getX() + 0.5, hydrogenTank.getCenterOfMass().getY() + 0.5, hydrogenTank.getCenterOfMass().getZ() + 0.5);
-        			
-        			if(!redstone)
-        			{
-        				hydrogenSupply += hydrogenTank.getStoredFluid();
-        				hydrogenCapacity += hydrogenTank.getStorageCapacity();
-        			}
-        			
-        			craftMass += hydrogenTank.getStoredFluid();
-        			centerOfMass = centerOfMass.add(fluidTankCenter.multiply(hydrogenTank.getStoredFluid()));
-        		}
-        		else if(blockEntity instanceof OxygenTankBlockEntity)
-        		{
-        			OxygenTankBlockEntity oxygenTank = (OxygenTankBlockEntity) blockEntity;
-        			Vec3d fluidTankCenter = new Vec3d(oxygenTank.getCenterOfMass().getX() + 0.5, oxygenTank.getCenterOfMass().getY() + 0.5, oxygenTank.getCenterOfMass().getZ() + 0.5);
-        			
-        			if(!redstone)
-        			{
-        				oxygenSupply += oxygenTank.getStoredFluid();
-        				oxygenCapacity += oxygenTank.getStorageCapacity();
-        			}
-        			
-        			craftMass += oxygenTank.getStoredFluid();
-        			centerOfMass = centerOfMass.add(fluidTankCenter.multiply(oxygenTank.getStoredFluid()));
-        		}
-        	}
-		}
+		CraftScan scan = new CraftScan(world);
 		
+		for(BlockPos pos : blockPosList)
+			scan.add(pos);
+		
+		craftMass = scan.getMass();
+		hydrogenSupply = scan.getHydrogen();
+		hydrogenCapacity = scan.getHydrogenCapacity();
+		oxygenSupply = scan.getOxygen();
+		oxygenCapacity = scan.getOxygenCapacity();
+		Vec3d centerOfMass = scan.getCenterOfMass();
+		BlockPos min = scan.getMin();
+		BlockPos max = scan.getMax();
 		craftMassInitial = craftMass;
-		centerOfMass = centerOfMass.multiply(1.0 / craftMass);
 		this.setPosition(Math.floor(centerOfMass.getX()) + 0.5, Math.floor(centerOfMass.getY()), Math.floor(centerOfMass.getZ()) + 0.5);
 		BlockPos centerBlockPos = new BlockPos((int) Math.floor(centerOfMass.getX()), (int) Math.floor(centerOfMass.getY()), (int) Math.floor(centerOfMass.getZ()));
 		this.arrivalPos = new BlockPos(centerBlockPos.getX(), -9999, centerBlockPos.getZ());
@@ -375,14 +320,9 @@ public class RocketEntity extends MovingCraftEntity
 		// Update thruster state tracked data.
 		setThrustUnderexpanded(AirUtil.getAirResistanceMultiplier(getWorld(), PlanetList.getDimensionDataForWorld(getWorld()), getBlockPos()) > 0.25);
 		setThrottle((float) throttle);
-		int yCheck = getWorld().getTopY();
 		
 		// Monitor the current altitude.
-		while(!getWorld().getBlockState(new BlockPos((int) getX(), yCheck, (int) getZ())).blocksMovement() && yCheck > getWorld().getBottomY())
-			yCheck--;
-		
-		if(gravity == 0.0)
-			yCheck = arrivalPos.getY();
+		int yCheck = gravity == 0.0 ? arrivalPos.getY() : getFootprintGround(MathHelper.floor(getX()), MathHelper.floor(getZ()));
 		
 		setUserInput(autoState == 0);
 		setAltitude((float) (getY() - lowerHeight - yCheck));
@@ -494,27 +434,33 @@ public class RocketEntity extends MovingCraftEntity
 		oxygenSupply -= oxygenFlow;
 	}
 	
+	/**
+	 * Get the highest ground under the footprint of this rocket centered on the given column.
+	 */
+	private int getFootprintGround(int centerX, int centerZ)
+	{
+		return groundHeightCache.getGround(getWorld(), centerX, centerZ, (int) Math.ceil(maxWidth));
+	}
+	
 	private void flightControl()
 	{
 		// Set the target landing altitude if necessary.
 		if(arrivalPos.getY() == -9999)
 		{
-			boolean noBlocks = true;
+			// Land above the highest solid block under the whole footprint of the rocket.
+			int radius = (int) Math.ceil(maxWidth);
+			int solidGround = Integer.MIN_VALUE;
 
-			for(int i = getWorld().getTopY(); i > getWorld().getBottomY() + 1; i--)
+			for(int x = -radius; x <= radius; x++)
 			{
-				BlockPos pos = new BlockPos(arrivalPos.getX(), i - 1, arrivalPos.getZ());
-
-				if(getWorld().getBlockState(pos).isSolidBlock(getWorld(), pos))
-				{
-					arrivalPos = new BlockPos(arrivalPos.getX(), i, arrivalPos.getZ());
-					noBlocks = false;
-					break;
-				}
+				for(int z = -radius; z <= radius; z++)
+					solidGround = Math.max(solidGround, GroundHeightCache.findSolidGround(getWorld(), arrivalPos.getX() + x, arrivalPos.getZ() + z));
 			}
 
-			if(noBlocks)
+			if(solidGround == Integer.MIN_VALUE)
 				arrivalPos = new BlockPos(arrivalPos.getX(), PARKING_HEIGHT_ORBIT, arrivalPos.getZ());
+			else
+				arrivalPos = new BlockPos(arrivalPos.getX(), solidGround + 1, arrivalPos.getZ());
 		}
 		
 		if(autoState == 1)
@@ -7,6 +7,7 @@ import java.nio.file.Paths;
 
 import net.darkhax.ess.DataCompound;
 import net.darkhax.ess.ESSHelper;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
@@ -15,9 +16,13 @@ import net.minecraft.resource.ResourceType;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.WorldSavePath;
 import space.energy.EnergyNet;
+import space.energy.EnergyStorage;
 import space.planet.PlanetList;
 import space.planet.PlanetResourceListener;
+import space.util.BlockChangeTracker;
+import space.util.SealedVolumeRegistry;
 import space.util.MobSpawningUtil;
+import space.vessel.BlockMass;
 
 public class StarflightEvents
 {
@@ -31,23 +36,51 @@ public class StarflightEvents
 	    	
 	    	
 	    	saveTimer = 0;
-	    	File energyFile = new File(server.getSavePath(WorldSavePath.ROOT).toString() + "/space/energy.dat");
-	    	DataCompound energyData = null;
+	    	String directory = server.getSavePath(WorldSavePath.ROOT).toString() + "/space/";
+	    	EnergyNet.clear();
+	    	SealedVolumeRegistry.load(new File(directory + "air"));
 	    	
-	    	if(energyFile.exists())
-	    		energyData = ESSHelper.readCompound(energyFile);
-	    	
-	    	EnergyNet.loadData(energyData);
+	    	// Fall back to the legacy energy.dat file for worlds saved before energy region files were used.
+	    	if(!EnergyStorage.load(new File(directory + "energy")))
+	    	{
+	    		File energyFile = new File(directory + "energy.dat");
+	    		DataCompound energyData = null;
+	    		
+	    		if(energyFile.exists())
+	    			energyData = ESSHelper.readCompound(energyFile);
+	    		
+	    		EnergyNet.loadLegacyData(energyData);
+	    	}
 	    });
 		
 		// Server Stopping Event
 		ServerLifecycleEvents.SERVER_STOPPING.register((server) ->
 	    {
 	    	// Save planet and vessel data when the server is stopping.
-	    	saveData(server);
+	    	saveData(server, true);
 	    	PlanetList.clear();
+	    	EnergyNet.clearLoadedChunks();
+	    	BlockChangeTracker.clear();
+	    	BlockMass.clearCache();
 	    });
 		
+		// Data Pack Reload Event
+		ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) ->
+		{
+			BlockMass.clearCache();
+		});
+		
+		// Chunk Load and Unload Events
+		ServerChunkEvents.CHUNK_LOAD.register((world, chunk) ->
+		{
+			EnergyNet.chunkLoaded(world, chunk);
+		});
+		
+		ServerChunkEvents.CHUNK_UNLOAD.register((world, chunk) ->
+		{
+			EnergyNet.chunkUnloaded(world, chunk);
+		});
+		
 		// Server Tick Event
 		ServerTickEvents.END_SERVER_TICK.register((server) ->
 	    {
@@ -61,7 +94,7 @@ public class StarflightEvents
 			if(saveTimer >= 6000)
 			{
 				saveTimer = 0;
-				saveData(server);
+				saveData(server, false);
 			}
 	    });
 		
@@ -75,19 +108,21 @@ public class StarflightEvents
 		ResourceManagerHelper.get(ResourceType.SERVER_DATA).registerReloadListener(new PlanetResourceListener());
 	}
 	
-	private static void saveData(MinecraftServer server)
+	/**
+	 * Save planet data, any changed energy regions and sealed volumes. Energy regions and sealed volumes are written in a separate thread unless the server is stopping.
+	 */
+	private static void saveData(MinecraftServer server, boolean stopping)
 	{
 		String directory = server.getSavePath(WorldSavePath.ROOT).toString() + "/space/";
     	File planetsFile = new File(directory + "planets.dat");
-    	File energyFile = new File(directory + "energy.dat");
     	
     	try
 		{
 			Files.createDirectories(Paths.get(directory));
 			DataCompound planetData = PlanetList.saveDynamicData();
 			ESSHelper.writeCompound(planetData, planetsFile);
-			DataCompound energyData = EnergyNet.saveData();
-			ESSHelper.writeCompound(energyData, energyFile);
+			EnergyStorage.save(new File(directory + "energy"), stopping);
+			SealedVolumeRegistry.save(new File(directory + "air"), stopping);
 		}
 		catch(IOException e)
 		{
@@ -0,0 +1,331 @@
+package space.fluid;
+
+import java.util.ArrayList;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import space.block.FluidPipeBlock;
+import space.block.StarflightBlocks;
+import space.block.VentBlock;
+import space.block.entity.FluidContainerBlockEntity;
+import space.block.entity.FluidTankControllerBlockEntity;
+import space.block.entity.FluidTankInterfaceBlockEntity;
+import space.block.entity.HydrogenInletValveBlockEntity;
+import space.block.entity.HydrogenOutletValveBlockEntity;
+import space.block.entity.OxygenInletValveBlockEntity;
+import space.block.entity.OxygenOutletValveBlockEntity;
+
+/**
+ * A connected group of pipes carrying the same fluid, simulated as a single container.
+ * The pipes share one fill level, so the fluid in each pipe is only calculated when it is read, such as when the pipe is saved or inspected.
+ * Networks are built from the loaded pipes when one of their pipes first ticks and are discarded whenever a pipe or an attached block changes.
+ * Inlet valves are kept in breadth first order from the pipe the network was built from, which is the order fluid added to a full network fills their tanks.
+ */
+public class FluidPipeNetwork
+{
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int SAVE_INTERVAL = 100; // Ticks between marking the chunks of a changed network for saving.
+	private final String fluidName;
+	private final ArrayList<FluidContainerBlockEntity> pipes = new ArrayList<FluidContainerBlockEntity>();
+	private final LongOpenHashSet positions = new LongOpenHashSet();
+	private final LongOpenHashSet inlets = new LongOpenHashSet();
+	private final ArrayList<FluidTankInterfaceBlockEntity> inletBlockEntities = new ArrayList<FluidTankInterfaceBlockEntity>();
+	private final LongOpenHashSet outlets = new LongOpenHashSet();
+	private final ArrayList<FluidTankInterfaceBlockEntity> outletBlockEntities = new ArrayList<FluidTankInterfaceBlockEntity>();
+	private final LongOpenHashSet vents = new LongOpenHashSet();
+	private final LongOpenHashSet chunks = new LongOpenHashSet();
+	private double storedFluid;
+	private double capacity;
+	private long lastTick = Long.MIN_VALUE;
+	private long lastSave;
+	private boolean changed;
+	private boolean valid = true;
+	
+	private FluidPipeNetwork(String fluidName_)
+	{
+		fluidName = fluidName_;
+	}
+	
+	/**
+	 * Called by the ticker of every pipe. The network of the pipe is built if it does not have one and is simulated by the first of its pipes to tick each tick.
+	 */
+	public static void tick(World world, FluidContainerBlockEntity blockEntity)
+	{
+		FluidPipeNetwork network = get(world, blockEntity);
+		
+		if(network.lastTick == world.getTime())
+			return;
+		
+		network.lastTick = world.getTime();
+		network.simulate(world);
+	}
+	
+	/**
+	 * Add fluid to the pipe or inlet valve at the given position. A pipe fills its whole network first and then the tanks of the network's inlet valves.
+	 * Return the amount of fluid that did not fit.
+	 */
+	public static double inject(World world, BlockPos pos, String fluidName, double amount)
+	{
+		BlockEntity blockEntity = world.getBlockEntity(pos);
+		
+		if(blockEntity instanceof FluidContainerBlockEntity && ((FluidContainerBlockEntity) blockEntity).getFluidName().contains(fluidName))
+		{
+			return get(world, (FluidContainerBlockEntity) blockEntity).fill(amount);
+		}
+		else if(isInlet(blockEntity, fluidName))
+			return fillTank((FluidTankInterfaceBlockEntity) blockEntity, fluidName, amount);
+		
+		return amount;
+	}
+	
+	/**
+	 * Get the network of the given pipe, building it first if the pipe does not have one.
+	 */
+	public static FluidPipeNetwork get(World world, FluidContainerBlockEntity pipe)
+	{
+		FluidPipeNetwork network = pipe.getNetwork();
+		
+		if(network == null)
+			network = build(world, pipe);
+		
+		return network;
+	}
+	
+	/**
+	 * Find every loaded pipe connected to the given pipe and combine their stored fluid into a new network. Pipes that already belong to a network are taken from it.
+	 */
+	private static FluidPipeNetwork build(World world, FluidContainerBlockEntity start)
+	{
+		FluidPipeNetwork network = new FluidPipeNetwork(start.getFluidName());
+		LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+		BlockPos.Mutable mutable = new BlockPos.Mutable();
+		queue.enqueue(start.getPos().asLong());
+		
+		while(!queue.isEmpty())
+		{
+			long position = queue.dequeueLong();
+			
+			if(!network.positions.add(position))
+				continue;
+			
+			BlockEntity blockEntity = world.getBlockEntity(mutable.set(position));
+			
+			if(!(blockEntity instanceof FluidContainerBlockEntity))
+			{
+				network.positions.remove(position);
+				continue;
+			}
+			
+			FluidContainerBlockEntity pipe = (FluidContainerBlockEntity) blockEntity;
+			
+			if(pipe.getNetwork() != null)
+				pipe.getNetwork().invalidate();
+			
+			network.storedFluid += pipe.getStoredFluid();
+			network.capacity += pipe.getStorageCapacity();
+			network.pipes.add(pipe);
+			network.chunks.add(ChunkPos.toLong(mutable.getX() >> 4, mutable.getZ() >> 4));
+			pipe.setNetwork(network);
+			
+			for(Direction direction : DIRECTIONS)
+			{
+				long offset = BlockPos.offset(position, direction);
+				mutable.set(offset);
+				
+				// Unloaded pipes join the network when their chunk is loaded and they first tick.
+				if(network.positions.contains(offset) || !world.isChunkLoaded(mutable))
+					continue;
+				
+				BlockState adjacentState = world.getBlockState(mutable);
+				
+				if(adjacentState.getBlock() instanceof FluidPipeBlock && ((FluidPipeBlock) adjacentState.getBlock()).getFluidName().equals(network.fluidName))
+					queue.enqueue(offset);
+				else if(adjacentState.getBlock() == StarflightBlocks.VENT)
+					network.vents.add(offset);
+				else if(isInlet(world.getBlockEntity(mutable), network.fluidName) && network.inlets.add(offset))
+					network.inletBlockEntities.add((FluidTankInterfaceBlockEntity) world.getBlockEntity(mutable));
+				else if(isOutlet(world.getBlockEntity(mutable), network.fluidName) && network.outlets.add(offset))
+					network.outletBlockEntities.add((FluidTankInterfaceBlockEntity) world.getBlockEntity(mutable));
+			}
+		}
+		
+		network.storedFluid = Math.min(network.storedFluid, network.capacity);
+		network.lastSave = world.getTime();
+		return network;
+	}
+	
+	public static boolean isInlet(BlockEntity blockEntity, String fluidName)
+	{
+		return (blockEntity instanceof OxygenInletValveBlockEntity || blockEntity instanceof HydrogenInletValveBlockEntity) && ((FluidTankInterfaceBlockEntity) blockEntity).getFluidName().equals(fluidName);
+	}
+	
+	public static boolean isOutlet(BlockEntity blockEntity, String fluidName)
+	{
+		return (blockEntity instanceof OxygenOutletValveBlockEntity || blockEntity instanceof HydrogenOutletValveBlockEntity) && ((FluidTankInterfaceBlockEntity) blockEntity).getFluidName().equals(fluidName);
+	}
+	
+	/**
+	 * Add fluid to the tank behind an inlet valve and return the amount that did not fit.
+	 */
+	private static double fillTank(FluidTankInterfaceBlockEntity inlet, String fluidName, double amount)
+	{
+		if(inlet.isRemoved())
+			return amount;
+		
+		FluidTankControllerBlockEntity fluidTankBlockEntity = inlet.getFluidTankController();
+		
+		if(fluidTankBlockEntity == null || !fluidTankBlockEntity.getFluidName().contains(fluidName))
+			return amount;
+		
+		double deltaFluid = Math.max(Math.min(amount, fluidTankBlockEntity.getStorageCapacity() - fluidTankBlockEntity.getStoredFluid()), 0.0);
+		
+		if(deltaFluid > 0.0)
+		{
+			fluidTankBlockEntity.changeStoredFluid(deltaFluid);
+			fluidTankBlockEntity.markDirty();
+		}
+		
+		return amount - deltaFluid;
+	}
+	
+	/**
+	 * Fill the pipes of this network and then the tanks of its inlet valves in order. Return the amount of fluid that did not fit.
+	 */
+	private double fill(double amount)
+	{
+		double deltaFluid = Math.max(Math.min(amount, capacity - storedFluid), 0.0);
+		changeStoredFluid(deltaFluid);
+		amount -= deltaFluid;
+		
+		for(int i = 0; i < inletBlockEntities.size() && amount > 0.0; i++)
+			amount = fillTank(inletBlockEntities.get(i), fluidName, amount);
+		
+		return amount;
+	}
+	
+	/**
+	 * Move fluid into attached inlet valves and out of powered vents, and periodically flag the chunks of the network for saving if its stored fluid changed.
+	 */
+	private void simulate(World world)
+	{
+		BlockPos.Mutable mutable = new BlockPos.Mutable();
+		
+		if(storedFluid > 0.0)
+		{
+			for(int i = 0; i < inletBlockEntities.size() && storedFluid > 0.0; i++)
+			{
+				double remaining = fillTank(inletBlockEntities.get(i), fluidName, storedFluid);
+				changeStoredFluid(remaining - storedFluid);
+			}
+			
+			// Each powered vent empties the pipe next to it every tick.
+			LongIterator iterator = vents.iterator();
+			
+			while(iterator.hasNext())
+			{
+				mutable.set(iterator.nextLong());
+				double pipeFluid = storedFluid / pipes.size();
+				
+				if(pipeFluid > 0.05 && world.getBlockState(mutable).getBlock() == StarflightBlocks.VENT && world.isReceivingRedstonePower(mutable))
+				{
+					changeStoredFluid(-pipeFluid);
+					VentBlock.particleEffect(world, mutable.toImmutable());
+				}
+			}
+		}
+		
+		if(changed && world.getTime() - lastSave >= SAVE_INTERVAL)
+		{
+			LongIterator iterator = chunks.iterator();
+			
+			while(iterator.hasNext())
+			{
+				long chunk = iterator.nextLong();
+				world.getChunk(ChunkPos.getPackedX(chunk), ChunkPos.getPackedZ(chunk)).setNeedsSaving(true);
+			}
+			
+			changed = false;
+			lastSave = world.getTime();
+		}
+	}
+	
+	/**
+	 * Write the fill level of the network into each of its pipes and detach them. The next pipe to tick builds a new network.
+	 */
+	public void invalidate()
+	{
+		if(!valid)
+			return;
+		
+		valid = false;
+		
+		for(FluidContainerBlockEntity pipe : pipes)
+		{
+			if(pipe.getNetwork() != this)
+				continue;
+			
+			pipe.setNetwork(null);
+			
+			// Pipes only need to be saved again if the network changed since its chunks were last flagged.
+			if(changed)
+				pipe.markDirty();
+		}
+	}
+	
+	public String getFluidName()
+	{
+		return fluidName;
+	}
+	
+	/**
+	 * Get the outlet valves next to this network in breadth first order. Valves that have been removed since the network was built are included.
+	 */
+	public ArrayList<FluidTankInterfaceBlockEntity> getOutletBlockEntities()
+	{
+		return outletBlockEntities;
+	}
+	
+	public int getSize()
+	{
+		return pipes.size();
+	}
+	
+	public double getStoredFluid()
+	{
+		return storedFluid;
+	}
+	
+	public double getStorageCapacity()
+	{
+		return capacity;
+	}
+	
+	/**
+	 * Get the fraction of the network's capacity that is filled.
+	 */
+	public double getFillLevel()
+	{
+		return capacity > 0.0 ? storedFluid / capacity : 0.0;
+	}
+	
+	public void changeStoredFluid(double d)
+	{
+		double previous = storedFluid;
+		storedFluid += d;
+		
+		if(storedFluid < 0.0)
+			storedFluid = 0.0;
+		else if(storedFluid > capacity)
+			storedFluid = capacity;
+		
+		if(storedFluid != previous)
+			changed = true;
+	}
+}
\ No newline at end of file
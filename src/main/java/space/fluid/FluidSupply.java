@@ -0,0 +1,140 @@
+package space.fluid;
+
+import java.util.ArrayList;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.Block;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import space.block.entity.FluidContainerBlockEntity;
+import space.block.entity.FluidTankControllerBlockEntity;
+import space.block.entity.FluidTankInterfaceBlockEntity;
+import space.util.BlockSearch;
+
+/**
+ * The fluid available to a block from the pipe networks and outlet valves next to it.
+ * Pipe networks keep their outlet valves, so finding the supply only reads the six neighbors of the block and the tanks behind each outlet valve.
+ * Touching blocks of the same type, such as a row of atmosphere generators, are chained and share one supply.
+ * Fluid is drawn from the pipes first and then from the tanks in order.
+ */
+public class FluidSupply
+{
+	private final ArrayList<FluidPipeNetwork> networks = new ArrayList<FluidPipeNetwork>();
+	private final ArrayList<FluidTankControllerBlockEntity> tanks = new ArrayList<FluidTankControllerBlockEntity>();
+	private double storedFluid;
+	
+	/**
+	 * Find the pipe networks and tanks that hold the given fluid and are connected to the block at the given position or to the blocks of the same type chained to it.
+	 */
+	public static FluidSupply find(World world, BlockPos pos, String fluidName)
+	{
+		FluidSupply supply = new FluidSupply();
+		Block block = world.getBlockState(pos).getBlock();
+		LongOpenHashSet checked = new LongOpenHashSet();
+		LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+		BlockPos.Mutable position = new BlockPos.Mutable();
+		BlockPos.Mutable adjacentPosition = new BlockPos.Mutable();
+		checked.add(pos.asLong());
+		queue.enqueue(pos.asLong());
+		
+		while(!queue.isEmpty())
+		{
+			position.set(queue.dequeueLong());
+			
+			for(Direction direction : Direction.values())
+			{
+				adjacentPosition.set(position, direction);
+				
+				if(world.getBlockState(adjacentPosition).getBlock() == block)
+				{
+					if(checked.size() < BlockSearch.MAX_VOLUME && checked.add(adjacentPosition.asLong()))
+						queue.enqueue(adjacentPosition.asLong());
+				}
+				else
+					supply.addNeighbor(world, adjacentPosition, fluidName);
+			}
+		}
+		
+		return supply;
+	}
+	
+	/**
+	 * Add the pipe network or the tank behind an outlet valve at the given position.
+	 */
+	private void addNeighbor(World world, BlockPos pos, String fluidName)
+	{
+		BlockEntity blockEntity = world.getBlockEntity(pos);
+		
+		if(blockEntity instanceof FluidContainerBlockEntity && ((FluidContainerBlockEntity) blockEntity).getFluidName().equals(fluidName))
+		{
+			FluidPipeNetwork network = FluidPipeNetwork.get(world, (FluidContainerBlockEntity) blockEntity);
+			
+			if(networks.contains(network))
+				return;
+			
+			networks.add(network);
+			storedFluid += network.getStoredFluid();
+			
+			for(FluidTankInterfaceBlockEntity outlet : network.getOutletBlockEntities())
+				addOutlet(outlet);
+		}
+		else if(FluidPipeNetwork.isOutlet(blockEntity, fluidName))
+			addOutlet((FluidTankInterfaceBlockEntity) blockEntity);
+	}
+	
+	/**
+	 * Add the tank behind an outlet valve. Several outlet valves on one tank only count it once.
+	 */
+	private void addOutlet(FluidTankInterfaceBlockEntity outlet)
+	{
+		if(outlet.isRemoved())
+			return;
+		
+		FluidTankControllerBlockEntity fluidTankBlockEntity = outlet.getFluidTankController();
+		
+		if(fluidTankBlockEntity == null || tanks.contains(fluidTankBlockEntity))
+			return;
+		
+		tanks.add(fluidTankBlockEntity);
+		storedFluid += fluidTankBlockEntity.getStoredFluid();
+	}
+	
+	public double getStoredFluid()
+	{
+		return storedFluid;
+	}
+	
+	/**
+	 * Draw the given amount of fluid from the pipes and then the tanks of this supply.
+	 */
+	public void use(double toUse)
+	{
+		double remaining = toUse;
+		
+		for(FluidPipeNetwork network : networks)
+		{
+			if(remaining <= 0.0)
+				break;
+			
+			double deltaFluid = Math.min(remaining, network.getStoredFluid());
+			network.changeStoredFluid(-deltaFluid);
+			remaining -= deltaFluid;
+		}
+		
+		for(FluidTankControllerBlockEntity fluidTankBlockEntity : tanks)
+		{
+			if(remaining <= 0.0)
+				break;
+			
+			double deltaFluid = Math.min(remaining, fluidTankBlockEntity.getStoredFluid());
+			fluidTankBlockEntity.changeStoredFluid(-deltaFluid);
+			fluidTankBlockEntity.markDirty();
+			remaining -= deltaFluid;
+		}
+		
+		storedFluid = Math.max(storedFluid - (toUse - remaining), 0.0);
+	}
+}
\ No newline at end of file
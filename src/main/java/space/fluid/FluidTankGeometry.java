@@ -0,0 +1,141 @@
+package space.fluid;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.BlockRotation;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * The interior and shell of an active fluid tank stored relative to its controller, so the tank can be checked again without searching the world.
+ * Positions are stored as runs of blocks along the x axis. Rotating the tank with a moving craft only changes the rotation applied when the positions are read.
+ */
+public class FluidTankGeometry
+{
+	private static final int MAX_RUNS = 16384; // Tanks with more runs than this are not cached and are searched every time.
+	private final int[] interior;
+	private final int[] shell;
+	private final int interiorCount;
+	private BlockRotation rotation;
+	
+	private FluidTankGeometry(int[] interior_, int[] shell_, int interiorCount_, BlockRotation rotation_)
+	{
+		interior = interior_;
+		shell = shell_;
+		interiorCount = interiorCount_;
+		rotation = rotation_;
+	}
+	
+	/**
+	 * Create the geometry of a tank from the interior and shell positions found by a search. Return null if the tank is too irregular to cache.
+	 */
+	public static FluidTankGeometry create(BlockPos controllerPos, ArrayList<BlockPos> interiorList, ArrayList<BlockPos> shellList)
+	{
+		int[] interior = toRuns(controllerPos, interiorList);
+		int[] shell = toRuns(controllerPos, shellList);
+		
+		if(interior == null || shell == null)
+			return null;
+		
+		return new FluidTankGeometry(interior, shell, interiorList.size(), BlockRotation.NONE);
+	}
+	
+	/**
+	 * Get the number of blocks inside the tank, including any that are not air.
+	 */
+	public int getInteriorCount()
+	{
+		return interiorCount;
+	}
+	
+	/**
+	 * Rotate the tank about its controller.
+	 */
+	public void rotate(BlockRotation blockRotation)
+	{
+		rotation = rotation.rotate(blockRotation);
+	}
+	
+	/**
+	 * Add the world positions of the blocks inside the tank to the given list.
+	 */
+	public void getInterior(BlockPos controllerPos, ArrayList<BlockPos> positionList)
+	{
+		addPositions(interior, controllerPos, positionList);
+	}
+	
+	/**
+	 * Add the world positions of the tank blocks enclosing the interior to the given list.
+	 */
+	public void getShell(BlockPos controllerPos, ArrayList<BlockPos> positionList)
+	{
+		addPositions(shell, controllerPos, positionList);
+	}
+	
+	private void addPositions(int[] runs, BlockPos controllerPos, ArrayList<BlockPos> positionList)
+	{
+		for(int i = 0; i < runs.length; i += 4)
+		{
+			for(int j = 0; j < runs[i + 3]; j++)
+				positionList.add(controllerPos.add(new BlockPos(runs[i] + j, runs[i + 1], runs[i + 2]).rotate(rotation)));
+		}
+	}
+	
+	/**
+	 * Convert positions to runs of x, y, z and length relative to the controller. Return null if there are too many runs.
+	 */
+	private static int[] toRuns(BlockPos controllerPos, ArrayList<BlockPos> positionList)
+	{
+		ArrayList<BlockPos> offsetList = new ArrayList<BlockPos>(positionList.size());
+		
+		for(BlockPos pos : positionList)
+			offsetList.add(pos.subtract(controllerPos));
+		
+		offsetList.sort(Comparator.comparingInt(BlockPos::getY).thenComparingInt(BlockPos::getZ).thenComparingInt(BlockPos::getX));
+		IntArrayList runs = new IntArrayList();
+		
+		for(BlockPos offset : offsetList)
+		{
+			int last = runs.size() - 4;
+			
+			if(last >= 0 && runs.getInt(last + 1) == offset.getY() && runs.getInt(last + 2) == offset.getZ() && runs.getInt(last) + runs.getInt(last + 3) == offset.getX())
+				runs.set(last + 3, runs.getInt(last + 3) + 1);
+			else
+			{
+				if(runs.size() >= MAX_RUNS * 4)
+					return null;
+				
+				runs.add(offset.getX());
+				runs.add(offset.getY());
+				runs.add(offset.getZ());
+				runs.add(1);
+			}
+		}
+		
+		return runs.toIntArray();
+	}
+	
+	public NbtCompound writeNbt()
+	{
+		NbtCompound nbt = new NbtCompound();
+		nbt.putIntArray("interior", interior);
+		nbt.putIntArray("shell", shell);
+		nbt.putInt("interiorCount", interiorCount);
+		nbt.putInt("rotation", rotation.ordinal());
+		return nbt;
+	}
+	
+	public static FluidTankGeometry readNbt(NbtCompound nbt)
+	{
+		int[] interior = nbt.getIntArray("interior");
+		int[] shell = nbt.getIntArray("shell");
+		
+		if(interior.length % 4 != 0 || shell.length % 4 != 0)
+			return null;
+		
+		BlockRotation[] rotations = BlockRotation.values();
+		return new FluidTankGeometry(interior, shell, nbt.getInt("interiorCount"), rotations[Math.floorMod(nbt.getInt("rotation"), rotations.length)]);
+	}
+}
\ No newline at end of file
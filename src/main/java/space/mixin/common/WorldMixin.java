@@ -7,13 +7,16 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
+import net.minecraft.block.BlockState;
 import net.minecraft.registry.RegistryKey;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.MutableWorldProperties;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldAccess;
 import space.planet.Planet;
 import space.planet.PlanetDimensionData;
 import space.planet.PlanetList;
+import space.util.BlockChangeTracker;
 import space.util.IWorldMixin;
 
 @Mixin(World.class)
@@ -30,27 +33,20 @@ public abstract class WorldMixin implements WorldAccess, AutoCloseable, IWorldMi
 		if(isClient())
 			return PlanetList.viewpointDimensionData;
 		
+		// Worlds loaded after the planet list only need to look up their data once.
 		if(planetCheck)
 		{
-			for(Planet planet : PlanetList.getPlanets())
-			{
-				if(planet.getOrbit() != null && planet.getOrbit().getWorldKey() == registryKey)
-					planetData = planet.getOrbit();
-				else if(planet.getSurface() != null && planet.getSurface().getWorldKey() == registryKey)
-					planetData = planet.getSurface();
-				else if(planet.getSky() != null && planet.getSky().getWorldKey() == registryKey)
-					planetData = planet.getSky();
-			}
-			
+			planetData = PlanetList.getDimensionData(registryKey);
 			planetCheck = false;
 		}
 		
 		return planetData;
 	}
 	
-	public void clearPlanetDimensionData()
+	public void setPlanetDimensionData(PlanetDimensionData data)
 	{
-		planetCheck = true;
+		planetData = data;
+		planetCheck = false;
 	}
 	
 	@Override
@@ -99,6 +95,16 @@ public abstract class WorldMixin implements WorldAccess, AutoCloseable, IWorldMi
 		}
     }
 	
+	/**
+	 * Record block changes for validating block snapshots used in a separate thread and watched regions such as scanned crafts.
+	 */
+	@Inject(method = "setBlockState(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;II)Z", at = @At("RETURN"))
+	public void setBlockStateInject(BlockPos pos, BlockState state, int flags, int maxUpdateDepth, CallbackInfoReturnable<Boolean> info)
+	{
+		if(!isClient() && info.getReturnValueZ())
+			BlockChangeTracker.blockChanged((World) (Object) this, pos);
+	}
+	
 	@Inject(method = "getThunderGradient(F)F", at = @At("HEAD"), cancellable = true)
 	public void getThunderGradientInject(float delta, CallbackInfoReturnable<Float> info)
 	{
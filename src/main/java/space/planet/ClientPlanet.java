@@ -35,6 +35,11 @@ public class ClientPlanet implements Comparable<ClientPlanet>
 	public Vec3d positionPrevious;
 	public Vec3d surfaceViewpointPrevious;
 	public Vec3d parkingOrbitViewpointPrevious;
+	public Vec3d positionRate = Vec3d.ZERO;
+	public Vec3d surfaceViewpointRate = Vec3d.ZERO;
+	public Vec3d parkingOrbitViewpointRate = Vec3d.ZERO;
+	public double sunAngleRate;
+	public double sunAngleOrbitRate;
 	public double dVOrbit;
 	public double dVSurface;
 	public double dVTransfer;
@@ -132,6 +137,21 @@ public class ClientPlanet implements Comparable<ClientPlanet>
 		return new Vec3d(x, y, z);
 	}
 	
+	/**
+	 * Continue the motion of this planet by one tick at the rates of the last update from the server.
+	 */
+	public void extrapolate()
+	{
+		positionPrevious = position;
+		surfaceViewpointPrevious = surfaceViewpoint;
+		parkingOrbitViewpointPrevious = parkingOrbitViewpoint;
+		position = position.add(positionRate);
+		surfaceViewpoint = surfaceViewpoint.add(surfaceViewpointRate);
+		parkingOrbitViewpoint = parkingOrbitViewpoint.add(parkingOrbitViewpointRate);
+		sunAngle = MathHelper.floorMod(sunAngle + sunAngleRate, Math.PI * 2.0);
+		sunAngleOrbit = MathHelper.floorMod(sunAngleOrbit + sunAngleOrbitRate, Math.PI * 2.0);
+	}
+	
 	public void linkSatellites(ArrayList<ClientPlanet> planetList)
 	{
 		for(ClientPlanet p : planetList)
@@ -8,51 +8,60 @@ import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 
 @Environment(value=EnvType.CLIENT)
 public class ClientPlanetList
 {
+	private static final int STATE_SIZE = 11;
 	private static ArrayList<ClientPlanet> planetList = new ArrayList<ClientPlanet>();
 	private static ArrayList<ClientPlanet> planetListUnsorted = new ArrayList<ClientPlanet>();
 	private static ArrayList<StaticData> staticDataBuffer = new ArrayList<StaticData>();
 	private static ArrayList<DynamicData> dynamicDataBuffer = new ArrayList<DynamicData>();
-	private static PlanetDimensionData viewpointDimensionDataBuffer = null;
+	private static ViewpointData viewpointDataBuffer = null;
+	private static ViewpointData viewpointData = null;
 	private static ClientPlanet viewpoint;
 	private static boolean inOrbit;
+	private static int updateInterval = 1;
+	private static int ticksSinceUpdate = 0;
+	
+	// The last received position, viewpoints and sun angles of each planet. Only used by the network thread.
+	private static double[] receivedState = new double[0];
 	
 	/**
 	 * Receive planet data from the server.
 	 */
 	public static void receivePlanetListUpdate(Executor executor, PacketByteBuf buffer)
 	{
+		int type = buffer.readByte();
+		
+		if(type == PlanetList.VIEWPOINT_DATA)
+		{
+			ViewpointData newViewpointData = readViewpointData(buffer);
+			executor.execute(() -> viewpointDataBuffer = newViewpointData);
+			return;
+		}
+		
 		ArrayList<StaticData> staticData = new ArrayList<StaticData>();
 		ArrayList<DynamicData> dynamicData = new ArrayList<DynamicData>();
-		boolean initialize = buffer.readBoolean();
+		boolean initialize = type == PlanetList.STATIC_DATA;
+		int interval = buffer.readInt();
 		int count = buffer.readInt();
-		int viewpointIndex = buffer.readInt();
 		
-		if(viewpointIndex > -1)
-		{
-			inOrbit = buffer.readBoolean();
-			boolean inSky = buffer.readBoolean();
-			boolean overridePhysics = buffer.readBoolean();
-			boolean overrideSky = buffer.readBoolean();
-			boolean isCloudy = buffer.readBoolean();
-			boolean hasLowClouds = buffer.readBoolean();
-			boolean hasWeather = buffer.readBoolean();
-			boolean hasOxygen = buffer.readBoolean();
-			int temperatureCategory = buffer.readInt();
-			double gravity = buffer.readDouble();
-			double pressure = buffer.readDouble();
-			viewpointDimensionDataBuffer = new PlanetDimensionData(new Identifier("overworld"), inOrbit, inSky, overridePhysics, overrideSky, isCloudy, hasLowClouds, hasWeather, hasOxygen, temperatureCategory, gravity, pressure);
-		}
-		else
-			inOrbit = false;
+		if(initialize)
+			receivedState = new double[count * STATE_SIZE];
+		else if(receivedState.length != count * STATE_SIZE)
+			return; // Changes can not be applied until the full data of the same planets has been received.
 		
 		for(int i = 0; i < count; i++)
 		{
-			// Get static values from the buffer if initializing.
+			int j = i * STATE_SIZE;
+			double positionX;
+			double positionY;
+			double positionZ;
+			
+			// Get static values and full positions from the buffer if initializing. Otherwise get the change in position.
 			if(initialize)
 			{
 				String name = buffer.readString();
@@ -78,150 +87,239 @@ public class ClientPlanetList
 				boolean hasSurface = buffer.readBoolean();
 				boolean hasSky = buffer.readBoolean();
 				staticData.add(new StaticData(name, parentName, dVOrbit, dVSurface, periapsis, apoapsis, argumentOfPeriapsis, trueAnomaly, ascendingNode, inclination, obliquity, radius, surfaceGravity, surfacePressure, hasLowClouds, hasCloudCover, hasWeather, simpleTexture, drawClouds, hasOrbit, hasSurface, hasSky));
+				positionX = buffer.readDouble();
+				positionY = buffer.readDouble();
+				positionZ = buffer.readDouble();
+			}
+			else
+			{
+				positionX = receivedState[j] + buffer.readFloat();
+				positionY = receivedState[j + 1] + buffer.readFloat();
+				positionZ = receivedState[j + 2] + buffer.readFloat();
 			}
 			
 			// Get dynamic values from the buffer.
-			double positionX = buffer.readDouble();
-			double positionY = buffer.readDouble();
-			double positionZ = buffer.readDouble();
-			double surfaceViewpointX = buffer.readDouble();
-			double surfaceViewpointY = buffer.readDouble();
-			double surfaceViewpointZ = buffer.readDouble();
-			double parkingOrbitViewpointX = buffer.readDouble();
-			double parkingOrbitViewpointY = buffer.readDouble();
-			double parkingOrbitViewpointZ = buffer.readDouble();
-			double dVTransfer = buffer.readDouble();
-			double sunAngle = buffer.readDouble();
-			double sunAngleOrbit = buffer.readDouble();
-			double precession = buffer.readDouble();
-			double cloudRotation = buffer.readDouble();
-			int cloudLevel = buffer.readInt();
-			boolean unlocked = buffer.readBoolean();
+			double surfaceViewpointX = positionX + buffer.readFloat();
+			double surfaceViewpointY = positionY + buffer.readFloat();
+			double surfaceViewpointZ = positionZ + buffer.readFloat();
+			double parkingOrbitViewpointX = positionX + buffer.readFloat();
+			double parkingOrbitViewpointY = positionY + buffer.readFloat();
+			double parkingOrbitViewpointZ = positionZ + buffer.readFloat();
+			double sunAngle = buffer.readFloat();
+			double sunAngleOrbit = buffer.readFloat();
+			double cloudRotation = buffer.readFloat();
+			int cloudLevel = buffer.readByte();
+			double[] state = {positionX, positionY, positionZ, surfaceViewpointX, surfaceViewpointY, surfaceViewpointZ, parkingOrbitViewpointX, parkingOrbitViewpointY, parkingOrbitViewpointZ, sunAngle, sunAngleOrbit};
+			double[] rate = new double[STATE_SIZE];
+			
+			// Find the rate of change per tick for extrapolating until the next update.
+			if(!initialize)
+			{
+				for(int k = 0; k < STATE_SIZE; k++)
+					rate[k] = (state[k] - receivedState[j + k]) / interval;
+				
+				rate[9] = MathHelper.wrapDegrees(Math.toDegrees(state[9] - receivedState[j + 9])) * (Math.PI / 180.0) / interval;
+				rate[10] = MathHelper.wrapDegrees(Math.toDegrees(state[10] - receivedState[j + 10])) * (Math.PI / 180.0) / interval;
+			}
+			
+			System.arraycopy(state, 0, receivedState, j, STATE_SIZE);
 			Vec3d position = new Vec3d(positionX, positionY, positionZ);
 			Vec3d surfaceViewpoint = new Vec3d(surfaceViewpointX, surfaceViewpointY, surfaceViewpointZ);
 			Vec3d parkingOrbitViewpoint = new Vec3d(parkingOrbitViewpointX, parkingOrbitViewpointY, parkingOrbitViewpointZ);
-			dynamicData.add(new DynamicData(position, surfaceViewpoint, parkingOrbitViewpoint, dVTransfer, precession, sunAngle, sunAngleOrbit, cloudRotation, cloudLevel, unlocked, i == viewpointIndex));
+			Vec3d positionRate = new Vec3d(rate[0], rate[1], rate[2]);
+			Vec3d surfaceViewpointRate = new Vec3d(rate[3], rate[4], rate[5]);
+			Vec3d parkingOrbitViewpointRate = new Vec3d(rate[6], rate[7], rate[8]);
+			dynamicData.add(new DynamicData(position, surfaceViewpoint, parkingOrbitViewpoint, positionRate, surfaceViewpointRate, parkingOrbitViewpointRate, sunAngle, sunAngleOrbit, rate[9], rate[10], cloudRotation, cloudLevel));
 		}
 		
 		executor.execute(() -> {
-			if(viewpointIndex == -1)
-				viewpoint = null;
-			else
-			{
-				if(staticDataBuffer.isEmpty())
-					staticDataBuffer = staticData;
-				
-				if(dynamicDataBuffer.isEmpty())
-					dynamicDataBuffer = dynamicData;
-			}
+			if(initialize)
+				staticDataBuffer = staticData;
+			
+			dynamicDataBuffer = dynamicData;
+			updateInterval = interval;
 		});
 	}
 	
+	private static ViewpointData readViewpointData(PacketByteBuf buffer)
+	{
+		int viewpointIndex = buffer.readInt();
+		boolean isOrbit = false;
+		PlanetDimensionData dimensionData = null;
+		
+		if(viewpointIndex > -1)
+		{
+			isOrbit = buffer.readBoolean();
+			boolean inSky = buffer.readBoolean();
+			boolean overridePhysics = buffer.readBoolean();
+			boolean overrideSky = buffer.readBoolean();
+			boolean isCloudy = buffer.readBoolean();
+			boolean hasLowClouds = buffer.readBoolean();
+			boolean hasWeather = buffer.readBoolean();
+			boolean hasOxygen = buffer.readBoolean();
+			int temperatureCategory = buffer.readInt();
+			double gravity = buffer.readDouble();
+			double pressure = buffer.readDouble();
+			dimensionData = new PlanetDimensionData(new Identifier("overworld"), isOrbit, inSky, overridePhysics, overrideSky, isCloudy, hasLowClouds, hasWeather, hasOxygen, temperatureCategory, gravity, pressure);
+		}
+		
+		int count = buffer.readInt();
+		double[] dVTransfer = new double[count];
+		boolean[] unlocked = new boolean[count];
+		
+		for(int i = 0; i < count; i++)
+		{
+			dVTransfer[i] = buffer.readDouble();
+			unlocked[i] = buffer.readBoolean();
+		}
+		
+		return new ViewpointData(viewpointIndex, isOrbit, dimensionData, dVTransfer, unlocked);
+	}
+	
 	/**
 	 * Apply planet data from the server. This should be called at the same point during a client tick.
+	 * Planets keep moving at the rates of the last update for up to one send interval while waiting for the next update.
 	 */
 	public static void updatePlanets()
 	{
-		if(dynamicDataBuffer.isEmpty())
-			return;
-		
-		planetList.clear();
-		viewpoint = null;
-		
-		if(staticDataBuffer.isEmpty())
+		if(!staticDataBuffer.isEmpty() && !dynamicDataBuffer.isEmpty())
+			createPlanets();
+		else if(!dynamicDataBuffer.isEmpty() && dynamicDataBuffer.size() == planetListUnsorted.size())
+			applyDynamicData();
+		else if(ticksSinceUpdate < updateInterval)
 		{
-			if(planetListUnsorted.isEmpty())
-				return;
+			for(ClientPlanet clientPlanet : planetListUnsorted)
+				clientPlanet.extrapolate();
 			
-			for(int i = 0; i < dynamicDataBuffer.size(); i++)
-			{
-				DynamicData dynamicData = dynamicDataBuffer.get(i);
-				ClientPlanet clientPlanet = planetListUnsorted.get(i);
-				
-				clientPlanet.positionPrevious = clientPlanet.position;
-				clientPlanet.surfaceViewpointPrevious = clientPlanet.surfaceViewpoint;
-				clientPlanet.parkingOrbitViewpointPrevious = clientPlanet.parkingOrbitViewpoint;
-				clientPlanet.position = dynamicData.position();
-				clientPlanet.surfaceViewpoint = dynamicData.surfaceViewpoint();
-				clientPlanet.parkingOrbitViewpoint = dynamicData.parkingOrbitViewpoint();
-				clientPlanet.sunAngle = dynamicData.sunAngle();
-				clientPlanet.sunAngleOrbit = dynamicData.sunAngleOrbit();
-				clientPlanet.cloudRotation = dynamicData.cloudRotation();
-				clientPlanet.cloudLevel = dynamicData.cloudLevel();
-				clientPlanet.unlocked = dynamicData.unlocked();
-				
-				if(dynamicData.isViewpoint)
-					viewpoint = clientPlanet;
-			}
+			ticksSinceUpdate++;
 		}
-		else
+		
+		dynamicDataBuffer.clear();
+		
+		if(viewpointDataBuffer != null)
 		{
-			planetListUnsorted.clear();
-			
-			for(int i = 0; i < dynamicDataBuffer.size(); i++)
-			{
-				ClientPlanet clientPlanet = new ClientPlanet();
-				StaticData staticData = staticDataBuffer.get(i);
-				clientPlanet.name = staticData.name();
-				clientPlanet.parentName = staticData.parentName();
-				clientPlanet.dVOrbit = staticData.dVOrbit();
-				clientPlanet.dVSurface = staticData.dVSurface();
-				clientPlanet.periapsis = staticData.periapsis();
-				clientPlanet.apoapsis = staticData.apoapsis();
-				clientPlanet.argumentOfPeriapsis = staticData.argumentOfPeriapsis();
-				clientPlanet.trueAnomaly = staticData.trueAnomaly();
-				clientPlanet.ascendingNode = staticData.ascendingNode();
-				clientPlanet.inclination = staticData.inclination();
-				clientPlanet.obliquity = staticData.obliquity();
-				clientPlanet.radius = staticData.radius();
-				clientPlanet.surfaceGravity = staticData.surfaceGravity();
-				clientPlanet.surfacePressure = staticData.surfacePressure();
-				clientPlanet.hasLowClouds = staticData.hasLowClouds();
-				clientPlanet.hasCloudCover = staticData.hasCloudCover();
-				clientPlanet.hasWeather = staticData.hasWeather();
-				clientPlanet.simpleTexture = staticData.simpleTexture();
-				clientPlanet.drawClouds = staticData.drawClouds();
-				clientPlanet.hasOrbit = staticData.hasOrbit();
-				clientPlanet.hasSurface = staticData.hasSurface();
-				clientPlanet.hasSky = staticData.hasSky();
-				DynamicData dynamicData = dynamicDataBuffer.get(i);
-				clientPlanet.positionPrevious = dynamicData.position();
-				clientPlanet.surfaceViewpointPrevious = dynamicData.surfaceViewpoint();
-				clientPlanet.parkingOrbitViewpointPrevious = dynamicData.parkingOrbitViewpoint();
-				clientPlanet.position = dynamicData.position();
-				clientPlanet.surfaceViewpoint = dynamicData.surfaceViewpoint();
-				clientPlanet.parkingOrbitViewpoint = dynamicData.parkingOrbitViewpoint();
-				clientPlanet.dVTransfer = dynamicData.dVTransfer();
-				clientPlanet.sunAngle = dynamicData.sunAngle();
-				clientPlanet.sunAngleOrbit = dynamicData.sunAngleOrbit();
-				clientPlanet.cloudRotation = dynamicData.cloudRotation();
-				clientPlanet.cloudLevel = dynamicData.cloudLevel();
-				clientPlanet.unlocked = dynamicData.unlocked();
-				planetListUnsorted.add(clientPlanet);
-				
-				if(dynamicData.isViewpoint)
-					viewpoint = clientPlanet;
-			}
-			
-			for(ClientPlanet p : planetListUnsorted)
-				p.linkSatellites(planetListUnsorted);
+			viewpointData = viewpointDataBuffer;
+			viewpointDataBuffer = null;
+			applyViewpointData();
 		}
 		
+		if(planetListUnsorted.isEmpty())
+			return;
+		
+		viewpoint = null;
+		
+		if(viewpointData != null && viewpointData.viewpointIndex() > -1 && viewpointData.viewpointIndex() < planetListUnsorted.size())
+			viewpoint = planetListUnsorted.get(viewpointData.viewpointIndex());
+		
+		planetList.clear();
 		planetList.addAll(planetListUnsorted);
-		staticDataBuffer.clear();
-		dynamicDataBuffer.clear();
 		PlanetList.hasViewpoint = viewpoint != null;
-		PlanetList.viewpointDimensionData = viewpointDimensionDataBuffer;
 		
 		if(viewpoint != null)
 		{
 			Collections.sort(planetList);
+			inOrbit = viewpointData.isOrbit();
+			PlanetList.viewpointDimensionData = viewpointData.dimensionData();
 			PlanetList.inOrbit = inOrbit;
 			PlanetList.sunAngle = viewpoint.sunAngle;
 			PlanetList.sunAngleOrbit = viewpoint.sunAngleOrbit;
 		}
 		else
+		{
+			inOrbit = false;
 			PlanetList.viewpointDimensionData = null;
+		}
+	}
+	
+	private static void createPlanets()
+	{
+		planetListUnsorted.clear();
+		
+		for(int i = 0; i < dynamicDataBuffer.size(); i++)
+		{
+			ClientPlanet clientPlanet = new ClientPlanet();
+			StaticData staticData = staticDataBuffer.get(i);
+			clientPlanet.name = staticData.name();
+			clientPlanet.parentName = staticData.parentName();
+			clientPlanet.dVOrbit = staticData.dVOrbit();
+			clientPlanet.dVSurface = staticData.dVSurface();
+			clientPlanet.periapsis = staticData.periapsis();
+			clientPlanet.apoapsis = staticData.apoapsis();
+			clientPlanet.argumentOfPeriapsis = staticData.argumentOfPeriapsis();
+			clientPlanet.trueAnomaly = staticData.trueAnomaly();
+			clientPlanet.ascendingNode = staticData.ascendingNode();
+			clientPlanet.inclination = staticData.inclination();
+			clientPlanet.obliquity = staticData.obliquity();
+			clientPlanet.radius = staticData.radius();
+			clientPlanet.surfaceGravity = staticData.surfaceGravity();
+			clientPlanet.surfacePressure = staticData.surfacePressure();
+			clientPlanet.hasLowClouds = staticData.hasLowClouds();
+			clientPlanet.hasCloudCover = staticData.hasCloudCover();
+			clientPlanet.hasWeather = staticData.hasWeather();
+			clientPlanet.simpleTexture = staticData.simpleTexture();
+			clientPlanet.drawClouds = staticData.drawClouds();
+			clientPlanet.hasOrbit = staticData.hasOrbit();
+			clientPlanet.hasSurface = staticData.hasSurface();
+			clientPlanet.hasSky = staticData.hasSky();
+			DynamicData dynamicData = dynamicDataBuffer.get(i);
+			clientPlanet.positionPrevious = dynamicData.position();
+			clientPlanet.surfaceViewpointPrevious = dynamicData.surfaceViewpoint();
+			clientPlanet.parkingOrbitViewpointPrevious = dynamicData.parkingOrbitViewpoint();
+			setDynamicData(clientPlanet, dynamicData);
+			planetListUnsorted.add(clientPlanet);
+		}
+		
+		for(ClientPlanet p : planetListUnsorted)
+			p.linkSatellites(planetListUnsorted);
+		
+		staticDataBuffer.clear();
+		ticksSinceUpdate = 0;
+		applyViewpointData();
+	}
+	
+	private static void applyDynamicData()
+	{
+		for(int i = 0; i < dynamicDataBuffer.size(); i++)
+		{
+			ClientPlanet clientPlanet = planetListUnsorted.get(i);
+			clientPlanet.positionPrevious = clientPlanet.position;
+			clientPlanet.surfaceViewpointPrevious = clientPlanet.surfaceViewpoint;
+			clientPlanet.parkingOrbitViewpointPrevious = clientPlanet.parkingOrbitViewpoint;
+			setDynamicData(clientPlanet, dynamicDataBuffer.get(i));
+		}
+		
+		ticksSinceUpdate = 0;
+	}
+	
+	private static void setDynamicData(ClientPlanet clientPlanet, DynamicData dynamicData)
+	{
+		clientPlanet.position = dynamicData.position();
+		clientPlanet.surfaceViewpoint = dynamicData.surfaceViewpoint();
+		clientPlanet.parkingOrbitViewpoint = dynamicData.parkingOrbitViewpoint();
+		clientPlanet.positionRate = dynamicData.positionRate();
+		clientPlanet.surfaceViewpointRate = dynamicData.surfaceViewpointRate();
+		clientPlanet.parkingOrbitViewpointRate = dynamicData.parkingOrbitViewpointRate();
+		clientPlanet.sunAngle = dynamicData.sunAngle();
+		clientPlanet.sunAngleOrbit = dynamicData.sunAngleOrbit();
+		clientPlanet.sunAngleRate = dynamicData.sunAngleRate();
+		clientPlanet.sunAngleOrbitRate = dynamicData.sunAngleOrbitRate();
+		clientPlanet.cloudRotation = dynamicData.cloudRotation();
+		clientPlanet.cloudLevel = dynamicData.cloudLevel();
+	}
+	
+	/**
+	 * Set the transfer delta-v of each planet from the viewpoint of the player.
+	 */
+	private static void applyViewpointData()
+	{
+		if(viewpointData == null)
+			return;
+		
+		for(int i = 0; i < viewpointData.dVTransfer().length && i < planetListUnsorted.size(); i++)
+		{
+			planetListUnsorted.get(i).dVTransfer = viewpointData.dVTransfer()[i];
+			planetListUnsorted.get(i).unlocked = viewpointData.unlocked()[i];
+		}
 	}
 	
 	public static ArrayList<ClientPlanet> getPlanets(boolean sorted)
@@ -257,5 +355,6 @@ public class ClientPlanetList
 	}
 	
 	private record StaticData(String name, String parentName, double dVOrbit, double dVSurface, double periapsis, double apoapsis, double argumentOfPeriapsis, double trueAnomaly, double ascendingNode, double inclination, double obliquity, double radius, double surfaceGravity, double surfacePressure, boolean hasLowClouds, boolean hasCloudCover, boolean hasWeather, boolean simpleTexture, boolean drawClouds, boolean hasOrbit, boolean hasSurface, boolean hasSky) {}
-	private record DynamicData(Vec3d position, Vec3d surfaceViewpoint, Vec3d parkingOrbitViewpoint, double dVTransfer, double precession, double sunAngle, double sunAngleOrbit, double cloudRotation, int cloudLevel, boolean unlocked, boolean isViewpoint) {}
+	private record DynamicData(Vec3d position, Vec3d surfaceViewpoint, Vec3d parkingOrbitViewpoint, Vec3d positionRate, Vec3d surfaceViewpointRate, Vec3d parkingOrbitViewpointRate, double sunAngle, double sunAngleOrbit, double sunAngleRate, double sunAngleOrbitRate, double cloudRotation, int cloudLevel) {}
+	private record ViewpointData(int viewpointIndex, boolean isOrbit, PlanetDimensionData dimensionData, double[] dVTransfer, boolean[] unlocked) {}
 }
\ No newline at end of file
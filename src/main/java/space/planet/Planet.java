@@ -18,6 +18,7 @@ public class Planet
 	public static final int TEMPERATE = 2;
 	public static final int HOT = 3;
 	public static final int EXTRA_HOT = 4;
+	private static final Random CLOUD_RANDOM = Random.createLocal();
 	
 	//private PlanetList system;
 	private String name;
@@ -34,6 +35,7 @@ public class Planet
 	private double apoapsis;
 	private double argumentOfPeriapsis;
 	private double trueAnomaly;
+	private double meanAnomalyAtEpoch;
 	private double ascendingNode;
 	private double inclination;
 	private double obliquity;
@@ -44,11 +46,9 @@ public class Planet
 	private double surfaceGravity;
 	private double parkingOrbitAngularSpeed;
 	private double parkingOrbitAngle;
-	private Vec3d position;
-	private Vec3d velocity;
-	private Vec3d acceleration;
-	private Vec3d surfaceViewpoint;
-	private Vec3d parkingOrbitViewpoint;
+	private PlanetState state;
+	private int id;
+	private TransferTable transferTable;
 	private int temperatureCategory;
 	private double surfacePressure;
 	private boolean simpleTexture;
@@ -73,11 +73,8 @@ public class Planet
 		surfacePressure = surfacePressure_;
 		surfaceGravity = ((G * mass) / (radius * radius) / ((G * EARTH_MASS) / (EARTH_RADIUS * EARTH_RADIUS)));
 		parkingOrbitAngularSpeed = Math.sqrt((G * mass) / Math.pow(parkingOrbitRadius, 3.0));
-		position = new Vec3d(0.0, 0.0, 0.0);
-		velocity = new Vec3d(0.0, 0.0, 0.0);
-		acceleration = new Vec3d(0.0, 0.0, 0.0);
-		surfaceViewpoint = new Vec3d(0.0, 0.0, 0.0);
-		parkingOrbitViewpoint = new Vec3d(0.0, 0.0, 0.0);
+		state = new PlanetState(1);
+		id = 0;
 		satellites = new ArrayList<Planet>();
 	}
 	
@@ -103,6 +100,11 @@ public class Planet
 		trueAnomaly = trueAnomaly_;
 		ascendingNode = ascendingNode_;
 		inclination = inclination_;
+		
+		// Find the mean anomaly at simulation time zero from the true anomaly.
+		double ecc = (apoapsis - periapsis) / (apoapsis + periapsis);
+		double eccentricAnomaly = 2.0 * Math.atan2(Math.sqrt(1.0 - ecc) * Math.sin(trueAnomaly / 2.0), Math.sqrt(1.0 + ecc) * Math.cos(trueAnomaly / 2.0));
+		meanAnomalyAtEpoch = eccentricAnomaly - ecc * Math.sin(eccentricAnomaly);
 	}
 	
 	public void setRotationParameters(boolean isTidallyLocked_, double obliquity_, double rotationRate_, double precessionRate_)
@@ -173,15 +175,42 @@ public class Planet
 		}
 	}
 	
+	/**
+	 * Move the simulated motion of this object into the given shared state under the given id.
+	 */
+	public void bindState(PlanetState state_, int id_)
+	{
+		state.copy(id, state_, id_);
+		state = state_;
+		id = id_;
+	}
+	
+	/**
+	 * Use the given table of precomputed transfers for delta-v calculations.
+	 */
+	public void bindTransferTable(TransferTable transferTable_)
+	{
+		transferTable = transferTable_;
+	}
+	
+	/**
+	 * The index of this object in the loaded planet list.
+	 */
+	public int getID()
+	{
+		return id;
+	}
+	
 	public DataCompound saveData(DataCompound data)
 	{
+		int i = id * 3;
 		DataCompound planetData = new DataCompound();
-		planetData.setValue("positionX", position.getX());
-		planetData.setValue("positionY", position.getY());
-		planetData.setValue("positionZ", position.getZ());
-		planetData.setValue("velocityX", velocity.getX());
-		planetData.setValue("velocityY", velocity.getY());
-		planetData.setValue("velocityZ", velocity.getZ());
+		planetData.setValue("positionX", state.position[i]);
+		planetData.setValue("positionY", state.position[i + 1]);
+		planetData.setValue("positionZ", state.position[i + 2]);
+		planetData.setValue("velocityX", state.velocity[i]);
+		planetData.setValue("velocityY", state.velocity[i + 1]);
+		planetData.setValue("velocityZ", state.velocity[i + 2]);
 		planetData.setValue("rotation", rotation);
 		planetData.setValue("precession", precession);
 		planetData.setValue("parkingOrbitAngle", parkingOrbitAngle);
@@ -198,8 +227,8 @@ public class Planet
 			return;
 			
 		DataCompound planetData = data.getDataCompound(name);
-		position = new Vec3d(planetData.getDouble("positionX"), planetData.getDouble("positionY"), planetData.getDouble("positionZ"));
-		velocity = new Vec3d(planetData.getDouble("velocityX"), planetData.getDouble("velocityY"), planetData.getDouble("velocityZ"));
+		setPosition(planetData.getDouble("positionX"), planetData.getDouble("positionY"), planetData.getDouble("positionZ"));
+		setVelocity(planetData.getDouble("velocityX"), planetData.getDouble("velocityY"), planetData.getDouble("velocityZ"));
 		rotation = planetData.getDouble("rotation");
 		precession = planetData.getDouble("precession");
 		parkingOrbitAngle = planetData.getDouble("parkingOrbitAngle");
@@ -351,7 +380,8 @@ public class Planet
 	 */
 	public Vec3d getVelocity()
 	{
-		return velocity;
+		int i = id * 3;
+		return new Vec3d(state.velocity[i], state.velocity[i + 1], state.velocity[i + 2]);
 	}
 	
 	/**
@@ -359,7 +389,15 @@ public class Planet
 	 */
 	public void setVelocity(Vec3d velocity_)
 	{
-		velocity = velocity_;
+		setVelocity(velocity_.getX(), velocity_.getY(), velocity_.getZ());
+	}
+	
+	public void setVelocity(double x, double y, double z)
+	{
+		int i = id * 3;
+		state.velocity[i] = x;
+		state.velocity[i + 1] = y;
+		state.velocity[i + 2] = z;
 	}
 	
 	/**
@@ -367,7 +405,15 @@ public class Planet
 	 */
 	public void setPosition(Vec3d position_)
 	{
-		position = position_;
+		setPosition(position_.getX(), position_.getY(), position_.getZ());
+	}
+	
+	public void setPosition(double x, double y, double z)
+	{
+		int i = id * 3;
+		state.position[i] = x;
+		state.position[i + 1] = y;
+		state.position[i + 2] = z;
 	}
 	
 	/**
@@ -375,12 +421,35 @@ public class Planet
 	 */
 	public Vec3d getPosition()
 	{
-		Vec3d absolutePosition = position;
+		return new Vec3d(getPositionX(), getPositionY(), getPositionZ());
+	}
+	
+	public double getPositionX()
+	{
+		return getAbsolutePosition(0);
+	}
+	
+	public double getPositionY()
+	{
+		return getAbsolutePosition(1);
+	}
+	
+	public double getPositionZ()
+	{
+		return getAbsolutePosition(2);
+	}
+	
+	/**
+	 * Add the relative positions of this object and its parents along one axis.
+	 */
+	private double getAbsolutePosition(int axis)
+	{
+		double absolutePosition = state.position[id * 3 + axis];
 		Planet p = parent;
 		
 		for(int i = satelliteLevel; i > 0; i--)
 		{
-			absolutePosition = absolutePosition.add(p.position);
+			absolutePosition += p.state.position[p.id * 3 + axis];
 			p = p.parent;
 		}
 		
@@ -412,7 +481,23 @@ public class Planet
 	 */
 	public Vec3d getSurfaceViewpoint()
 	{
-		return surfaceViewpoint;
+		int i = id * 3;
+		return new Vec3d(state.surfaceViewpoint[i], state.surfaceViewpoint[i + 1], state.surfaceViewpoint[i + 2]);
+	}
+	
+	public double getSurfaceViewpointX()
+	{
+		return state.surfaceViewpoint[id * 3];
+	}
+	
+	public double getSurfaceViewpointY()
+	{
+		return state.surfaceViewpoint[id * 3 + 1];
+	}
+	
+	public double getSurfaceViewpointZ()
+	{
+		return state.surfaceViewpoint[id * 3 + 2];
 	}
 	
 	/**
@@ -420,7 +505,23 @@ public class Planet
 	 */
 	public Vec3d getParkingOrbitViewpoint()
 	{
-		return parkingOrbitViewpoint;
+		int i = id * 3;
+		return new Vec3d(state.parkingOrbitViewpoint[i], state.parkingOrbitViewpoint[i + 1], state.parkingOrbitViewpoint[i + 2]);
+	}
+	
+	public double getParkingOrbitViewpointX()
+	{
+		return state.parkingOrbitViewpoint[id * 3];
+	}
+	
+	public double getParkingOrbitViewpointY()
+	{
+		return state.parkingOrbitViewpoint[id * 3 + 1];
+	}
+	
+	public double getParkingOrbitViewpointZ()
+	{
+		return state.parkingOrbitViewpoint[id * 3 + 2];
 	}
 	
 	/**
@@ -491,7 +592,10 @@ public class Planet
 	 */
 	public double getSolarMultiplier()
 	{
-		double d = getPosition().lengthSquared();
+		double x = getPositionX();
+		double y = getPositionY();
+		double z = getPositionZ();
+		double d = x * x + y * y + z * z;
 		
 		if(d == 0.0)
 			return 0.0;
@@ -505,11 +609,11 @@ public class Planet
 	 */
 	public double getSunAngleXZ(boolean fromOrbit)
 	{
-		Vec3d starPosition = new Vec3d(0.0, 0.0, 0.0);
-		Vec3d absolutePosition = getPosition();
-		Vec3d viewpoint = fromOrbit ? parkingOrbitViewpoint : surfaceViewpoint;
-		double azimuthOfViewpoint = Math.atan2(viewpoint.getZ() - absolutePosition.getZ(), viewpoint.getX() - absolutePosition.getX());
-		double azimuthOfStar = Math.atan2(starPosition.getZ() - absolutePosition.getZ(), starPosition.getX() - absolutePosition.getX());
+		double x = getPositionX();
+		double z = getPositionZ();
+		double[] viewpoint = fromOrbit ? state.parkingOrbitViewpoint : state.surfaceViewpoint;
+		double azimuthOfViewpoint = Math.atan2(viewpoint[id * 3 + 2] - z, viewpoint[id * 3] - x);
+		double azimuthOfStar = Math.atan2(-z, -x);
 		double trueAzimuth = azimuthOfViewpoint - azimuthOfStar;
 		
 		if(trueAzimuth < 0.0)
@@ -543,13 +647,7 @@ public class Planet
 		
 		if(satelliteLevel > 0)
 		{
-			double sma = (periapsis + apoapsis) / 2.0; // Semi-Major Axis
-			Vec3d relativePosition = getRelativePositionAtTrueAnomaly(trueAnomaly);
-			Vec3d relativePositionStep = getRelativePositionAtTrueAnomaly(trueAnomaly - 1e-4);
-			Vec3d tangent = relativePositionStep.subtract(relativePosition).normalize();
-			double initialSpeed = Math.sqrt(G * parent.mass * ((2.0 / relativePosition.length()) - (1.0 / sma)));
-			position = relativePosition;
-			velocity = tangent.multiply(initialSpeed);
+			setOrbitalState(trueAnomaly);
 			checkList.add(name);
 		}
 		
@@ -560,6 +658,69 @@ public class Planet
 			p.setInitialPositionAndVelocity(checkList);
 	}
 	
+	/**
+	 * Set the position and velocity of this object relative to its parent directly from its orbit parameters at the given simulation time in seconds.
+	 * The true anomaly of the orbit parameters is the position at time zero. Objects move towards decreasing true anomaly, matching the initial velocity of the integrated simulation.
+	 */
+	public void simulateOrbitalPosition(double time)
+	{
+		if(satelliteLevel < 1)
+			return;
+		
+		double ecc = (apoapsis - periapsis) / (apoapsis + periapsis); // Eccentricity
+		double sma = (periapsis + apoapsis) / 2.0; // Semi-Major Axis
+		double gm = G * parent.mass;
+		double meanAnomaly = meanAnomalyAtEpoch - Math.sqrt(gm / (sma * sma * sma)) * time;
+		meanAnomaly -= 2.0 * Math.PI * Math.floor((meanAnomaly + Math.PI) / (2.0 * Math.PI));
+		
+		// Solve Kepler's equation for the eccentric anomaly with Newton's method.
+		double eccentricAnomaly = ecc > 0.8 ? Math.PI * Math.signum(meanAnomaly) : meanAnomaly;
+		
+		for(int i = 0; i < 16; i++)
+		{
+			double delta = (eccentricAnomaly - ecc * Math.sin(eccentricAnomaly) - meanAnomaly) / (1.0 - ecc * Math.cos(eccentricAnomaly));
+			eccentricAnomaly -= delta;
+			
+			if(Math.abs(delta) < 1e-12)
+				break;
+		}
+		
+		setOrbitalState(2.0 * Math.atan2(Math.sqrt(1.0 + ecc) * Math.sin(eccentricAnomaly / 2.0), Math.sqrt(1.0 - ecc) * Math.cos(eccentricAnomaly / 2.0)));
+	}
+	
+	/**
+	 * Set the position and velocity of this object relative to its parent at the given true anomaly.
+	 * This is the same orbit as getRelativePositionAtTrueAnomaly() with the velocity found from the derivative of the position, moving towards decreasing true anomaly.
+	 */
+	private void setOrbitalState(double ta)
+	{
+		double ecc = (apoapsis - periapsis) / (apoapsis + periapsis); // Eccentricity
+		double sma = (periapsis + apoapsis) / 2.0; // Semi-Major Axis
+		double slr = sma * (1.0 - (ecc * ecc)); // Semi-Latus Rectum
+		double r = slr / (1.0 + (ecc * Math.cos(ta)));
+		double dr = r * ecc * Math.sin(ta) / (1.0 + (ecc * Math.cos(ta))); // Change in radius with true anomaly.
+		double theta = argumentOfPeriapsis + ta;
+		double cosNode = Math.cos(ascendingNode);
+		double sinNode = Math.sin(ascendingNode);
+		double cosInclination = Math.cos(inclination);
+		double sinInclination = Math.sin(inclination);
+		double cosTheta = Math.cos(theta);
+		double sinTheta = Math.sin(theta);
+		double cosSum = Math.cos(ascendingNode + theta);
+		double sinSum = Math.sin(ascendingNode + theta);
+		
+		// The direction of the object from its parent and its change with true anomaly.
+		double ux = cosNode * cosTheta * (1.0 - cosInclination) + cosSum * cosInclination;
+		double uy = sinTheta * sinInclination;
+		double uz = -sinNode * cosTheta * (1.0 - cosInclination) - sinSum * cosInclination;
+		double dux = -cosNode * sinTheta * (1.0 - cosInclination) - sinSum * cosInclination;
+		double duy = cosTheta * sinInclination;
+		double duz = sinNode * sinTheta * (1.0 - cosInclination) - cosSum * cosInclination;
+		double angularSpeed = -Math.sqrt(G * parent.mass * slr) / (r * r);
+		setPosition(ux * r, uy * r, uz * r);
+		setVelocity((dux * r + ux * dr) * angularSpeed, (duy * r + uy * dr) * angularSpeed, (duz * r + uz * dr) * angularSpeed);
+	}
+	
 	/**
 	 * Calculate the acceleration of this object due to it's parent object's gravity.
 	 */
@@ -568,10 +729,16 @@ public class Planet
 		if(satelliteLevel < 1)
 			return;
 		
-		acceleration = new Vec3d(0.0, 0.0, 0.0);
-		double squaredDistance = position.getX() * position.getX() + position.getY() * position.getY() + position.getZ() * position.getZ();
-		double accelerationMagnitude = (G * parent.mass) / squaredDistance;
-		acceleration = acceleration.add(position.normalize().multiply(-accelerationMagnitude));
+		int i = id * 3;
+		double x = state.position[i];
+		double y = state.position[i + 1];
+		double z = state.position[i + 2];
+		double squaredDistance = x * x + y * y + z * z;
+		double distance = Math.sqrt(squaredDistance);
+		double accelerationMagnitude = distance < 1.0e-4 ? 0.0 : (G * parent.mass) / (squaredDistance * distance);
+		state.acceleration[i] = -x * accelerationMagnitude;
+		state.acceleration[i + 1] = -y * accelerationMagnitude;
+		state.acceleration[i + 2] = -z * accelerationMagnitude;
 	}
 	
 	/**
@@ -582,7 +749,10 @@ public class Planet
 		if(satelliteLevel < 1)
 			return;
 		
-		velocity = velocity.add(acceleration.multiply(timeStep));
+		int i = id * 3;
+		state.velocity[i] += state.acceleration[i] * timeStep;
+		state.velocity[i + 1] += state.acceleration[i + 1] * timeStep;
+		state.velocity[i + 2] += state.acceleration[i + 2] * timeStep;
 	}
 	
 	/**
@@ -590,34 +760,69 @@ public class Planet
 	 */
 	public void simulatePositionAndRotationChange(double timeStep)
 	{
-		Vec3d absolutePosition = getPosition();
-		Vec3d axisOfRotation = new Vec3d(0.0, 1.0, 0.0);
+		double x = getPositionX();
+		double y = getPositionY();
+		double z = getPositionZ();
 		
 		if(satelliteLevel > 0)
-			position = position.add(velocity.multiply(timeStep));
+		{
+			int i = id * 3;
+			state.position[i] += state.velocity[i] * timeStep;
+			state.position[i + 1] += state.velocity[i + 1] * timeStep;
+			state.position[i + 2] += state.velocity[i + 2] * timeStep;
+		}
 		
+		simulateRotationChange(x, y, z, timeStep, 1);
+	}
+	
+	/**
+	 * Calculate the change in rotation of this object and its viewpoints over a given time interval covering the given number of simulation steps without changing its position.
+	 */
+	public void simulateRotationChange(double timeStep, int steps)
+	{
+		simulateRotationChange(getPositionX(), getPositionY(), getPositionZ(), timeStep, steps);
+	}
+	
+	/**
+	 * Update the rotation and the viewpoints of this object around the given absolute position.
+	 * The cloud timer counts simulation steps, so it advances by the number of steps the time interval covers.
+	 */
+	private void simulateRotationChange(double x, double y, double z, double timeStep, int steps)
+	{
 		rotation -= rotationRate * timeStep;
 		
-		if(rotation <= 0.0)
+		while(rotation <= 0.0)
 			rotation += 2.0 * Math.PI;
 		
 		precession -= precessionRate * timeStep;
 		
-		if(precession <= 2.0 * Math.PI)
+		while(precession <= 2.0 * Math.PI)
 			precession += 2.0 * Math.PI;
 		
 		parkingOrbitAngle -= parkingOrbitAngularSpeed * timeStep;
 		
-		if(parkingOrbitAngle <= 2.0 * Math.PI)
+		while(parkingOrbitAngle <= 2.0 * Math.PI)
 			parkingOrbitAngle += 2.0 * Math.PI;
 		
-		axisOfRotation = axisOfRotation.rotateX((float) obliquity);
-		axisOfRotation = axisOfRotation.rotateY((float) precession);
-		surfaceViewpoint = absolutePosition.add(VectorUtil.rotateAboutAxis(new Vec3d(1.0, 0.0, 0.0), axisOfRotation, rotation).multiply(radius));
-		parkingOrbitViewpoint = absolutePosition.add(VectorUtil.rotateAboutAxis(new Vec3d(1.0, 0.0, 0.0), axisOfRotation, parkingOrbitAngle).multiply(radius + parkingOrbitRadius));
+		// The axis of rotation is the vertical axis tilted by the obliquity and turned by the precession.
+		double u = -Math.sin(obliquity) * Math.sin(precession);
+		double v = Math.cos(obliquity);
+		double w = -Math.sin(obliquity) * Math.cos(precession);
+		int i = id * 3;
+		setViewpoint(state.surfaceViewpoint, i, x, y, z, u, v, w, rotation, radius);
+		setViewpoint(state.parkingOrbitViewpoint, i, x, y, z, u, v, w, parkingOrbitAngle, radius + parkingOrbitRadius);
 		
 		if(isTidallyLocked)
-			surfaceViewpoint = absolutePosition.add(parent.getPosition().subtract(absolutePosition).normalize().multiply(radius));
+		{
+			double dx = parent.getPositionX() - x;
+			double dy = parent.getPositionY() - y;
+			double dz = parent.getPositionZ() - z;
+			double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			double scale = distance < 1.0e-4 ? 0.0 : radius / distance;
+			state.surfaceViewpoint[i] = x + dx * scale;
+			state.surfaceViewpoint[i + 1] = y + dy * scale;
+			state.surfaceViewpoint[i + 2] = z + dz * scale;
+		}
 		
 		// Update sky angle variables.
 		sunAngle = getSunAngleXZ(false);
@@ -628,21 +833,32 @@ public class Planet
 		{
 			if(cloudTimer <= 0)
 			{
-				Random random = Random.createLocal();
-				cloudLevel = random.nextInt(4);
-				cloudRotation = Math.PI * 2.0 * random.nextDouble();
-				cloudTimer = 6000 + random.nextInt(3000);
+				cloudLevel = CLOUD_RANDOM.nextInt(4);
+				cloudRotation = Math.PI * 2.0 * CLOUD_RANDOM.nextDouble();
+				cloudTimer = 6000 + CLOUD_RANDOM.nextInt(3000);
 			}
 			else
-				cloudTimer--;
+				cloudTimer -= steps;
 			
 			cloudRotation += cloudRotationRate * timeStep;
 			
-			if(cloudRotation >= 2.0 * Math.PI)
+			while(cloudRotation >= 2.0 * Math.PI)
 				cloudRotation -= 2.0 * Math.PI;
 		}
 	}
 	
+	/**
+	 * Set a viewpoint to the given distance from the given position along the x axis rotated about the axis (u, v, w) by the given angle.
+	 */
+	private static void setViewpoint(double[] viewpoint, int i, double x, double y, double z, double u, double v, double w, double angle, double distance)
+	{
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
+		viewpoint[i] = x + (u * u * (1.0 - cos) + cos) * distance;
+		viewpoint[i + 1] = y + (v * u * (1.0 - cos) + w * sin) * distance;
+		viewpoint[i + 2] = z + (w * u * (1.0 - cos) - v * sin) * distance;
+	}
+	
 	/**
 	 * Calculate the delta-v needed to reach the parking orbit of this planet from its surface.
 	 */
@@ -696,33 +912,40 @@ public class Planet
 	}
 	
 	/**
-	 * Recursively search through all of this planet's satellite's and sub-satellite's for the specified planet.
+	 * Find the amount of delta-v required for travel from a parking orbit around this planet to another.
 	 */
-	public boolean recursiveSearch(Planet target, ArrayList<Planet> searchList)
+	public double dVToPlanet(Planet other)
 	{
-		boolean b = false;
+		if(transferTable != null && transferTable == other.transferTable)
+			return transferTable.getDeltaV(id, other.id);
+		
+		Planet ancestor = other;
 		
-		for(Planet s : getSatellites())
+		while(ancestor != null && !isSatelliteOf(ancestor))
+			ancestor = ancestor.parent;
+		
+		return ancestor == null ? Double.POSITIVE_INFINITY : dVToPlanet(other, ancestor);
+	}
+	
+	/**
+	 * Check if this planet is the given planet or one of its satellites or sub-satellites.
+	 */
+	private boolean isSatelliteOf(Planet planet)
+	{
+		for(Planet p = this; p != null; p = p.parent)
 		{
-			if(s.equals(target))
-				b = true;
-			else if(!s.satellites.isEmpty())
-				b = s.recursiveSearch(target, searchList);
-			
-			if(b)
-			{
-				searchList.add(s);
-				break;
-			}
+			if(p == planet)
+				return true;
 		}
 		
-		return b;
+		return false;
 	}
 	
 	/**
-	 * Find the amount of delta-v required for travel from a parking orbit around this planet to another.
+	 * Find the amount of delta-v required for travel from a parking orbit around this planet to another, given the closest planet both of them orbit or are.
+	 * Escape burns are added on the way up from this planet to the common ancestor and capture burns on the way down to the other planet.
 	 */
-	public double dVToPlanet(Planet other)
+	double dVToPlanet(Planet other, Planet commonAncestor)
 	{
 		double esc1 = 0;
 		double dvEsc1 = 0;
@@ -730,63 +953,44 @@ public class Planet
 		double orbitRadius = parkingOrbitRadius;
 		Planet p = this;
 		
-		while(true)
+		while(p != commonAncestor)
 		{
-			if(p.equals(other))
-				return p.dVTransfer(orbitRadius, p.parkingOrbitRadius, esc1, 0) + dvEsc1;
+			esc1 = p.escapeVelocity(orbitRadius);
 			
-			ArrayList<Planet> searchList = new ArrayList<Planet>();
-			boolean b = p.recursiveSearch(other, searchList);
+			if(esc1 > startV1)
+				dvEsc1 += esc1 - startV1;
+			else
+				esc1 += startV1 - esc1;
 			
-			if(b)
-			{
-				double esc2 = 0;
-				double dvEsc2 = 0;
-				double startV2 = searchList.get(0).circularOrbitVelocity(searchList.get(0).parkingOrbitRadius);
-				
-				for(int i = 0; i < searchList.size(); i++)
-				{
-					if(i == 0)
-					{
-						esc2 = searchList.get(i).escapeVelocity(searchList.get(i).parkingOrbitRadius);
-						
-						if(esc2 > startV2)
-							dvEsc2 += esc2 - startV2;
-						else
-							esc2 += startV2 - esc2;
-						
-						startV2 = searchList.get(i).parent.circularOrbitVelocity((searchList.get(i).periapsis + searchList.get(i).apoapsis) / 2.0) + esc2;
-						continue;
-					}
-					
-					Planet s = searchList.get(i - 1);
-					esc2 = searchList.get(i).escapeVelocity((s.periapsis + s.apoapsis) / 2.0);
-					
-					if(esc2 > startV2)
-						dvEsc2 += esc2 - startV2;
-					else
-						esc2 += startV2 - esc2;
-					
-					startV2 = searchList.get(i).parent.circularOrbitVelocity((searchList.get(i).periapsis + searchList.get(i).apoapsis) / 2.0) + esc2;
-				}
-				
-				Planet next = searchList.get(searchList.size() - 1);
-				double rEnd = (next.periapsis + next.apoapsis) / 2.0;
-				return p.dVTransfer(orbitRadius, rEnd, esc1, esc2) + dvEsc1 + dvEsc2;
-			}
-			else if(p.parent != null)
-			{
-				esc1 = p.escapeVelocity(orbitRadius);
-				
-				if(esc1 > startV1)
-					dvEsc1 += esc1 - startV1;
-				else
-					esc1 += startV1 - esc1;
-				
-				orbitRadius = (p.periapsis + p.apoapsis) / 2.0;
-				startV1 = p.parent.circularOrbitVelocity(orbitRadius) + esc1;
-				p = p.parent;
-			}
+			orbitRadius = (p.periapsis + p.apoapsis) / 2.0;
+			startV1 = p.parent.circularOrbitVelocity(orbitRadius) + esc1;
+			p = p.parent;
 		}
+		
+		if(p == other)
+			return p.dVTransfer(orbitRadius, p.parkingOrbitRadius, esc1, 0) + dvEsc1;
+		
+		double esc2 = 0;
+		double dvEsc2 = 0;
+		double startV2 = other.circularOrbitVelocity(other.parkingOrbitRadius);
+		Planet previous = null;
+		Planet s = other;
+		
+		while(s != commonAncestor)
+		{
+			esc2 = s.escapeVelocity(previous == null ? s.parkingOrbitRadius : (previous.periapsis + previous.apoapsis) / 2.0);
+			
+			if(esc2 > startV2)
+				dvEsc2 += esc2 - startV2;
+			else
+				esc2 += startV2 - esc2;
+			
+			startV2 = s.parent.circularOrbitVelocity((s.periapsis + s.apoapsis) / 2.0) + esc2;
+			previous = s;
+			s = s.parent;
+		}
+		
+		double rEnd = (previous.periapsis + previous.apoapsis) / 2.0;
+		return p.dVTransfer(orbitRadius, rEnd, esc1, esc2) + dvEsc1 + dvEsc2;
 	}
 }
\ No newline at end of file
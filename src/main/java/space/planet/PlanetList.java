@@ -2,6 +2,8 @@ package space.planet;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 import net.darkhax.ess.DataCompound;
 import net.darkhax.ess.ESSHelper;
@@ -9,6 +11,7 @@ import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.fabricmc.fabric.api.networking.v1.PacketSender;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.Packet;
 import net.minecraft.registry.RegistryKey;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayNetworkHandler;
@@ -22,10 +25,21 @@ import space.util.IWorldMixin;
 
 public class PlanetList
 {
+	public static final int STATIC_DATA = 0;
+	public static final int DYNAMIC_DATA = 1;
+	public static final int VIEWPOINT_DATA = 2;
+	private static final int SENT_STATE_SIZE = 13;
 	private static ArrayList<Planet> planetList = new ArrayList<Planet>();
 	private static ArrayList<Planet> planetListBuffer = new ArrayList<Planet>();
-	private static ArrayList<String> activeClients = new ArrayList<String>();
+	private static Map<String, Planet> planetsByName = Map.of();
+	private static Map<RegistryKey<World>, PlanetDimensionData> dimensionDataByWorld = Map.of();
+	private static HashMap<String, PlanetDimensionData> activeClients = new HashMap<String, PlanetDimensionData>(); // The dimension data last sent to each initialized client.
+	private static double[] sentState = new double[0]; // The position, relative viewpoints, sun angles and clouds of each planet as of the last update.
 	private static int timeSteps = 1;
+	private static int sendInterval = 1;
+	private static int sendTimer = 0;
+	private static double simulationTime = 0.0;
+	private static boolean ephemeris = true;
 	
 	// Intermediate between the ClientPlanetList class and the WorldMixin class.
 	public static PlanetDimensionData viewpointDimensionData;
@@ -39,6 +53,27 @@ public class PlanetList
 		timeSteps = i;
 	}
 	
+	/**
+	 * Set the number of ticks between updates of planet motion sent to clients. Clients extrapolate the motion in between.
+	 */
+	public static void setSendInterval(int i)
+	{
+		sendInterval = Math.max(i, 1);
+	}
+	
+	/**
+	 * Choose between evaluating planet orbits directly from their orbit parameters and integrating their motion step by step.
+	 */
+	public static void setEphemeris(boolean ephemeris_)
+	{
+		ephemeris = ephemeris_;
+	}
+	
+	public static boolean isEphemeris()
+	{
+		return ephemeris;
+	}
+	
 	/**
 	 * Return the list of planets.
 	 */
@@ -55,6 +90,12 @@ public class PlanetList
 		if(name == null || name.isEmpty())
 			return null;
 		
+		Planet planet = planetsByName.get(name);
+		
+		if(planet != null)
+			return planet;
+		
+		// Fall back to partial name matches.
 		for(Planet p : planetList)
 		{
 			if(p.getName().contains(name))
@@ -80,6 +121,14 @@ public class PlanetList
 		return p.getOrbit().getWorldKey();
 	}
 	
+	/**
+	 * Get the planet dimension data associated with the given world key, or null if the world is not a planet dimension.
+	 */
+	public static PlanetDimensionData getDimensionData(RegistryKey<World> worldKey)
+	{
+		return dimensionDataByWorld.get(worldKey);
+	}
+	
 	/**
 	 * Get the Planet instance associated with the given world key.
 	 */
@@ -113,7 +162,10 @@ public class PlanetList
 	{
 		planetList.clear();
 		planetListBuffer.clear();
+		planetsByName = Map.of();
+		dimensionDataByWorld = Map.of();
 		activeClients.clear();
+		sentState = new double[0];
 	}
 	
 	/**
@@ -145,6 +197,9 @@ public class PlanetList
 			previousDynamicData = saveDynamicData();
 		
 		planetList = planetListBuffer;
+		PlanetState.bind(planetList);
+		TransferTable.bind(planetList);
+		buildLookupMaps();
 		
 		if(previousDynamicData == null)
 		{
@@ -159,21 +214,61 @@ public class PlanetList
 		else
 			loadDynamicData(previousDynamicData);
 		
-    	// Reset world specific planet dimension data.
+    	// Give each world its planet dimension data.
     	for(World world : server.getWorlds())
-			((IWorldMixin) (Object) world).clearPlanetDimensionData();
+			((IWorldMixin) (Object) world).setPlanetDimensionData(getDimensionData(world.getRegistryKey()));
     	
     	// Clear Array Lists
     	planetListBuffer = new ArrayList<Planet>();
     	activeClients.clear();
+    	sentState = new double[0];
+	}
+	
+	/**
+	 * Build the maps from planet names and world keys used for lookups until the next reload.
+	 */
+	private static void buildLookupMaps()
+	{
+		HashMap<String, Planet> nameMap = new HashMap<String, Planet>();
+		HashMap<RegistryKey<World>, PlanetDimensionData> worldMap = new HashMap<RegistryKey<World>, PlanetDimensionData>();
+		
+		for(Planet planet : planetList)
+		{
+			nameMap.putIfAbsent(planet.getName(), planet);
+			
+			if(planet.getOrbit() != null)
+				worldMap.put(planet.getOrbit().getWorldKey(), planet.getOrbit());
+			
+			if(planet.getSurface() != null)
+				worldMap.put(planet.getSurface().getWorldKey(), planet.getSurface());
+			
+			if(planet.getSky() != null)
+				worldMap.put(planet.getSky().getWorldKey(), planet.getSky());
+		}
+		
+		planetsByName = Map.copyOf(nameMap);
+		dimensionDataByWorld = Map.copyOf(worldMap);
 	}
 	
 	/**
 	 * Simulate the orbital motion and rotation of each planet. I am aware of how excessive this seems for a Minecraft mod. :l
+	 * In ephemeris mode each orbit is evaluated once from the simulation time, so the cost does not depend on the number of time steps and orbits do not drift.
 	 */
 	private static void simulateMotion()
 	{
 		double timeStep = 72.0 * 0.05;
+		simulationTime += timeStep * timeSteps;
+		
+		if(ephemeris)
+		{
+			for(Planet p : planetList)
+				p.simulateOrbitalPosition(simulationTime);
+			
+			for(Planet p : planetList)
+				p.simulateRotationChange(timeStep * timeSteps, timeSteps);
+			
+			return;
+		}
 		
 		for(int i = 0; i < timeSteps; i++)
 		{
@@ -190,43 +285,170 @@ public class PlanetList
 	
 	/**
 	 * Send planet rendering information to clients.
+	 * A client that has not been initialized receives the static data of every planet along with the state the next update is encoded against.
+	 * Planet motion is encoded once every send interval as the change from the previous update and sent to every initialized client.
+	 * The viewpoint planet, dimension properties and transfer delta-v only depend on the dimension of a player and are sent when it changes.
 	 */
 	private static void sendToClients(MinecraftServer server)
 	{
-		for(ServerPlayerEntity player : server.getPlayerManager().getPlayerList())
+		Identifier channel = new Identifier(StarflightMod.MOD_ID, "planet_data");
+		
+		// Start over from the current state if the planet list has changed.
+		if(sentState.length != planetList.size() * SENT_STATE_SIZE)
+		{
+			sentState = new double[planetList.size() * SENT_STATE_SIZE];
+			
+			for(int i = 0; i < planetList.size(); i++)
+			{
+				Planet p = planetList.get(i);
+				int j = i * SENT_STATE_SIZE;
+				sentState[j] = p.getPositionX();
+				sentState[j + 1] = p.getPositionY();
+				sentState[j + 2] = p.getPositionZ();
+				saveSentState(p, j);
+			}
+			
+			activeClients.clear();
+		}
+		
+		Packet<?> dynamicPacket = null;
+		sendTimer++;
+		
+		if(sendTimer >= sendInterval)
 		{
 			PacketByteBuf buffer = PacketByteBufs.create();
+			writePlanetData(buffer, false);
+			dynamicPacket = ServerPlayNetworking.createS2CPacket(channel, buffer);
+			sendTimer = 0;
+		}
+		
+		for(ServerPlayerEntity player : server.getPlayerManager().getPlayerList())
+		{
+			String uuid = player.getUuidAsString();
 			PlanetDimensionData data = getDimensionDataForWorld(player.getWorld());
-			boolean initialize = !activeClients.contains(player.getUuidAsString());
 			
-			if(data == null)
+			if(!activeClients.containsKey(uuid))
 			{
-				buffer.writeBoolean(false);
-				buffer.writeInt(0);
-				buffer.writeInt(-1);
-				ServerPlayNetworking.send(player, new Identifier(StarflightMod.MOD_ID, "planet_data"), buffer);
+				PacketByteBuf buffer = PacketByteBufs.create();
+				writePlanetData(buffer, true);
+				ServerPlayNetworking.send(player, channel, buffer);
+				sendViewpointData(player, channel, data);
+				activeClients.put(uuid, data);
 				continue;
 			}
 			
-			buffer.writeBoolean(initialize);
-			buffer.writeInt(planetList.size());
-			int viewpointIndex = -1; // Defaults to -1 for undefined worlds.
+			if(activeClients.get(uuid) != data)
+			{
+				sendViewpointData(player, channel, data);
+				activeClients.put(uuid, data);
+			}
+			
+			if(dynamicPacket != null)
+				player.networkHandler.sendPacket(dynamicPacket);
+		}
+	}
+	
+	/**
+	 * Write the motion of every planet. Positions are written in full for new clients and otherwise as the change since the last update.
+	 * New clients receive everything from the state of the last update, since the next update is applied to it and its rates of change are found from it.
+	 */
+	private static void writePlanetData(PacketByteBuf buffer, boolean initialize)
+	{
+		buffer.writeByte(initialize ? STATIC_DATA : DYNAMIC_DATA);
+		buffer.writeInt(sendInterval);
+		buffer.writeInt(planetList.size());
+		
+		for(int i = 0; i < planetList.size(); i++)
+		{
+			Planet p = planetList.get(i);
+			int j = i * SENT_STATE_SIZE;
 			
-			if(data.overrideSky())
+			if(initialize)
 			{
-				Planet planet = data.getPlanet();
-				
-				for(int i = 0; i < planetList.size(); i++)
-				{
-					if(planetList.get(i).equals(planet))
-					{
-						viewpointIndex = i;
-						break;
-					}
-				}
+				buffer.writeString(p.getName());
+				buffer.writeString(p.getParentName());
+				buffer.writeDouble(p.dVSurfaceToOrbit());
+				buffer.writeDouble(p.dVOrbitToSurface());
+				buffer.writeDouble(p.getPeriapsis());
+				buffer.writeDouble(p.getApoapsis());
+				buffer.writeDouble(p.getArgumentOfPeriapsis());
+				buffer.writeDouble(p.getTrueAnomaly());
+				buffer.writeDouble(p.getAscendingNode());
+				buffer.writeDouble(p.getInclination());
+				buffer.writeDouble(p.getObliquity());
+				buffer.writeDouble(p.getRadius());
+				buffer.writeDouble(p.getSurfaceGravity());
+				buffer.writeDouble(p.getSurfacePressure());
+				buffer.writeBoolean(p.hasLowClouds());
+				buffer.writeBoolean(p.hasCloudCover());
+				buffer.writeBoolean(p.hasWeather());
+				buffer.writeBoolean(p.hasSimpleTexture());
+				buffer.writeBoolean(p.drawClouds());
+				buffer.writeBoolean(p.getOrbit() != null);
+				buffer.writeBoolean(p.getSurface() != null);
+				buffer.writeBoolean(p.getSky() != null);
+				buffer.writeDouble(sentState[j]);
+				buffer.writeDouble(sentState[j + 1]);
+				buffer.writeDouble(sentState[j + 2]);
 			}
+			else
+			{
+				// Keep track of the rounded positions clients end up with so rounding errors do not add up.
+				float dx = (float) (p.getPositionX() - sentState[j]);
+				float dy = (float) (p.getPositionY() - sentState[j + 1]);
+				float dz = (float) (p.getPositionZ() - sentState[j + 2]);
+				sentState[j] += dx;
+				sentState[j + 1] += dy;
+				sentState[j + 2] += dz;
+				buffer.writeFloat(dx);
+				buffer.writeFloat(dy);
+				buffer.writeFloat(dz);
+				saveSentState(p, j);
+			}
+			
+			for(int k = 3; k < SENT_STATE_SIZE - 1; k++)
+				buffer.writeFloat((float) sentState[j + k]);
 			
-			buffer.writeInt(viewpointIndex);
+			buffer.writeByte((int) sentState[j + SENT_STATE_SIZE - 1]);
+		}
+	}
+	
+	/**
+	 * Keep the current viewpoints relative to the position of the given planet, its sun angles and its clouds at the given index of the sent state.
+	 */
+	private static void saveSentState(Planet p, int j)
+	{
+		double x = p.getPositionX();
+		double y = p.getPositionY();
+		double z = p.getPositionZ();
+		sentState[j + 3] = (float) (p.getSurfaceViewpointX() - x);
+		sentState[j + 4] = (float) (p.getSurfaceViewpointY() - y);
+		sentState[j + 5] = (float) (p.getSurfaceViewpointZ() - z);
+		sentState[j + 6] = (float) (p.getParkingOrbitViewpointX() - x);
+		sentState[j + 7] = (float) (p.getParkingOrbitViewpointY() - y);
+		sentState[j + 8] = (float) (p.getParkingOrbitViewpointZ() - z);
+		sentState[j + 9] = (float) p.sunAngle;
+		sentState[j + 10] = (float) p.sunAngleOrbit;
+		sentState[j + 11] = (float) p.getCloudRotation();
+		sentState[j + 12] = p.getCloudLevel();
+	}
+	
+	/**
+	 * Send the viewpoint planet, the properties of the dimension and the delta-v to each planet for the given player.
+	 */
+	private static void sendViewpointData(ServerPlayerEntity player, Identifier channel, PlanetDimensionData data)
+	{
+		PacketByteBuf buffer = PacketByteBufs.create();
+		buffer.writeByte(VIEWPOINT_DATA);
+		int viewpointIndex = -1; // Defaults to -1 for undefined worlds.
+		
+		if(data != null && data.overrideSky())
+			viewpointIndex = planetList.indexOf(data.getPlanet());
+		
+		buffer.writeInt(viewpointIndex);
+		
+		if(viewpointIndex > -1)
+		{
 			buffer.writeBoolean(data.isOrbit());
 			buffer.writeBoolean(data.isSky());
 			buffer.writeBoolean(data.overridePhysics());
@@ -238,60 +460,22 @@ public class PlanetList
 			buffer.writeInt(data.getTemperatureCategory());
 			buffer.writeDouble(data.getGravity());
 			buffer.writeDouble(data.getPressure());
+		}
+		
+		if(data == null)
+			buffer.writeInt(0);
+		else
+		{
+			buffer.writeInt(planetList.size());
 			
-			for(int i = 0; i < planetList.size(); i++)
+			for(Planet p : planetList)
 			{
-				Planet p = planetList.get(i);
-				
-				if(initialize)
-				{
-					buffer.writeString(p.getName());
-					buffer.writeString(p.getParentName());
-					buffer.writeDouble(p.dVSurfaceToOrbit());
-					buffer.writeDouble(p.dVOrbitToSurface());
-					buffer.writeDouble(p.getPeriapsis());
-					buffer.writeDouble(p.getApoapsis());
-					buffer.writeDouble(p.getArgumentOfPeriapsis());
-					buffer.writeDouble(p.getTrueAnomaly());
-					buffer.writeDouble(p.getAscendingNode());
-					buffer.writeDouble(p.getInclination());
-					buffer.writeDouble(p.getObliquity());
-					buffer.writeDouble(p.getRadius());
-					buffer.writeDouble(p.getSurfaceGravity());
-					buffer.writeDouble(p.getSurfacePressure());
-					buffer.writeBoolean(p.hasLowClouds());
-					buffer.writeBoolean(p.hasCloudCover());
-					buffer.writeBoolean(p.hasWeather());
-					buffer.writeBoolean(p.hasSimpleTexture());
-					buffer.writeBoolean(p.drawClouds());
-					buffer.writeBoolean(p.getOrbit() != null);
-					buffer.writeBoolean(p.getSurface() != null);
-					buffer.writeBoolean(p.getSky() != null);
-				}
-				
-				buffer.writeDouble(p.getPosition().getX());
-				buffer.writeDouble(p.getPosition().getY());
-				buffer.writeDouble(p.getPosition().getZ());
-				buffer.writeDouble(p.getSurfaceViewpoint().getX());
-				buffer.writeDouble(p.getSurfaceViewpoint().getY());
-				buffer.writeDouble(p.getSurfaceViewpoint().getZ());
-				buffer.writeDouble(p.getParkingOrbitViewpoint().getX());
-				buffer.writeDouble(p.getParkingOrbitViewpoint().getY());
-				buffer.writeDouble(p.getParkingOrbitViewpoint().getZ());
 				buffer.writeDouble(p.dVToPlanet(data.getPlanet()));
-				buffer.writeDouble(p.sunAngle);
-				buffer.writeDouble(p.sunAngleOrbit);
-				buffer.writeDouble(p.getPrecession());
-				buffer.writeDouble(p.getCloudRotation());
-				buffer.writeInt(p.getCloudLevel());
 				buffer.writeBoolean(true);
 			}
-			
-			if(initialize)
-				activeClients.add(player.getUuidAsString());
-			
-			ServerPlayNetworking.send(player, new Identifier(StarflightMod.MOD_ID, "planet_data"), buffer);
 		}
+		
+		ServerPlayNetworking.send(player, channel, buffer);
 	}
 	
 	/**
@@ -323,6 +507,9 @@ public class PlanetList
 		
 		data.setValue("planetCount", planetList.size());
 		data.setValue("timeSteps", timeSteps);
+		data.setValue("sendInterval", sendInterval);
+		data.setValue("simulationTime", simulationTime);
+		data.setValue("ephemeris", ephemeris);
 		return data;
 	}
 	
@@ -333,6 +520,8 @@ public class PlanetList
 	{
 		Planet centerPlanet = getByName("sol");
 		ArrayList<String> checkList = new ArrayList<String>();
+		simulationTime = 0.0;
+		ephemeris = true;
 		
 		if(data != null && data.hasName("planetCount"))
 		{
@@ -341,6 +530,19 @@ public class PlanetList
 			else
 			{
 				timeSteps = data.getInt("timeSteps");
+				
+				if(data.hasName("sendInterval"))
+					sendInterval = Math.max(data.getInt("sendInterval"), 1);
+				
+				// Worlds saved before ephemeris mode existed keep integrating from their saved positions.
+				if(data.hasName("simulationTime"))
+				{
+					simulationTime = data.getDouble("simulationTime");
+					ephemeris = data.getBoolean("ephemeris");
+				}
+				else
+					ephemeris = false;
+				
 				centerPlanet.loadData(data, checkList);
 			}
 		}
@@ -0,0 +1,45 @@
+package space.planet;
+
+import java.util.ArrayList;
+
+/**
+ * The simulated motion of planets held in flat arrays with x, y and z values for each planet id.
+ * Keeping the state of every planet in one place lets the simulation update it in place without creating vectors every time step.
+ */
+public class PlanetState
+{
+	final double[] position;
+	final double[] velocity;
+	final double[] acceleration;
+	final double[] surfaceViewpoint;
+	final double[] parkingOrbitViewpoint;
+	
+	public PlanetState(int planetCount)
+	{
+		position = new double[planetCount * 3];
+		velocity = new double[planetCount * 3];
+		acceleration = new double[planetCount * 3];
+		surfaceViewpoint = new double[planetCount * 3];
+		parkingOrbitViewpoint = new double[planetCount * 3];
+	}
+	
+	/**
+	 * Move the state of each planet in the list into one shared state and give each planet its index in the list as its id.
+	 */
+	public static void bind(ArrayList<Planet> planetList)
+	{
+		PlanetState state = new PlanetState(planetList.size());
+		
+		for(int i = 0; i < planetList.size(); i++)
+			planetList.get(i).bindState(state, i);
+	}
+	
+	void copy(int from, PlanetState other, int to)
+	{
+		System.arraycopy(position, from * 3, other.position, to * 3, 3);
+		System.arraycopy(velocity, from * 3, other.velocity, to * 3, 3);
+		System.arraycopy(acceleration, from * 3, other.acceleration, to * 3, 3);
+		System.arraycopy(surfaceViewpoint, from * 3, other.surfaceViewpoint, to * 3, 3);
+		System.arraycopy(parkingOrbitViewpoint, from * 3, other.parkingOrbitViewpoint, to * 3, 3);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+package space.planet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The delta-v needed to travel between every pair of planets, indexed by planet id.
+ * Transfers only depend on the orbit parameters of each planet, so the table is built once when a planet list is loaded.
+ */
+public class TransferTable
+{
+	private final int planetCount;
+	private final double[] deltaV;
+	
+	private TransferTable(int planetCount_)
+	{
+		planetCount = planetCount_;
+		deltaV = new double[planetCount * planetCount];
+	}
+	
+	/**
+	 * Build the transfer table for the given planet list and give it to each planet. Planet ids must already match their index in the list.
+	 */
+	public static void bind(ArrayList<Planet> planetList)
+	{
+		int count = planetList.size();
+		TransferTable table = new TransferTable(count);
+		boolean[] ancestors = new boolean[count];
+		
+		for(int i = 0; i < count; i++)
+		{
+			Planet from = planetList.get(i);
+			Arrays.fill(ancestors, false);
+			
+			for(Planet p = from; p != null; p = p.getParent())
+				ancestors[p.getID()] = true;
+			
+			for(int j = 0; j < count; j++)
+			{
+				Planet to = planetList.get(j);
+				Planet ancestor = to;
+				
+				while(ancestor != null && !ancestors[ancestor.getID()])
+					ancestor = ancestor.getParent();
+				
+				table.deltaV[i * count + j] = ancestor == null ? Double.POSITIVE_INFINITY : from.dVToPlanet(to, ancestor);
+			}
+		}
+		
+		for(Planet p : planetList)
+			p.bindTransferTable(table);
+	}
+	
+	/**
+	 * Get the delta-v required for travel from a parking orbit around one planet to another.
+	 */
+	public double getDeltaV(int from, int to)
+	{
+		return deltaV[from * planetCount + to];
+	}
+}
\ No newline at end of file
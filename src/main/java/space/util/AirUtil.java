@@ -4,7 +4,9 @@ import java.util.ArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
@@ -15,24 +17,28 @@ import net.minecraft.entity.LivingEntity;
 import net.minecraft.fluid.FluidState;
 import net.minecraft.item.ItemStack;
 import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
+import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
+import space.StarflightMod;
 import space.block.AtmosphereGeneratorBlock;
-import space.block.OxygenPipeBlock;
 import space.block.OxygenSensorBlock;
 import space.block.SealedDoorBlock;
 import space.block.SealedTrapdoorBlock;
 import space.block.StarflightBlocks;
-import space.block.entity.FluidContainerBlockEntity;
 import space.block.entity.LeakBlockEntity;
-import space.block.entity.OxygenOutletValveBlockEntity;
+import space.fluid.FluidSupply;
 import space.planet.PlanetDimensionData;
 
 public class AirUtil
 {
 	public static final ExecutorService THREAD_POOL = Executors.newFixedThreadPool(1); // For running habitable air updates in a separate thread. 
 	public static final int MAX_VOLUME = 262144;
+	private static final int SNAPSHOT_RADIUS = 32;
+	private static final int MAX_SNAPSHOT_RADIUS = BlockSearch.MAX_DISTANCE + 2;
+	private static final int MAX_ATTEMPTS = 3;
 	
 	/**
 	 * Get the air resistance multiplier for the atmospheric conditions at the given location.
@@ -81,23 +87,103 @@ public class AirUtil
 	/**
 	 * Find a closed volume that can be filled with habitable air. Return true if one is found.
 	 */
-	public static boolean findVolume(World world, BlockPos position, ArrayList<BlockPos> checkList, ArrayList<BlockPos> updateList, int limit)
+	public static boolean findVolume(BlockView world, BlockPos position, ArrayList<BlockPos> checkList, ArrayList<BlockPos> updateList, int limit)
 	{
-		BiPredicate<World, BlockPos> include = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> include = (w, p) -> {
 			return !airBlocking(w, p);
 		};
 		
-		BiPredicate<World, BlockPos> passThrough = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> passThrough = (w, p) -> {
 			return w.getBlockState(p).getBlock() != Blocks.AIR;
 		};
 		
-		BiPredicate<World, BlockPos> edgeCase = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> edgeCase = (w, p) -> {
 			return w.getBlockState(p).getBlock() == StarflightBlocks.ATMOSPHERE_GENERATOR || w.getBlockState(p).getBlock() == StarflightBlocks.OXYGEN_SENSOR;
 		};
 		
 		return BlockSearch.passThroughSearch(world, position, checkList, updateList, include, edgeCase, passThrough, limit, true);
 	}
 	
+	/**
+	 * Search for a closed volume and for the atmosphere generators and habitable air next to it without changing the world.
+	 * Safe to call from a separate thread when the given block view is a snapshot.
+	 */
+	public static VolumeSearchResult searchVolume(BlockView world, BlockPos position)
+	{
+		ArrayList<BlockPos> volumeList = new ArrayList<BlockPos>();
+		ArrayList<BlockPos> updateList = new ArrayList<BlockPos>();
+		LongOpenHashSet generatorSet = new LongOpenHashSet();
+		boolean foundVolume = findVolume(world, position, volumeList, updateList, BlockSearch.MAX_VOLUME);
+		int breachVolume = 0;
+		
+		if(foundVolume)
+		{
+			if(volumeList.size() >= 3)
+				BlockSearch.sourceSearch(world, position, new LongOpenHashSet(), generatorSet);
+		}
+		else
+		{
+			BiPredicate<BlockView, BlockPos> include = (w, p) -> {
+				BlockState blockState = w.getBlockState(p);
+				return blockState.getBlock() != Blocks.AIR && (!airBlocking(w, p) || blockState.getBlock() == StarflightBlocks.HABITABLE_AIR);
+			};
+			
+			ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
+			BlockSearch.search(world, position, checkList, include, BlockSearch.MAX_VOLUME, true);
+			breachVolume = checkList.size();
+		}
+		
+		return new VolumeSearchResult(foundVolume, volumeList, updateList, generatorSet, breachVolume);
+	}
+	
+	/**
+	 * Run searchVolume() in a separate thread on a snapshot of the chunk sections around the given position and pass the result to the callback on the server thread.
+	 * The search is repeated if any block in the snapshot changed before the result is applied, and falls back to searching the world directly if the snapshot keeps changing or does not cover the search.
+	 */
+	public static void findVolumeAsync(ServerWorld world, BlockPos position, Consumer<VolumeSearchResult> callback)
+	{
+		findVolumeAsync(world, position.toImmutable(), callback, SNAPSHOT_RADIUS, 1);
+	}
+	
+	private static void findVolumeAsync(ServerWorld world, BlockPos position, Consumer<VolumeSearchResult> callback, int radius, int attempt)
+	{
+		if(attempt > MAX_ATTEMPTS)
+		{
+			callback.accept(searchVolume(world, position));
+			return;
+		}
+		
+		BlockSnapshot snapshot = new BlockSnapshot(world, position, radius);
+		
+		THREAD_POOL.execute(() -> {
+			VolumeSearchResult result = null;
+			
+			try
+			{
+				result = searchVolume(snapshot, position);
+			}
+			catch(Exception e)
+			{
+				StarflightMod.LOGGER.error("Habitable air volume search failed at " + position, e);
+			}
+			
+			VolumeSearchResult snapshotResult = result;
+			
+			world.getServer().execute(() -> {
+				boolean unchanged = snapshot.release();
+				
+				if(snapshotResult == null || (snapshot.isExceeded() && radius >= MAX_SNAPSHOT_RADIUS))
+					callback.accept(searchVolume(world, position));
+				else if(snapshot.isExceeded())
+					findVolumeAsync(world, position, callback, MAX_SNAPSHOT_RADIUS, attempt + 1);
+				else if(!unchanged)
+					findVolumeAsync(world, position, callback, radius, attempt + 1);
+				else
+					callback.accept(snapshotResult);
+			});
+		});
+	}
+	
 	/**
 	 * Fill the provided list of block positions with habitable air.
 	 */
@@ -127,12 +213,12 @@ public class AirUtil
 	 */
 	public static void remove(World world, BlockPos position, int limit)
 	{
-		BiPredicate<World, BlockPos> include = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> include = (w, p) -> {
 			BlockState blockState = w.getBlockState(p);
 			return blockState.getBlock() != Blocks.AIR && (!AirUtil.airBlocking(w, p) || blockState.isIn(StarflightBlocks.INSTANT_REMOVE_TAG) || blockState.getBlock() == StarflightBlocks.HABITABLE_AIR || blockState.getBlock() == StarflightBlocks.LEAK);
 		};
 		
-		BiPredicate<World, BlockPos> edgeCase = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> edgeCase = (w, p) -> {
 			BlockState blockState = w.getBlockState(p);
 			return blockState.getBlock() == StarflightBlocks.ATMOSPHERE_GENERATOR || blockState.getBlock() == StarflightBlocks.OXYGEN_SENSOR;
 		};
@@ -177,12 +263,12 @@ public class AirUtil
 	 */
 	public static void removeOrLeak(World world, BlockPos position, BlockPos leakPosition, int leakTime, int limit)
 	{
-		BiPredicate<World, BlockPos> include = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> include = (w, p) -> {
 			BlockState blockState = w.getBlockState(p);
 			return blockState.getBlock() != Blocks.AIR && (!AirUtil.airBlocking(w, p) || blockState.isIn(StarflightBlocks.INSTANT_REMOVE_TAG) || blockState.getBlock() == StarflightBlocks.HABITABLE_AIR);
 		};
 		
-		BiPredicate<World, BlockPos> edgeCase = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> edgeCase = (w, p) -> {
 			BlockState blockState = w.getBlockState(p);
 			return blockState.getBlock() == StarflightBlocks.ATMOSPHERE_GENERATOR || blockState.getBlock() == StarflightBlocks.OXYGEN_SENSOR;
 		};
@@ -231,13 +317,13 @@ public class AirUtil
 	/**
 	 * Returns true if the block at the given location is a valid wall for a closed volume.
 	 */
-	public static boolean airBlocking(World world, BlockPos position)
+	public static boolean airBlocking(BlockView world, BlockPos position)
 	{
 		BlockState blockState = world.getBlockState(position);
 		return airBlockingState(world, position, blockState);
 	}
 	
-	public static boolean airBlockingState(World world, BlockPos position, BlockState blockState)
+	public static boolean airBlockingState(BlockView world, BlockPos position, BlockState blockState)
 	{
 		Block block = blockState.getBlock();
 		
@@ -281,12 +367,11 @@ public class AirUtil
 	{
 		if(world.getBlockState(pos).getBlock() == activeBlock)
 		{
-			ArrayList<BlockPos> checkList = new ArrayList<BlockPos>();
-			double supply = searchSupply(world, pos, checkList, BlockSearch.MAX_VOLUME, activeBlock);
+			FluidSupply supply = FluidSupply.find(world, pos, "oxygen");
 			
-			if(supply >= required)
+			if(supply.getStoredFluid() >= required)
 			{
-				useSupply(world, checkList, required);
+				supply.use(required);
 				return true;
 			}
 			else
@@ -296,89 +381,6 @@ public class AirUtil
 			return false;
 	}
 	
-	/**
-	 * Find the total amount of oxygen available from connected pipes and tanks in kilograms.
-	 */
-	public static double searchSupply(World world, BlockPos position, ArrayList<BlockPos> checkList, int limit, Block activeBlock)
-	{
-		BiPredicate<World, BlockPos> include = (w, p) -> {
-			BlockState blockState = world.getBlockState(p);
-			return blockState.getBlock() instanceof OxygenPipeBlock || blockState.getBlock() == StarflightBlocks.OXYGEN_OUTLET_VALVE || blockState.getBlock() == activeBlock;
-		};
-		
-		BlockSearch.search(world, position, checkList, include, BlockSearch.MAX_VOLUME, false);
-		double oxygen = 0;
-		
-		for(BlockPos pos : checkList)
-		{
-			BlockState blockState = world.getBlockState(pos);
-			BlockEntity blockEntity = world.getBlockEntity(pos);
-			
-			if(blockEntity != null)
-			{
-				if(blockState.getBlock() instanceof OxygenPipeBlock)
-				{
-					FluidContainerBlockEntity fluidContainerBlockEntity = (FluidContainerBlockEntity) blockEntity;
-					oxygen += fluidContainerBlockEntity.getStoredFluid();
-				}
-				else if(blockState.getBlock() == StarflightBlocks.OXYGEN_OUTLET_VALVE)
-				{
-					OxygenOutletValveBlockEntity oxygenOutletValveBlockEntity = (OxygenOutletValveBlockEntity) blockEntity;
-					
-					if(oxygenOutletValveBlockEntity.getFluidTankController() != null)
-						oxygen += oxygenOutletValveBlockEntity.getFluidTankController().getStoredFluid();
-				}
-			}
-		}
-		
-		return oxygen;
-	}
-	
-	/**
-	 * Deplete the required amount of oxygen from connected pipes and tanks.
-	 */
-	public static void useSupply(World world, ArrayList<BlockPos> actionList, double toUse)
-	{
-		for(BlockPos pos : actionList)
-		{
-			BlockState blockState = world.getBlockState(pos);
-			
-			if(blockState.getBlock() instanceof OxygenPipeBlock)
-			{
-				FluidContainerBlockEntity blockEntity = (FluidContainerBlockEntity) world.getBlockEntity(pos);
-				
-				if(toUse < blockEntity.getStoredFluid())
-				{
-					blockEntity.changeStoredFluid(-toUse);
-					return;
-				}
-				else
-				{
-					toUse -= blockEntity.getStoredFluid();
-					blockEntity.changeStoredFluid(-blockEntity.getStoredFluid());
-				}
-			}
-			else if(blockState.getBlock() == StarflightBlocks.OXYGEN_OUTLET_VALVE)
-			{
-				OxygenOutletValveBlockEntity blockEntity = (OxygenOutletValveBlockEntity) world.getBlockEntity(pos);
-				
-				if(blockEntity.getFluidTankController() != null)
-				{
-					if(toUse < blockEntity.getFluidTankController().getStoredFluid())
-					{
-						blockEntity.getFluidTankController().changeStoredFluid(-toUse);
-						return;
-					}
-					else
-					{
-						toUse -= blockEntity.getFluidTankController().getStoredFluid();
-						blockEntity.getFluidTankController().setStoredFluid(0.0);
-					}
-				}
-			}
-		}
-	}
-	
 	public static void createLeak(World world, BlockPos pos, int leakTime)
 	{
 		BlockState blockState = world.getBlockState(pos);
@@ -390,4 +392,53 @@ public class AirUtil
 		if(blockEntity instanceof LeakBlockEntity)
 			((LeakBlockEntity) blockEntity).setLeakTime(leakTime);
 	}
+	
+	/**
+	 * The result of a habitable air volume search. When no closed volume is found, the breach volume is the number of connected habitable air blocks that would escape.
+	 */
+	public static class VolumeSearchResult
+	{
+		private final boolean foundVolume;
+		private final ArrayList<BlockPos> volumeList;
+		private final ArrayList<BlockPos> updateList;
+		private final LongOpenHashSet generatorSet;
+		private final int breachVolume;
+		
+		public VolumeSearchResult(boolean foundVolume_, ArrayList<BlockPos> volumeList_, ArrayList<BlockPos> updateList_, LongOpenHashSet generatorSet_, int breachVolume_)
+		{
+			foundVolume = foundVolume_;
+			volumeList = volumeList_;
+			updateList = updateList_;
+			generatorSet = generatorSet_;
+			breachVolume = breachVolume_;
+		}
+		
+		public boolean foundVolume()
+		{
+			return foundVolume;
+		}
+		
+		public ArrayList<BlockPos> getVolumeList()
+		{
+			return volumeList;
+		}
+		
+		public ArrayList<BlockPos> getUpdateList()
+		{
+			return updateList;
+		}
+		
+		/**
+		 * Get the packed positions of atmosphere generator blocks next to the habitable air connected to the search position. Their block entities are not checked.
+		 */
+		public LongOpenHashSet getGeneratorSet()
+		{
+			return generatorSet;
+		}
+		
+		public int getBreachVolume()
+		{
+			return breachVolume;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package space.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.LongConsumer;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+
+/**
+ * Records which chunk sections have had block changes while any block snapshot is in use, so that results computed from a snapshot in a separate thread can be validated before they are applied.
+ * Changes are only recorded while at least one snapshot is active and all methods are called from the server thread.
+ * Watched regions are also marked by the first block change inside them, so cached results about the blocks in a region can be kept until it changes.
+ * A watch with a listener is told about every block change inside its region instead, so parts of a cached result can be dropped without recomputing the rest.
+ */
+public class BlockChangeTracker
+{
+	private static HashMap<RegistryKey<World>, Long2LongOpenHashMap> sectionChanges = new HashMap<RegistryKey<World>, Long2LongOpenHashMap>();
+	private static HashMap<RegistryKey<World>, Set<Watch>> watches = new HashMap<RegistryKey<World>, Set<Watch>>();
+	private static long changeCount;
+	private static int activeSnapshots;
+	
+	/**
+	 * Start tracking block changes for a new snapshot and return the change count to compare against later.
+	 */
+	public static long begin()
+	{
+		activeSnapshots++;
+		return changeCount;
+	}
+	
+	/**
+	 * Stop tracking block changes for a snapshot. Recorded changes are discarded once no snapshots remain.
+	 */
+	public static void end()
+	{
+		activeSnapshots--;
+		
+		if(activeSnapshots <= 0)
+		{
+			activeSnapshots = 0;
+			sectionChanges.clear();
+		}
+	}
+	
+	/**
+	 * Discard all recorded changes and watched regions, such as when the server is stopping and pending snapshots will never be released.
+	 */
+	public static void clear()
+	{
+		activeSnapshots = 0;
+		sectionChanges.clear();
+		watches.clear();
+	}
+	
+	/**
+	 * Start watching a region of a world for block changes. Watches are only weakly held, so one that is dropped by its owner stops being checked.
+	 */
+	public static Watch watch(World world, BlockBox box)
+	{
+		return watch(world, box, null);
+	}
+	
+	/**
+	 * Start watching a region of a world and pass the packed position of every block change inside it to the given listener until it is unwatched.
+	 */
+	public static Watch watch(World world, BlockBox box, LongConsumer listener)
+	{
+		Watch watch = new Watch(box, listener);
+		watches.computeIfAbsent(world.getRegistryKey(), key -> Collections.newSetFromMap(new WeakHashMap<Watch, Boolean>())).add(watch);
+		return watch;
+	}
+	
+	/**
+	 * Stop watching a region before its owner is dropped.
+	 */
+	public static void unwatch(World world, Watch watch)
+	{
+		Set<Watch> worldWatches = watches.get(world.getRegistryKey());
+		
+		if(worldWatches != null)
+			worldWatches.remove(watch);
+	}
+	
+	public static void blockChanged(World world, BlockPos pos)
+	{
+		Set<Watch> worldWatches = watches.get(world.getRegistryKey());
+		
+		if(worldWatches != null && !worldWatches.isEmpty())
+		{
+			Iterator<Watch> iterator = worldWatches.iterator();
+			
+			while(iterator.hasNext())
+			{
+				Watch watch = iterator.next();
+				
+				if(!watch.box.contains(pos))
+					continue;
+				
+				watch.changed = true;
+				
+				// A watch without a listener only needs to see the first change inside its region.
+				if(watch.listener == null)
+					iterator.remove();
+				else
+					watch.listener.accept(pos.asLong());
+			}
+		}
+		
+		if(activeSnapshots == 0)
+			return;
+		
+		changeCount++;
+		sectionChanges.computeIfAbsent(world.getRegistryKey(), key -> new Long2LongOpenHashMap()).put(ChunkSectionPos.toLong(pos), changeCount);
+	}
+	
+	/**
+	 * Return true if any block in the given range of chunk sections has changed since the given change count.
+	 */
+	public static boolean hasChanged(World world, long since, int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+	{
+		Long2LongOpenHashMap changes = sectionChanges.get(world.getRegistryKey());
+		
+		if(changes == null)
+			return false;
+		
+		for(Long2LongMap.Entry entry : changes.long2LongEntrySet())
+		{
+			if(entry.getLongValue() <= since)
+				continue;
+			
+			long section = entry.getLongKey();
+			int x = ChunkSectionPos.unpackX(section);
+			int y = ChunkSectionPos.unpackY(section);
+			int z = ChunkSectionPos.unpackZ(section);
+			
+			if(x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ)
+				return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * A region of a world that is marked once any block inside it changes.
+	 */
+	public static class Watch
+	{
+		private final BlockBox box;
+		private final LongConsumer listener;
+		private boolean changed;
+		
+		private Watch(BlockBox box_, LongConsumer listener_)
+		{
+			box = box_;
+			listener = listener_;
+		}
+		
+		public BlockBox getBox()
+		{
+			return box;
+		}
+		
+		public boolean hasChanged()
+		{
+			return changed;
+		}
+	}
+}
\ No newline at end of file
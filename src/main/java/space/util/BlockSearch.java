@@ -1,17 +1,15 @@
 package space.util;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.function.BiPredicate;
 
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Direction;
+import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldAccess;
 import space.block.StarflightBlocks;
@@ -21,41 +19,16 @@ public class BlockSearch
 {
 	public static final int MAX_VOLUME = 262144;
 	public static final int MAX_DISTANCE = 128;
-	private static final Direction[] DIRECTIONS = Direction.values();
 	
 	/**
 	 * Search the world starting at the given coordinates for coordinates where the BiPredicate returns true.
 	 */
-	public static void search(World world, BlockPos pos, ArrayList<BlockPos> positionList, BiPredicate<World, BlockPos> include, int limit, boolean distanceLimit)
+	public static void search(BlockView world, BlockPos pos, ArrayList<BlockPos> positionList, BiPredicate<BlockView, BlockPos> include, int limit, boolean distanceLimit)
 	{
-		Deque<BlockPos> stack = new ArrayDeque<BlockPos>();
-		Set<BlockPos> set = new HashSet<BlockPos>();
-		stack.push(pos);
+		FloodFill floodFill = new FloodFill();
 		
-		while(stack.size() > 0 && set.size() < limit)
-		{
-			BlockPos blockPos = stack.pop();
-			
-			if(set.contains(blockPos))
-				continue;
-			
-			if(distanceLimit && tooFar(pos, blockPos))
-				return;
-			
-			if(include.test(world, blockPos))
-			{
-				set.add(blockPos);
-				
-				for(Direction direction : DIRECTIONS)
-				{
-					BlockPos offset = blockPos.offset(direction);
-					stack.push(offset);
-				}
-			}
-		}
-		
-		if(set.size() < limit)
-			positionList.addAll(set);
+		if(floodFill.search(view(world), pos, include, null, limit, distanceLimit, true) && floodFill.getVolume().size() < limit)
+			floodFill.addVolumeTo(positionList);
 	}
 	
 	/**
@@ -63,112 +36,35 @@ public class BlockSearch
 	 */
 	public static void search(WorldAccess world, BlockPos pos, ArrayList<BlockPos> positionList, BiPredicate<WorldAccess, BlockPos> include, int limit, boolean distanceLimit)
 	{
-		Deque<BlockPos> stack = new ArrayDeque<BlockPos>();
-		Set<BlockPos> set = new HashSet<BlockPos>();
-		stack.push(pos);
-		
-		while(stack.size() > 0 && set.size() < limit)
-		{
-			BlockPos blockPos = stack.pop();
-			
-			if(set.contains(blockPos))
-				continue;
-			
-			if(distanceLimit && tooFar(pos, blockPos))
-				return;
-			
-			if(include.test(world, blockPos))
-			{
-				set.add(blockPos);
-				
-				for(Direction direction : DIRECTIONS)
-				{
-					BlockPos offset = blockPos.offset(direction);
-					stack.push(offset);
-				}
-			}
-		}
+		FloodFill floodFill = new FloodFill();
 		
-		if(set.size() < limit)
-			positionList.addAll(set);
+		if(floodFill.search(world, pos, include, null, limit, distanceLimit, true) && floodFill.getVolume().size() < limit)
+			floodFill.addVolumeTo(positionList);
 	}
 	
 	/**
 	 * Search the world starting at the given coordinates for coordinates where either BiPredicate returns true, but do not continue searching past edge case coordinates.
 	 */
-	public static void search(World world, BlockPos pos, ArrayList<BlockPos> positionList, BiPredicate<World, BlockPos> include, BiPredicate<World, BlockPos> edgeCase, int limit, boolean distanceLimit)
+	public static void search(BlockView world, BlockPos pos, ArrayList<BlockPos> positionList, BiPredicate<BlockView, BlockPos> include, BiPredicate<BlockView, BlockPos> edgeCase, int limit, boolean distanceLimit)
 	{
-		Deque<BlockPos> stack = new ArrayDeque<BlockPos>();
-		Set<BlockPos> set = new HashSet<BlockPos>();
-		stack.push(pos);
-		
-		while(stack.size() > 0 && set.size() < limit)
-		{
-			BlockPos blockPos = stack.pop();
-			
-			if(set.contains(blockPos))
-				continue;
-			
-			if(distanceLimit && tooFar(pos, blockPos))
-				return;
-			
-			if(include.test(world, blockPos))
-			{
-				set.add(blockPos);
-				
-				for(Direction direction : DIRECTIONS)
-				{
-					BlockPos offset = blockPos.offset(direction);
-					stack.push(offset);
-				}
-			}
-			else if(edgeCase.test(world, blockPos))
-				set.add(blockPos);
-		}
+		FloodFill floodFill = new FloodFill();
 		
-		if(set.size() < limit)
-			positionList.addAll(set);
+		if(floodFill.search(view(world), pos, include, edgeCase, limit, distanceLimit, false) && floodFill.getVolume().size() < limit)
+			floodFill.addVolumeTo(positionList);
 	}
 	
 	/**
 	 * Search the world starting at the given coordinates for coordinates where either BiPredicate returns true, but do not continue searching past edge case coordinates.
 	 * Also add any edge case blocks to a second position list.
 	 */
-	public static void search(World world, BlockPos pos, ArrayList<BlockPos> positionList, ArrayList<BlockPos> foundList, BiPredicate<World, BlockPos> include, BiPredicate<World, BlockPos> edgeCase, int limit, boolean distanceLimit)
+	public static void search(BlockView world, BlockPos pos, ArrayList<BlockPos> positionList, ArrayList<BlockPos> foundList, BiPredicate<BlockView, BlockPos> include, BiPredicate<BlockView, BlockPos> edgeCase, int limit, boolean distanceLimit)
 	{
-		Deque<BlockPos> stack = new ArrayDeque<BlockPos>();
-		Set<BlockPos> set = new HashSet<BlockPos>();
-		Set<BlockPos> foundSet = new HashSet<BlockPos>();
-		stack.push(pos);
-		
-		while(stack.size() > 0 && set.size() < limit)
-		{
-			BlockPos blockPos = stack.pop();
-			
-			if(set.contains(blockPos) || foundSet.contains(blockPos))
-				continue;
-			
-			if(distanceLimit && tooFar(pos, blockPos))
-				return;
-			
-			if(include.test(world, blockPos))
-			{
-				set.add(blockPos);
-				
-				for(Direction direction : DIRECTIONS)
-				{
-					BlockPos offset = blockPos.offset(direction);
-					stack.push(offset);
-				}
-			}
-			else if(edgeCase.test(world, blockPos))
-				foundSet.add(blockPos);
-		}
+		FloodFill floodFill = new FloodFill();
 		
-		if(set.size() < limit)
+		if(floodFill.search(view(world), pos, include, edgeCase, limit, distanceLimit, true) && floodFill.getVolume().size() < limit)
 		{
-			positionList.addAll(set);
-			foundList.addAll(foundSet);
+			floodFill.addVolumeTo(positionList);
+			floodFill.addEdgesTo(foundList);
 		}
 	}
 	
@@ -176,104 +72,73 @@ public class BlockSearch
 	 * Search the world starting at the given coordinates for coordinates where the include BiPredicate returns true and the passThrough BiPredicate returns false.
 	 * Also add any edge case blocks to a second position list.
 	 */
-	public static boolean passThroughSearch(World world, BlockPos pos, ArrayList<BlockPos> positionList, ArrayList<BlockPos> edgeList, BiPredicate<World, BlockPos> include, BiPredicate<World, BlockPos> edgeCase, BiPredicate<World, BlockPos> passThrough, int limit, boolean distanceLimit)
+	public static boolean passThroughSearch(BlockView world, BlockPos pos, ArrayList<BlockPos> positionList, ArrayList<BlockPos> edgeList, BiPredicate<BlockView, BlockPos> include, BiPredicate<BlockView, BlockPos> edgeCase, BiPredicate<BlockView, BlockPos> passThrough, int limit, boolean distanceLimit)
 	{
-		Deque<BlockPos> stack = new ArrayDeque<BlockPos>();
-		Set<BlockPos> set = new HashSet<BlockPos>();
-		Set<BlockPos> edgeSet = new HashSet<BlockPos>();
-		Set<BlockPos> passThroughSet = new HashSet<BlockPos>();
-		stack.push(pos);
+		FloodFill floodFill = new FloodFill();
 		
-		while(stack.size() > 0 && set.size() < limit)
-		{
-			BlockPos blockPos = stack.pop();
-			
-			if(include.test(world, blockPos))
-				set.add(blockPos);
-			
-			if(passThrough.test(world, blockPos))
-				passThroughSet.add(blockPos);
-			
-			if(distanceLimit && tooFar(pos, blockPos))
-				return false;
-			
-			for(Direction direction : DIRECTIONS)
-			{
-				BlockPos offset = blockPos.offset(direction);
-				
-				if(!set.contains(offset) && include.test(world, offset))
-					stack.push(offset);
-				else if(edgeCase.test(world, offset))
-					edgeSet.add(offset);
-			}
-		}
-		
-		if(set.size() <= limit)
-		{
-			set.removeAll(passThroughSet);
-			positionList.addAll(set);
-			edgeList.addAll(edgeSet);
-			return true;
-		}
-		else
+		if(!floodFill.passThroughSearch(view(world), pos, include, edgeCase, passThrough, limit, distanceLimit) || floodFill.getVolume().size() > limit)
 			return false;
+		
+		floodFill.addVolumeTo(positionList);
+		floodFill.addEdgesTo(edgeList);
+		return true;
 	}
 	
 	/**
 	 * Search for powered atmosphere generator blocks in a volume of habitable air.
+	 * The packed positions of the searched volume are added to the given set, and positions already in the set are not searched again.
 	 */
-	public static void sourceSearch(World world, BlockPos pos, Set<BlockPos> set, ArrayList<BlockPos> foundList)
+	public static void sourceSearch(World world, BlockPos pos, LongOpenHashSet set, ArrayList<BlockPos> foundList)
 	{
-		Deque<BlockPos> stack = new ArrayDeque<BlockPos>();
-		Set<BlockPos> foundSet = new HashSet<BlockPos>();
-		stack.push(pos);
+		LongOpenHashSet generatorSet = new LongOpenHashSet();
+		
+		if(!sourceSearch(view(world), pos, set, generatorSet))
+			return;
 		
-		while(stack.size() > 0 && set.size() < AirUtil.MAX_VOLUME)
+		BlockPos.Mutable mutable = new BlockPos.Mutable();
+		LongIterator iterator = generatorSet.iterator();
+		
+		while(iterator.hasNext())
 		{
-			BlockPos blockPos = stack.pop();
-			
-			if(set.contains(blockPos) || foundSet.contains(blockPos))
-				continue;
-			
-			if(tooFar(pos, blockPos))
-				return;
-			
-			BlockState blockState = world.getBlockState(blockPos);
+			BlockEntity blockEntity = world.getBlockEntity(mutable.set(iterator.nextLong()));
 			
-			if(blockState.getBlock() != Blocks.AIR && (!AirUtil.airBlocking(world, blockPos) || blockState.getBlock() == StarflightBlocks.HABITABLE_AIR))
-			{
-				set.add(blockPos);
-				
-				for(Direction direction : DIRECTIONS)
-				{
-					BlockPos offset = blockPos.offset(direction);
-					stack.push(offset);
-				}
-			}
-			else if(blockState.getBlock() == StarflightBlocks.ATMOSPHERE_GENERATOR)
-				foundSet.add(blockPos);
+			if(blockEntity != null && blockEntity instanceof AtmosphereGeneratorBlockEntity)
+				foundList.add(blockEntity.getPos());
 		}
+	}
+	
+	/**
+	 * Search for atmosphere generator blocks next to a volume of habitable air without checking their block entities, such as in a block snapshot.
+	 * Return false if the volume is too large.
+	 */
+	public static boolean sourceSearch(BlockView world, BlockPos pos, LongOpenHashSet set, LongOpenHashSet generatorSet)
+	{
+		BiPredicate<BlockView, BlockPos> include = (w, p) -> {
+			BlockState blockState = w.getBlockState(p);
+			return blockState.getBlock() != Blocks.AIR && (!AirUtil.airBlocking(w, p) || blockState.getBlock() == StarflightBlocks.HABITABLE_AIR);
+		};
 		
-		if(set.size() < AirUtil.MAX_VOLUME)
-		{
-			for(BlockPos blockPos : foundSet)
-			{
-				BlockEntity blockEntity = world.getBlockEntity(blockPos);
-
-				if(blockEntity != null && blockEntity instanceof AtmosphereGeneratorBlockEntity)
-					foundList.add(blockPos);
-			}
-		}
+		BiPredicate<BlockView, BlockPos> edgeCase = (w, p) -> {
+			return w.getBlockState(p).getBlock() == StarflightBlocks.ATMOSPHERE_GENERATOR;
+		};
+		
+		FloodFill floodFill = new FloodFill(set);
+		
+		if(!floodFill.search(world, pos, include, edgeCase, AirUtil.MAX_VOLUME, true, true) || set.size() >= AirUtil.MAX_VOLUME)
+			return false;
+		
+		generatorSet.addAll(floodFill.getEdges());
+		return true;
 	}
 	
 	public static void movingCraftSearch(World world, BlockPos blockPos, ArrayList<BlockPos> positionList, int limit)
 	{
-		BiPredicate<World, BlockPos> include = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> include = (w, p) -> {
 			BlockState b = w.getBlockState(p);
 			return b.getBlock() != Blocks.AIR && !b.isIn(StarflightBlocks.EXCLUDED_BLOCK_TAG) && !b.isIn(StarflightBlocks.EDGE_CASE_TAG);
 		};
 		
-		BiPredicate<World, BlockPos> edgeCase = (w, p) -> {
+		BiPredicate<BlockView, BlockPos> edgeCase = (w, p) -> {
 			BlockState b = w.getBlockState(p);
 			return b.isIn(StarflightBlocks.EDGE_CASE_TAG);
 		};
@@ -281,11 +146,11 @@ public class BlockSearch
 		BlockSearch.search(world, blockPos, positionList, include, edgeCase, limit, true);
 	}
 	
-	private static boolean tooFar(BlockPos pos1, BlockPos pos2)
+	/**
+	 * Read block states of a world through a cached view for the duration of a search. Other block views such as snapshots are used directly.
+	 */
+	private static BlockView view(BlockView world)
 	{
-		int xd = Math.abs(pos1.getX() - pos2.getX());
-		int yd = Math.abs(pos1.getY() - pos2.getY());
-		int zd = Math.abs(pos1.getZ() - pos2.getZ());
-		return xd > MAX_DISTANCE || yd > MAX_DISTANCE || zd > MAX_DISTANCE;
+		return world instanceof World ? new CachedBlockView((World) world) : world;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package space.util;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * An immutable copy of the block states in a cube of chunk sections that can be read from a separate thread.
+ * Blocks outside of the copied sections or in unloaded chunks read as void air, and reading them is recorded so that the caller can retry with a larger snapshot or read the world directly.
+ * Block entities are not copied.
+ */
+public class BlockSnapshot implements BlockView
+{
+	private final ServerWorld world;
+	private final int bottomY;
+	private final int height;
+	private final int minX;
+	private final int minY;
+	private final int minZ;
+	private final int sizeX;
+	private final int sizeY;
+	private final int sizeZ;
+	private final PalettedContainer<BlockState>[] sections;
+	private final boolean[] loaded;
+	private final long changeCount;
+	private volatile boolean exceeded;
+	private boolean released;
+	
+	/**
+	 * Copy the chunk sections within the given radius of a block position. Must be called from the server thread, and release() must be called once the snapshot is no longer used.
+	 */
+	@SuppressWarnings("unchecked")
+	public BlockSnapshot(ServerWorld world_, BlockPos center, int radius)
+	{
+		world = world_;
+		bottomY = world.getBottomY();
+		height = world.getHeight();
+		minX = ChunkSectionPos.getSectionCoord(center.getX() - radius);
+		minY = Math.max(ChunkSectionPos.getSectionCoord(center.getY() - radius), world.getBottomSectionCoord());
+		minZ = ChunkSectionPos.getSectionCoord(center.getZ() - radius);
+		sizeX = ChunkSectionPos.getSectionCoord(center.getX() + radius) - minX + 1;
+		sizeY = Math.max(Math.min(ChunkSectionPos.getSectionCoord(center.getY() + radius), world.getTopSectionCoord() - 1) - minY + 1, 0);
+		sizeZ = ChunkSectionPos.getSectionCoord(center.getZ() + radius) - minZ + 1;
+		sections = new PalettedContainer[sizeX * sizeY * sizeZ];
+		loaded = new boolean[sizeX * sizeZ];
+		changeCount = BlockChangeTracker.begin();
+		
+		for(int x = 0; x < sizeX; x++)
+		{
+			for(int z = 0; z < sizeZ; z++)
+			{
+				WorldChunk chunk = world.getChunkManager().getWorldChunk(minX + x, minZ + z);
+				
+				if(chunk == null)
+					continue;
+				
+				loaded[x * sizeZ + z] = true;
+				
+				for(int y = 0; y < sizeY; y++)
+				{
+					ChunkSection section = chunk.getSection(chunk.sectionCoordToIndex(minY + y));
+					
+					// Empty sections are left null and read as air.
+					if(!section.isEmpty())
+						sections[(x * sizeZ + z) * sizeY + y] = section.getBlockStateContainer().copy();
+				}
+			}
+		}
+	}
+	
+	@Override
+	public BlockState getBlockState(BlockPos pos)
+	{
+		if(pos.getY() < bottomY || pos.getY() >= bottomY + height)
+			return Blocks.VOID_AIR.getDefaultState();
+		
+		int x = ChunkSectionPos.getSectionCoord(pos.getX()) - minX;
+		int y = ChunkSectionPos.getSectionCoord(pos.getY()) - minY;
+		int z = ChunkSectionPos.getSectionCoord(pos.getZ()) - minZ;
+		
+		if(x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ || !loaded[x * sizeZ + z])
+		{
+			exceeded = true;
+			return Blocks.VOID_AIR.getDefaultState();
+		}
+		
+		PalettedContainer<BlockState> section = sections[(x * sizeZ + z) * sizeY + y];
+		
+		if(section == null)
+			return Blocks.AIR.getDefaultState();
+		
+		return section.get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+	}
+	
+	@Override
+	public FluidState getFluidState(BlockPos pos)
+	{
+		return getBlockState(pos).getFluidState();
+	}
+	
+	@Override
+	public BlockEntity getBlockEntity(BlockPos pos)
+	{
+		return null;
+	}
+	
+	@Override
+	public int getHeight()
+	{
+		return height;
+	}
+	
+	@Override
+	public int getBottomY()
+	{
+		return bottomY;
+	}
+	
+	public ServerWorld getWorld()
+	{
+		return world;
+	}
+	
+	/**
+	 * Return true if a block outside of the copied sections or in an unloaded chunk was read.
+	 */
+	public boolean isExceeded()
+	{
+		return exceeded;
+	}
+	
+	/**
+	 * Stop tracking block changes for this snapshot and return true if no block in the copied sections changed since it was taken. Must be called from the server thread.
+	 */
+	public boolean release()
+	{
+		if(released)
+			return false;
+		
+		boolean changed = BlockChangeTracker.hasChanged(world, changeCount, minX, minY, minZ, minX + sizeX - 1, minY + sizeY - 1, minZ + sizeZ - 1);
+		released = true;
+		BlockChangeTracker.end();
+		return !changed;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package space.util;
+
+import java.util.ArrayList;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * A set of block changes applied to a world together, such as when a moving craft is captured or released.
+ * Changes are grouped by chunk and written to each chunk directly. Shape updates are only sent from changed blocks to unchanged neighbors after every change has been written, so blocks inside the changed volume do not update each other.
+ * Lighting checks are queued by the chunks and processed together by the light engine.
+ */
+public class BlockTransaction
+{
+	private final World world;
+	private final Long2ObjectOpenHashMap<ArrayList<BlockPos>> positionsByChunk = new Long2ObjectOpenHashMap<ArrayList<BlockPos>>();
+	private final Long2ObjectOpenHashMap<BlockState> states = new Long2ObjectOpenHashMap<BlockState>();
+	
+	public BlockTransaction(World world_)
+	{
+		world = world_;
+	}
+	
+	/**
+	 * Set the block state at the given position when this transaction is applied. A later change to the same position replaces an earlier one.
+	 */
+	public void setBlockState(BlockPos pos, BlockState state)
+	{
+		if(states.put(pos.asLong(), state) == null)
+			positionsByChunk.computeIfAbsent(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4), key -> new ArrayList<BlockPos>()).add(pos.toImmutable());
+	}
+	
+	public boolean isEmpty()
+	{
+		return states.isEmpty();
+	}
+	
+	/**
+	 * Write all changes to the world and then update the neighbors of the changed volume.
+	 */
+	public void apply()
+	{
+		if(!(world instanceof ServerWorld))
+		{
+			for(ArrayList<BlockPos> positions : positionsByChunk.values())
+			{
+				for(BlockPos pos : positions)
+					world.setBlockState(pos, states.get(pos.asLong()), Block.NOTIFY_LISTENERS);
+			}
+			
+			clear();
+			return;
+		}
+		
+		ServerWorld serverWorld = (ServerWorld) world;
+		ArrayList<BlockPos> changedPositions = new ArrayList<BlockPos>();
+		
+		for(Long2ObjectMap.Entry<ArrayList<BlockPos>> entry : positionsByChunk.long2ObjectEntrySet())
+		{
+			long chunkKey = entry.getLongKey();
+			WorldChunk chunk = serverWorld.getChunk(ChunkPos.getPackedX(chunkKey), ChunkPos.getPackedZ(chunkKey));
+			
+			for(BlockPos pos : entry.getValue())
+			{
+				if(serverWorld.isOutOfHeightLimit(pos))
+					continue;
+				
+				BlockState previousState = chunk.setBlockState(pos, states.get(pos.asLong()), false);
+				
+				if(previousState == null)
+					continue;
+				
+				BlockState newState = chunk.getBlockState(pos);
+				serverWorld.getChunkManager().markForUpdate(pos);
+				serverWorld.onBlockChanged(pos, previousState, newState);
+				BlockChangeTracker.blockChanged(serverWorld, pos);
+				changedPositions.add(pos);
+			}
+		}
+		
+		// Update the shapes of unchanged blocks next to the changed volume.
+		LongOpenHashSet changedSet = new LongOpenHashSet(changedPositions.size());
+		
+		for(BlockPos pos : changedPositions)
+			changedSet.add(pos.asLong());
+		
+		BlockPos.Mutable neighborPos = new BlockPos.Mutable();
+		
+		for(BlockPos pos : changedPositions)
+		{
+			BlockState state = serverWorld.getBlockState(pos);
+			
+			for(Direction direction : Direction.values())
+			{
+				neighborPos.set(pos, direction);
+				
+				if(!changedSet.contains(neighborPos.asLong()))
+					serverWorld.replaceWithStateForNeighborUpdate(direction.getOpposite(), state, neighborPos, pos, Block.NOTIFY_LISTENERS, 512);
+			}
+		}
+		
+		clear();
+	}
+	
+	private void clear()
+	{
+		positionsByChunk.clear();
+		states.clear();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package space.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * A search scoped view of the world that reads block states directly from the palette of the most recently used chunk section and remembers every block state it has read.
+ * It must only be used while the world is not being changed, such as for the duration of a single block search.
+ */
+public class CachedBlockView implements BlockView
+{
+	private final BlockView world;
+	private final SectionReader sectionReader;
+	private final Long2ObjectOpenHashMap<BlockState> blockStates = new Long2ObjectOpenHashMap<BlockState>();
+	private long sectionKey = Long.MAX_VALUE;
+	private PalettedContainer<BlockState> section;
+	
+	public CachedBlockView(World world_)
+	{
+		this(world_, (sectionX, sectionY, sectionZ) -> {
+			WorldChunk chunk = world_.getChunk(sectionX, sectionZ);
+			ChunkSection chunkSection = chunk.getSection(chunk.sectionCoordToIndex(sectionY));
+			return chunkSection.isEmpty() ? null : chunkSection.getBlockStateContainer();
+		});
+	}
+	
+	/**
+	 * Create a view of any block view that reads its chunk sections with the given reader, such as a benchmark without a loaded world.
+	 */
+	public CachedBlockView(BlockView world_, SectionReader sectionReader_)
+	{
+		world = world_;
+		sectionReader = sectionReader_;
+	}
+	
+	@Override
+	public BlockState getBlockState(BlockPos pos)
+	{
+		return getBlockState(pos.asLong());
+	}
+	
+	/**
+	 * Get the block state at the given packed position.
+	 */
+	public BlockState getBlockState(long position)
+	{
+		BlockState blockState = blockStates.get(position);
+		
+		if(blockState == null)
+		{
+			blockState = readBlockState(position);
+			blockStates.put(position, blockState);
+		}
+		
+		return blockState;
+	}
+	
+	private BlockState readBlockState(long position)
+	{
+		int x = BlockPos.unpackLongX(position);
+		int y = BlockPos.unpackLongY(position);
+		int z = BlockPos.unpackLongZ(position);
+		
+		if(world.isOutOfHeightLimit(y))
+			return Blocks.VOID_AIR.getDefaultState();
+		
+		long key = ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4);
+		
+		// Neighbouring blocks are usually in the same chunk section, so the chunk lookup is skipped until the search leaves the section.
+		if(key != sectionKey)
+		{
+			section = sectionReader.getBlockStates(x >> 4, y >> 4, z >> 4);
+			sectionKey = key;
+		}
+		
+		if(section == null)
+			return Blocks.AIR.getDefaultState();
+		
+		return section.get(x & 15, y & 15, z & 15);
+	}
+	
+	@Override
+	public FluidState getFluidState(BlockPos pos)
+	{
+		return getBlockState(pos).getFluidState();
+	}
+	
+	@Override
+	public BlockEntity getBlockEntity(BlockPos pos)
+	{
+		return world.getBlockEntity(pos);
+	}
+	
+	@Override
+	public int getHeight()
+	{
+		return world.getHeight();
+	}
+	
+	@Override
+	public int getBottomY()
+	{
+		return world.getBottomY();
+	}
+	
+	/**
+	 * Reads the block states of the chunk section at the given section coordinates, or null if the section is empty.
+	 */
+	@FunctionalInterface
+	public interface SectionReader
+	{
+		PalettedContainer<BlockState> getBlockStates(int sectionX, int sectionY, int sectionZ);
+	}
+}
\ No newline at end of file
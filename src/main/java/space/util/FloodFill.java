@@ -0,0 +1,184 @@
+package space.util;
+
+import java.util.Collection;
+import java.util.function.BiPredicate;
+import java.util.function.LongConsumer;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+/**
+ * Flood fill over packed block positions using primitive sets and a primitive stack.
+ * Predicates are given a single reused mutable block position, so they must not keep a reference to it.
+ * Results can be visited as packed positions without creating a BlockPos object for each block.
+ */
+public class FloodFill
+{
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private final LongOpenHashSet volume;
+	private final LongOpenHashSet edges = new LongOpenHashSet();
+	private final LongArrayList stack = new LongArrayList();
+	private final BlockPos.Mutable mutable = new BlockPos.Mutable();
+	
+	public FloodFill()
+	{
+		this(new LongOpenHashSet());
+	}
+	
+	/**
+	 * Use the given set for the searched volume. Positions already in the set are treated as visited.
+	 */
+	public FloodFill(LongOpenHashSet volume_)
+	{
+		volume = volume_;
+	}
+	
+	/**
+	 * Search starting at the given coordinates for coordinates where include returns true. Coordinates where include is false but edgeCase is true are not searched past.
+	 * Edge cases are kept separately when separateEdges is true and are otherwise added to the volume.
+	 * Returns false if the search was stopped early by the distance limit.
+	 */
+	public <W> boolean search(W world, BlockPos start, BiPredicate<W, BlockPos> include, BiPredicate<W, BlockPos> edgeCase, int limit, boolean distanceLimit, boolean separateEdges)
+	{
+		stack.clear();
+		stack.push(start.asLong());
+		
+		while(!stack.isEmpty() && volume.size() < limit)
+		{
+			long position = stack.popLong();
+			
+			if(volume.contains(position) || edges.contains(position))
+				continue;
+			
+			if(distanceLimit && tooFar(start, position))
+				return false;
+			
+			mutable.set(position);
+			
+			if(include.test(world, mutable))
+			{
+				volume.add(position);
+				
+				for(Direction direction : DIRECTIONS)
+					stack.push(BlockPos.offset(position, direction));
+			}
+			else if(edgeCase != null && edgeCase.test(world, mutable))
+			{
+				if(separateEdges)
+					edges.add(position);
+				else
+					volume.add(position);
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Search starting at the given coordinates for coordinates where include returns true, collecting neighbouring edge cases.
+	 * Coordinates where passThrough returns true are searched through but removed from the volume afterwards.
+	 * Returns false if the search was stopped early by the distance limit.
+	 */
+	public <W> boolean passThroughSearch(W world, BlockPos start, BiPredicate<W, BlockPos> include, BiPredicate<W, BlockPos> edgeCase, BiPredicate<W, BlockPos> passThrough, int limit, boolean distanceLimit)
+	{
+		LongOpenHashSet passThroughSet = new LongOpenHashSet();
+		LongOpenHashSet processed = new LongOpenHashSet();
+		stack.clear();
+		stack.push(start.asLong());
+		
+		while(!stack.isEmpty() && volume.size() < limit)
+		{
+			long position = stack.popLong();
+			
+			// A position can be pushed more than once before it is first processed.
+			if(!processed.add(position))
+				continue;
+			
+			mutable.set(position);
+			
+			if(include.test(world, mutable))
+				volume.add(position);
+			
+			if(passThrough.test(world, mutable))
+				passThroughSet.add(position);
+			
+			if(distanceLimit && tooFar(start, position))
+				return false;
+			
+			for(Direction direction : DIRECTIONS)
+			{
+				long offset = BlockPos.offset(position, direction);
+				mutable.set(offset);
+				
+				if(!volume.contains(offset) && include.test(world, mutable))
+					stack.push(offset);
+				else if(edgeCase.test(world, mutable))
+					edges.add(offset);
+			}
+		}
+		
+		volume.removeAll(passThroughSet);
+		return true;
+	}
+	
+	public LongOpenHashSet getVolume()
+	{
+		return volume;
+	}
+	
+	public LongOpenHashSet getEdges()
+	{
+		return edges;
+	}
+	
+	/**
+	 * Visit the packed position of every block in the searched volume.
+	 */
+	public void forEachVolume(LongConsumer visitor)
+	{
+		forEach(volume, visitor);
+	}
+	
+	/**
+	 * Visit the packed position of every edge case block found.
+	 */
+	public void forEachEdge(LongConsumer visitor)
+	{
+		forEach(edges, visitor);
+	}
+	
+	/**
+	 * Add the searched volume to a collection of block positions.
+	 */
+	public void addVolumeTo(Collection<BlockPos> positions)
+	{
+		forEach(volume, position -> positions.add(BlockPos.fromLong(position)));
+	}
+	
+	/**
+	 * Add the edge case blocks found to a collection of block positions.
+	 */
+	public void addEdgesTo(Collection<BlockPos> positions)
+	{
+		forEach(edges, position -> positions.add(BlockPos.fromLong(position)));
+	}
+	
+	private static void forEach(LongOpenHashSet set, LongConsumer visitor)
+	{
+		LongIterator iterator = set.iterator();
+		
+		while(iterator.hasNext())
+			visitor.accept(iterator.nextLong());
+	}
+	
+	private static boolean tooFar(BlockPos start, long position)
+	{
+		int xd = Math.abs(start.getX() - BlockPos.unpackLongX(position));
+		int yd = Math.abs(start.getY() - BlockPos.unpackLongY(position));
+		int zd = Math.abs(start.getZ() - BlockPos.unpackLongZ(position));
+		return xd > BlockSearch.MAX_DISTANCE || yd > BlockSearch.MAX_DISTANCE || zd > BlockSearch.MAX_DISTANCE;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,168 @@
+package space.util;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.World;
+
+/**
+ * Finds the highest ground under a square footprint of block columns starting from the motion blocking heightmap of their chunks.
+ * The heightmap also counts fluids, so columns are only searched below its top until a block that blocks movement is found.
+ * The ground of each column is kept by its packed x and z coordinates, so a footprint that drifts sideways only searches the columns it newly covers.
+ * Columns are watched for block changes in a region around the footprint, including blocks under fluids or overhangs that the heightmap does not show, and a column is searched again after any block in it changes.
+ * Block changes are only seen in server worlds, so nothing is kept in client worlds.
+ */
+public class GroundHeightCache
+{
+	private static final int WATCH_MARGIN = 8;
+	
+	private final Long2IntOpenHashMap columns = new Long2IntOpenHashMap();
+	private World world;
+	private BlockChangeTracker.Watch watch;
+	private int centerX;
+	private int centerZ;
+	private int radius;
+	private int ground;
+	private boolean groundValid;
+	
+	public GroundHeightCache()
+	{
+		columns.defaultReturnValue(Integer.MIN_VALUE);
+	}
+	
+	/**
+	 * Get the y value of the highest block that blocks movement within the given radius of a column, or the bottom of the world if there is none.
+	 */
+	public int getGround(World world_, int centerX_, int centerZ_, int radius_)
+	{
+		if(world_.isClient())
+			return findGround(world_, centerX_, centerZ_, radius_);
+		
+		if(groundValid && world_ == world && centerX_ == centerX && centerZ_ == centerZ && radius_ == radius)
+			return ground;
+		
+		if(world_ != world || !isWatched(centerX_, centerZ_, radius_))
+			watch(world_, centerX_, centerZ_, radius_);
+		
+		centerX = centerX_;
+		centerZ = centerZ_;
+		radius = radius_;
+		ground = world.getBottomY();
+		
+		for(int x = centerX - radius; x <= centerX + radius; x++)
+		{
+			for(int z = centerZ - radius; z <= centerZ + radius; z++)
+			{
+				long key = ChunkPos.toLong(x, z);
+				int columnGround = columns.get(key);
+				
+				if(columnGround == Integer.MIN_VALUE)
+				{
+					columnGround = findGround(world, x, z);
+					columns.put(key, columnGround);
+				}
+				
+				ground = Math.max(ground, columnGround);
+			}
+		}
+		
+		groundValid = true;
+		return ground;
+	}
+	
+	/**
+	 * Get the y value of the highest block that blocks movement within the given radius of a column without keeping anything.
+	 */
+	private static int findGround(World world, int centerX, int centerZ, int radius)
+	{
+		int ground = world.getBottomY();
+		
+		for(int x = centerX - radius; x <= centerX + radius; x++)
+		{
+			for(int z = centerZ - radius; z <= centerZ + radius; z++)
+				ground = Math.max(ground, findGround(world, x, z));
+		}
+		
+		return ground;
+	}
+	
+	private boolean isWatched(int centerX_, int centerZ_, int radius_)
+	{
+		if(watch == null)
+			return false;
+		
+		BlockBox box = watch.getBox();
+		return centerX_ - radius_ >= box.getMinX() && centerX_ + radius_ <= box.getMaxX() && centerZ_ - radius_ >= box.getMinZ() && centerZ_ + radius_ <= box.getMaxZ();
+	}
+	
+	/**
+	 * Watch the region around a new footprint and drop the columns outside of it, since changes to them are no longer seen.
+	 */
+	private void watch(World world_, int centerX_, int centerZ_, int radius_)
+	{
+		if(watch != null)
+			BlockChangeTracker.unwatch(world, watch);
+		
+		int extent = radius_ + WATCH_MARGIN;
+		BlockBox box = new BlockBox(centerX_ - extent, world_.getBottomY(), centerZ_ - extent, centerX_ + extent, world_.getTopY(), centerZ_ + extent);
+		
+		if(world_ != world)
+			columns.clear();
+		else
+		{
+			LongIterator iterator = columns.keySet().iterator();
+			
+			while(iterator.hasNext())
+			{
+				long key = iterator.nextLong();
+				int x = ChunkPos.getPackedX(key);
+				int z = ChunkPos.getPackedZ(key);
+				
+				if(x < box.getMinX() || x > box.getMaxX() || z < box.getMinZ() || z > box.getMaxZ())
+					iterator.remove();
+			}
+		}
+		
+		world = world_;
+		groundValid = false;
+		watch = BlockChangeTracker.watch(world, box, position -> {
+			columns.remove(ChunkPos.toLong(BlockPos.unpackLongX(position), BlockPos.unpackLongZ(position)));
+			groundValid = false;
+		});
+	}
+	
+	/**
+	 * Get the y value of the highest block that blocks movement in the given column, or the bottom of the world if there is none.
+	 */
+	private static int findGround(World world, int x, int z)
+	{
+		BlockPos.Mutable pos = new BlockPos.Mutable(x, Math.max(world.getTopY(Heightmap.Type.MOTION_BLOCKING, x, z) - 1, world.getBottomY()), z);
+		
+		while(pos.getY() > world.getBottomY() && !world.getBlockState(pos).blocksMovement())
+			pos.move(Direction.DOWN);
+		
+		return pos.getY();
+	}
+	
+	/**
+	 * Get the y value of the highest solid block in the given column above the bottom of the world, or Integer.MIN_VALUE if there is none.
+	 */
+	public static int findSolidGround(World world, int x, int z)
+	{
+		BlockPos.Mutable pos = new BlockPos.Mutable(x, world.getTopY(Heightmap.Type.MOTION_BLOCKING, x, z) - 1, z);
+		
+		while(pos.getY() > world.getBottomY())
+		{
+			if(world.getBlockState(pos).isSolidBlock(world, pos))
+				return pos.getY();
+			
+			pos.move(Direction.DOWN);
+		}
+		
+		return Integer.MIN_VALUE;
+	}
+}
\ No newline at end of file
@@ -5,5 +5,5 @@ import space.planet.PlanetDimensionData;
 public interface IWorldMixin
 {
 	public PlanetDimensionData getPlanetDimensionData();
-	public void clearPlanetDimensionData();
+	public void setPlanetDimensionData(PlanetDimensionData data);
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package space.util;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+/**
+ * A connected volume of habitable air blocks and the atmosphere generators and oxygen sensors next to it.
+ * Volumes are kept up to date by SealedVolumeRegistry as habitable air blocks are added and removed.
+ */
+public class SealedVolume
+{
+	private final int id;
+	private final RegistryKey<World> dimension;
+	private final LongOpenHashSet members = new LongOpenHashSet();
+	private final LongOpenHashSet generators = new LongOpenHashSet();
+	private final LongOpenHashSet sensors = new LongOpenHashSet();
+	private int minX = Integer.MAX_VALUE;
+	private int minY = Integer.MAX_VALUE;
+	private int minZ = Integer.MAX_VALUE;
+	private int maxX = Integer.MIN_VALUE;
+	private int maxY = Integer.MIN_VALUE;
+	private int maxZ = Integer.MIN_VALUE;
+	private boolean fragmented;
+	private boolean verified = true;
+	
+	public SealedVolume(int id_, RegistryKey<World> dimension_)
+	{
+		id = id_;
+		dimension = dimension_;
+	}
+	
+	public int getId()
+	{
+		return id;
+	}
+	
+	public RegistryKey<World> getDimension()
+	{
+		return dimension;
+	}
+	
+	/**
+	 * Get the number of habitable air blocks in this volume.
+	 */
+	public int getSize()
+	{
+		return members.size();
+	}
+	
+	/**
+	 * Get the packed positions of the habitable air blocks in this volume.
+	 */
+	public LongOpenHashSet getMembers()
+	{
+		return members;
+	}
+	
+	/**
+	 * Get the packed positions of atmosphere generators next to this volume. The blocks may have changed since they were recorded.
+	 */
+	public LongOpenHashSet getGenerators()
+	{
+		return generators;
+	}
+	
+	/**
+	 * Get the packed positions of oxygen sensors next to this volume. The blocks may have changed since they were recorded.
+	 */
+	public LongOpenHashSet getSensors()
+	{
+		return sensors;
+	}
+	
+	public BlockBox getBoundingBox()
+	{
+		return new BlockBox(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+	
+	public boolean contains(long position)
+	{
+		return members.contains(position);
+	}
+	
+	/**
+	 * Return true if removed blocks may have split this volume into more than one connected part.
+	 */
+	public boolean isFragmented()
+	{
+		return fragmented;
+	}
+	
+	public void setFragmented(boolean fragmented_)
+	{
+		fragmented = fragmented_;
+	}
+	
+	/**
+	 * Return false if this volume was loaded from a file and has not yet been checked against the blocks in the world.
+	 */
+	public boolean isVerified()
+	{
+		return verified;
+	}
+	
+	public void setVerified(boolean verified_)
+	{
+		verified = verified_;
+	}
+	
+	public void addMember(long position)
+	{
+		members.add(position);
+		int x = BlockPos.unpackLongX(position);
+		int y = BlockPos.unpackLongY(position);
+		int z = BlockPos.unpackLongZ(position);
+		minX = Math.min(minX, x);
+		minY = Math.min(minY, y);
+		minZ = Math.min(minZ, z);
+		maxX = Math.max(maxX, x);
+		maxY = Math.max(maxY, y);
+		maxZ = Math.max(maxZ, z);
+	}
+	
+	/**
+	 * Remove a habitable air block from this volume. The bounding box is only shrunk when the volume is rebuilt.
+	 */
+	public void removeMember(long position)
+	{
+		members.remove(position);
+	}
+}
\ No newline at end of file
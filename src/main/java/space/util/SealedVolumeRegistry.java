@@ -0,0 +1,558 @@
+package space.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.Block;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import space.StarflightMod;
+import space.block.StarflightBlocks;
+
+/**
+ * Keeps track of every connected volume of habitable air in each dimension so that the volume, atmosphere generators and oxygen sensors for a habitable air block can be found without a block search.
+ * Volumes are updated one block at a time as habitable air is added and removed. Volumes that may have been split by a removed block are only separated again when they are next looked up.
+ * The registry is saved with the world in one binary file per dimension.
+ * The file is written separately from the chunks, so after a crash or a restored backup it may not match the world. Loaded volumes are checked against the world the first time they are looked up.
+ */
+public class SealedVolumeRegistry
+{
+	public static final ExecutorService THREAD_POOL = Executors.newFixedThreadPool(1); // For writing sealed volume files in a separate thread.
+	private static final int FORMAT_VERSION = 1;
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static HashMap<RegistryKey<World>, Long2IntOpenHashMap> volumeIds = new HashMap<RegistryKey<World>, Long2IntOpenHashMap>();
+	private static Int2ObjectOpenHashMap<SealedVolume> volumes = new Int2ObjectOpenHashMap<SealedVolume>();
+	private static HashSet<RegistryKey<World>> dirtyDimensions = new HashSet<RegistryKey<World>>();
+	private static int nextId = 1;
+	
+	/**
+	 * Add a habitable air block to the volume of its neighbors, merging volumes it connects, or start a new volume.
+	 */
+	public static void blockAdded(World world, BlockPos pos)
+	{
+		Long2IntOpenHashMap ids = getVolumeIds(world.getRegistryKey());
+		long position = pos.asLong();
+		
+		// The block was not habitable air before, so a registered position is left over from an outdated file.
+		if(ids.containsKey(position))
+			blockRemoved(world, pos);
+		
+		SealedVolume volume = null;
+		
+		for(Direction direction : DIRECTIONS)
+		{
+			SealedVolume neighbor = volumes.get(ids.get(BlockPos.offset(position, direction)));
+			
+			if(neighbor == null || neighbor == volume)
+				continue;
+			
+			// Keep the larger volume and move the blocks of the smaller one into it.
+			if(volume == null)
+				volume = neighbor;
+			else if(neighbor.getSize() > volume.getSize())
+			{
+				merge(ids, neighbor, volume);
+				volume = neighbor;
+			}
+			else
+				merge(ids, volume, neighbor);
+		}
+		
+		if(volume == null)
+			volume = createVolume(world.getRegistryKey());
+		
+		volume.addMember(position);
+		ids.put(position, volume.getId());
+		BlockPos.Mutable mutable = new BlockPos.Mutable();
+		
+		for(Direction direction : DIRECTIONS)
+			addEdge(world, volume, mutable.set(pos, direction));
+		
+		dirtyDimensions.add(world.getRegistryKey());
+	}
+	
+	/**
+	 * Remove a habitable air block from its volume. Atmosphere generators and oxygen sensors that no longer touch the volume are removed with it.
+	 */
+	public static void blockRemoved(World world, BlockPos pos)
+	{
+		Long2IntOpenHashMap ids = getVolumeIds(world.getRegistryKey());
+		long position = pos.asLong();
+		SealedVolume volume = volumes.get(ids.remove(position));
+		
+		if(volume == null)
+			return;
+		
+		volume.removeMember(position);
+		
+		if(volume.getSize() == 0)
+			volumes.remove(volume.getId());
+		else
+		{
+			int connections = 0;
+			
+			for(Direction direction : DIRECTIONS)
+			{
+				if(volume.contains(BlockPos.offset(position, direction)))
+					connections++;
+			}
+			
+			if(connections > 1)
+				volume.setFragmented(true);
+			
+			for(Direction direction : DIRECTIONS)
+			{
+				long offset = BlockPos.offset(position, direction);
+				
+				if(!isNextToMember(volume, offset))
+				{
+					volume.getGenerators().remove(offset);
+					volume.getSensors().remove(offset);
+				}
+			}
+		}
+		
+		dirtyDimensions.add(world.getRegistryKey());
+	}
+	
+	/**
+	 * Record a changed block next to a habitable air block if it is an atmosphere generator or oxygen sensor.
+	 */
+	public static void neighborChanged(World world, BlockPos pos, BlockPos fromPos)
+	{
+		SealedVolume volume = volumes.get(getVolumeIds(world.getRegistryKey()).get(pos.asLong()));
+		
+		if(volume != null && addEdge(world, volume, fromPos))
+			dirtyDimensions.add(world.getRegistryKey());
+	}
+	
+	/**
+	 * Get the volume containing the habitable air block at the given position, or null if it is not registered.
+	 * Also return null if the volume was loaded from a file and can not be checked yet because some of its blocks are in unloaded chunks.
+	 */
+	public static SealedVolume getVolume(World world, BlockPos pos)
+	{
+		Long2IntOpenHashMap ids = getVolumeIds(world.getRegistryKey());
+		long position = pos.asLong();
+		SealedVolume volume = volumes.get(ids.get(position));
+		
+		if(volume != null && !volume.isVerified())
+		{
+			if(!verify(world, ids, volume))
+				return null;
+			
+			volume = volumes.get(ids.get(position));
+		}
+		
+		if(volume != null && volume.isFragmented())
+		{
+			split(ids, volume);
+			volume = volumes.get(ids.get(position));
+		}
+		
+		return volume;
+	}
+	
+	/**
+	 * Write the volumes of every changed dimension to the given directory. Set wait to true to block until the files are written, such as when the server is stopping.
+	 */
+	public static void save(File directory, boolean wait)
+	{
+		ArrayList<DimensionSnapshot> snapshots = new ArrayList<DimensionSnapshot>();
+		
+		for(RegistryKey<World> dimension : dirtyDimensions)
+			snapshots.add(new DimensionSnapshot(dimension));
+		
+		dirtyDimensions.clear();
+		
+		if(snapshots.isEmpty())
+			return;
+		
+		Future<?> future = THREAD_POOL.submit(() -> {
+			for(DimensionSnapshot snapshot : snapshots)
+			{
+				try
+				{
+					snapshot.write(directory);
+				}
+				catch(IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		});
+		
+		if(!wait)
+			return;
+		
+		try
+		{
+			future.get();
+		}
+		catch(InterruptedException | ExecutionException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Load all sealed volumes from the given directory. Worlds saved without sealed volume files start with an empty registry.
+	 */
+	public static void load(File directory)
+	{
+		clear();
+		
+		if(!directory.isDirectory())
+			return;
+		
+		List<Path> files;
+		
+		try(Stream<Path> stream = Files.walk(directory.toPath()))
+		{
+			files = stream.filter(path -> path.getFileName().toString().endsWith(".dat")).toList();
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+			return;
+		}
+		
+		for(Path file : files)
+		{
+			try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file.toFile()))))
+			{
+				int version = input.readInt();
+				
+				if(version != FORMAT_VERSION)
+				{
+					StarflightMod.LOGGER.warn("Skipping sealed volume file " + file + " with unknown version " + version);
+					continue;
+				}
+				
+				RegistryKey<World> dimension = RegistryKey.of(RegistryKeys.WORLD, new Identifier(input.readUTF()));
+				Long2IntOpenHashMap ids = getVolumeIds(dimension);
+				int volumeCount = input.readInt();
+				
+				for(int i = 0; i < volumeCount; i++)
+				{
+					SealedVolume volume = createVolume(dimension);
+					int memberCount = input.readInt();
+					
+					for(int j = 0; j < memberCount; j++)
+					{
+						long position = input.readLong();
+						volume.addMember(position);
+						ids.put(position, volume.getId());
+					}
+					
+					int generatorCount = input.readInt();
+					
+					for(int j = 0; j < generatorCount; j++)
+						volume.getGenerators().add(input.readLong());
+					
+					int sensorCount = input.readInt();
+					
+					for(int j = 0; j < sensorCount; j++)
+						volume.getSensors().add(input.readLong());
+					
+					volume.setVerified(false);
+				}
+			}
+			catch(IOException e)
+			{
+				StarflightMod.LOGGER.error("Failed to read sealed volume file " + file, e);
+			}
+		}
+	}
+	
+	public static void clear()
+	{
+		volumeIds.clear();
+		volumes.clear();
+		dirtyDimensions.clear();
+		nextId = 1;
+	}
+	
+	private static Long2IntOpenHashMap getVolumeIds(RegistryKey<World> dimension)
+	{
+		Long2IntOpenHashMap ids = volumeIds.get(dimension);
+		
+		if(ids == null)
+		{
+			ids = new Long2IntOpenHashMap();
+			volumeIds.put(dimension, ids);
+		}
+		
+		return ids;
+	}
+	
+	private static SealedVolume createVolume(RegistryKey<World> dimension)
+	{
+		SealedVolume volume = new SealedVolume(nextId++, dimension);
+		volumes.put(volume.getId(), volume);
+		return volume;
+	}
+	
+	/**
+	 * Remove the blocks of a loaded volume that are no longer habitable air and the generators and sensors that are missing or no longer next to it.
+	 * Return false without changing anything if any of its blocks are in unloaded chunks.
+	 */
+	private static boolean verify(World world, Long2IntOpenHashMap ids, SealedVolume volume)
+	{
+		BlockPos.Mutable mutable = new BlockPos.Mutable();
+		LongIterator iterator = volume.getMembers().iterator();
+		
+		while(iterator.hasNext())
+		{
+			if(!world.isChunkLoaded(mutable.set(iterator.nextLong())))
+				return false;
+		}
+		
+		LongArrayList removed = new LongArrayList();
+		iterator = volume.getMembers().iterator();
+		
+		while(iterator.hasNext())
+		{
+			long position = iterator.nextLong();
+			
+			if(world.getBlockState(mutable.set(position)).getBlock() != StarflightBlocks.HABITABLE_AIR)
+				removed.add(position);
+		}
+		
+		for(int i = 0; i < removed.size(); i++)
+		{
+			volume.removeMember(removed.getLong(i));
+			ids.remove(removed.getLong(i));
+		}
+		
+		if(!removed.isEmpty())
+			volume.setFragmented(true);
+		
+		if(volume.getSize() == 0)
+			volumes.remove(volume.getId());
+		
+		verifyEdges(world, volume, volume.getGenerators(), StarflightBlocks.ATMOSPHERE_GENERATOR);
+		verifyEdges(world, volume, volume.getSensors(), StarflightBlocks.OXYGEN_SENSOR);
+		volume.setVerified(true);
+		dirtyDimensions.add(volume.getDimension());
+		return true;
+	}
+	
+	private static void verifyEdges(World world, SealedVolume volume, LongOpenHashSet edges, Block block)
+	{
+		BlockPos.Mutable mutable = new BlockPos.Mutable();
+		LongIterator iterator = edges.iterator();
+		
+		while(iterator.hasNext())
+		{
+			long position = iterator.nextLong();
+			
+			if(world.getBlockState(mutable.set(position)).getBlock() != block || !isNextToMember(volume, position))
+				iterator.remove();
+		}
+	}
+	
+	/**
+	 * Move every block of the source volume into the target volume.
+	 */
+	private static void merge(Long2IntOpenHashMap ids, SealedVolume target, SealedVolume source)
+	{
+		LongIterator iterator = source.getMembers().iterator();
+		
+		while(iterator.hasNext())
+		{
+			long position = iterator.nextLong();
+			target.addMember(position);
+			ids.put(position, target.getId());
+		}
+		
+		target.getGenerators().addAll(source.getGenerators());
+		target.getSensors().addAll(source.getSensors());
+		target.setFragmented(target.isFragmented() || source.isFragmented());
+		target.setVerified(target.isVerified() && source.isVerified());
+		volumes.remove(source.getId());
+	}
+	
+	/**
+	 * Separate a fragmented volume into its connected parts by searching its own block set. The world is not read.
+	 */
+	private static void split(Long2IntOpenHashMap ids, SealedVolume volume)
+	{
+		volumes.remove(volume.getId());
+		LongOpenHashSet remaining = new LongOpenHashSet(volume.getMembers());
+		LongArrayList stack = new LongArrayList();
+		ArrayList<SealedVolume> parts = new ArrayList<SealedVolume>();
+		
+		while(!remaining.isEmpty())
+		{
+			long start = remaining.iterator().nextLong();
+			SealedVolume part = createVolume(volume.getDimension());
+			remaining.remove(start);
+			stack.push(start);
+			
+			while(!stack.isEmpty())
+			{
+				long position = stack.popLong();
+				part.addMember(position);
+				ids.put(position, part.getId());
+				
+				for(Direction direction : DIRECTIONS)
+				{
+					long offset = BlockPos.offset(position, direction);
+					
+					if(remaining.remove(offset))
+						stack.push(offset);
+				}
+			}
+			
+			parts.add(part);
+		}
+		
+		for(SealedVolume part : parts)
+		{
+			assignEdges(part, volume.getGenerators(), part.getGenerators());
+			assignEdges(part, volume.getSensors(), part.getSensors());
+		}
+	}
+	
+	/**
+	 * Add the positions next to the given part of a volume to a set.
+	 */
+	private static void assignEdges(SealedVolume part, LongOpenHashSet edges, LongOpenHashSet partEdges)
+	{
+		LongIterator iterator = edges.iterator();
+		
+		while(iterator.hasNext())
+		{
+			long position = iterator.nextLong();
+			
+			if(isNextToMember(part, position))
+				partEdges.add(position);
+		}
+	}
+	
+	/**
+	 * Return true if any block next to the given position belongs to the volume.
+	 */
+	private static boolean isNextToMember(SealedVolume volume, long position)
+	{
+		for(Direction direction : DIRECTIONS)
+		{
+			if(volume.contains(BlockPos.offset(position, direction)))
+				return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Record the block at the given position if it is an atmosphere generator or oxygen sensor. Return true if it was added.
+	 */
+	private static boolean addEdge(World world, SealedVolume volume, BlockPos pos)
+	{
+		Block block = world.getBlockState(pos).getBlock();
+		
+		if(block == StarflightBlocks.ATMOSPHERE_GENERATOR)
+			return volume.getGenerators().add(pos.asLong());
+		else if(block == StarflightBlocks.OXYGEN_SENSOR)
+			return volume.getSensors().add(pos.asLong());
+		
+		return false;
+	}
+	
+	/**
+	 * A copy of the sealed volumes in one dimension that can be written without touching the live registry.
+	 */
+	private static class DimensionSnapshot
+	{
+		private final String dimension;
+		private final ArrayList<long[]> members = new ArrayList<long[]>();
+		private final ArrayList<long[]> generators = new ArrayList<long[]>();
+		private final ArrayList<long[]> sensors = new ArrayList<long[]>();
+		
+		public DimensionSnapshot(RegistryKey<World> dimension_)
+		{
+			dimension = dimension_.getValue().toString();
+			
+			for(SealedVolume volume : volumes.values())
+			{
+				if(volume.getDimension() != dimension_)
+					continue;
+				
+				members.add(volume.getMembers().toLongArray());
+				generators.add(volume.getGenerators().toLongArray());
+				sensors.add(volume.getSensors().toLongArray());
+			}
+		}
+		
+		/**
+		 * Write this dimension to a temporary file and move it into place, or delete the file if the dimension has no volumes.
+		 */
+		public void write(File directory) throws IOException
+		{
+			Identifier identifier = new Identifier(dimension);
+			Path folder = directory.toPath().resolve(identifier.getNamespace());
+			Path file = folder.resolve(identifier.getPath().replace('/', '.') + ".dat");
+			
+			if(members.isEmpty())
+			{
+				Files.deleteIfExists(file);
+				return;
+			}
+			
+			Files.createDirectories(folder);
+			Path temporaryFile = folder.resolve(identifier.getPath().replace('/', '.') + ".tmp");
+			
+			try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile.toFile()))))
+			{
+				output.writeInt(FORMAT_VERSION);
+				output.writeUTF(dimension);
+				output.writeInt(members.size());
+				
+				for(int i = 0; i < members.size(); i++)
+				{
+					writePositions(output, members.get(i));
+					writePositions(output, generators.get(i));
+					writePositions(output, sensors.get(i));
+				}
+			}
+			
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		
+		private static void writePositions(DataOutputStream output, long[] positions) throws IOException
+		{
+			output.writeInt(positions.length);
+			
+			for(long position : positions)
+				output.writeLong(position);
+		}
+	}
+}
\ No newline at end of file
@@ -1,17 +1,24 @@
 package space.vessel;
 
+import it.unimi.dsi.fastutil.objects.Object2DoubleOpenHashMap;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
-import net.minecraft.block.entity.HopperBlockEntity;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.BlockItem;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Box;
 import net.minecraft.world.World;
 
+/**
+ * Block and item masses are found from the volume of their outline shapes and kept for each block state and item until the next data pack reload.
+ */
 public class BlockMass
 {
+	private static final Object2DoubleOpenHashMap<BlockState> STATE_MASSES = new Object2DoubleOpenHashMap<BlockState>();
+	private static final Object2DoubleOpenHashMap<Item> ITEM_MASSES = new Object2DoubleOpenHashMap<Item>();
+	
 	private static double volumeForBlock(BlockState blockState, World world, BlockPos pos)
 	{
 		double volume = 0;
@@ -22,35 +29,65 @@ public class BlockMass
 		return volume;
 	}
 	
-	public static double getMass(World world, BlockPos pos)
+	/**
+	 * Get the mass of a block state without any contents. Assume a density of 100kg per cubic meter for all full blocks.
+	 */
+	private static double getStateMass(BlockState blockState, World world, BlockPos pos)
+	{
+		if(!STATE_MASSES.containsKey(blockState))
+			STATE_MASSES.put(blockState, volumeForBlock(blockState, world, pos) * 100.0);
+		
+		return STATE_MASSES.getDouble(blockState);
+	}
+	
+	/**
+	 * Get the mass of a single item. Block items weigh as much as their block and all other items weigh 10kg.
+	 */
+	private static double getItemMass(Item item, World world, BlockPos pos)
 	{
-		BlockState blockState = world.getBlockState(pos);
+		if(!ITEM_MASSES.containsKey(item))
+			ITEM_MASSES.put(item, item instanceof BlockItem ? volumeForBlock(((BlockItem) item).getBlock().getDefaultState(), world, pos) * 100.0 : 10.0);
 		
+		return ITEM_MASSES.getDouble(item);
+	}
+	
+	/**
+	 * Discard all stored masses, such as when a data pack reload may have changed blocks or items.
+	 */
+	public static void clearCache()
+	{
+		STATE_MASSES.clear();
+		ITEM_MASSES.clear();
+	}
+	
+	public static double getMass(World world, BlockPos pos)
+	{
+		return getMass(world, pos, world.getBlockState(pos), world.getBlockEntity(pos));
+	}
+	
+	/**
+	 * Get the mass of a block and the contents of its inventory from a block state and block entity that have already been looked up.
+	 */
+	public static double getMass(World world, BlockPos pos, BlockState blockState, BlockEntity blockEntity)
+	{
 		if(blockState.isAir())
 			return 0.0;
 		
-		double mass = volumeForBlock(blockState, world, pos) * 100.0; // Assume a density of 100kg per cubic meter for all full blocks.
-		BlockEntity blockEntity = world.getBlockEntity(pos);
-	
-		// If the block has a block entity, check for an inventory using the same function as hoppers.
-		if(blockEntity != null)
+		double mass = getStateMass(blockState, world, pos);
+		
+		// Blocks with an inventory are assumed to be mostly hollow.
+		if(blockEntity instanceof Inventory)
     	{
-			Inventory inventory = HopperBlockEntity.getInventoryAt(world, pos);
-			
-			if(inventory != null)
-			{
-				mass *= 0.25;
-				
-	    		for(int i = 0; i < inventory.size(); i++)
-	    		{
-	    			ItemStack stack = inventory.getStack(i);
-	    			
-	    			if(stack.getItem() instanceof BlockItem)
-	    				mass += stack.getCount() * volumeForBlock(((BlockItem) stack.getItem()).getBlock().getDefaultState(), world, pos) * 100.0;
-	    			else
-	    				mass += stack.getCount() * 10.0;
-	    		}
-			}
+			Inventory inventory = (Inventory) blockEntity;
+			mass *= 0.25;
+
+    		for(int i = 0; i < inventory.size(); i++)
+    		{
+    			ItemStack stack = inventory.getStack(i);
+
+    			if(!stack.isEmpty())
+    				mass += stack.getCount() * getItemMass(stack.getItem(), world, pos);
+    		}
     	}
 		
 		return mass;
@@ -0,0 +1,81 @@
+package space.vessel;
+
+import java.util.ArrayList;
+
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import space.util.BlockChangeTracker;
+import space.util.BlockSearch;
+
+/**
+ * The blocks and totals of a craft found by a search from its controller, kept until a block changes in or near the craft.
+ * Checking the craft again while it is unchanged only counts the contents of its tanks and inventories.
+ */
+public class CraftModel
+{
+	// Redstone power can reach a block from two blocks away and new blocks can attach one block outside the craft.
+	private static final int MARGIN = 2;
+	private final World world;
+	private final ArrayList<BlockPos> positionList;
+	private final CraftScan scan;
+	private final BlockChangeTracker.Watch watch;
+	
+	private CraftModel(World world_, ArrayList<BlockPos> positionList_, CraftScan scan_, BlockChangeTracker.Watch watch_)
+	{
+		world = world_;
+		positionList = positionList_;
+		scan = scan_;
+		watch = watch_;
+	}
+	
+	/**
+	 * Search for the blocks of the craft attached to the given controller position. Return null if the craft is too large.
+	 */
+	public static CraftModel build(World world, BlockPos controllerPos)
+	{
+		ArrayList<BlockPos> positionList = new ArrayList<BlockPos>();
+		BlockSearch.movingCraftSearch(world, controllerPos, positionList, BlockSearch.MAX_VOLUME);
+		
+		if(positionList.size() >= BlockSearch.MAX_VOLUME)
+			return null;
+		
+		CraftScan scan = new CraftScan(world);
+		
+		for(BlockPos pos : positionList)
+			scan.add(pos);
+		
+		BlockBox box = positionList.isEmpty() ? new BlockBox(controllerPos) : BlockBox.create(scan.getMin(), scan.getMax());
+		return new CraftModel(world, positionList, scan, BlockChangeTracker.watch(world, box.expand(MARGIN)));
+	}
+	
+	/**
+	 * Return true if no block has changed near the craft and its tanks and inventories are still loaded.
+	 */
+	public boolean isValid()
+	{
+		return !watch.hasChanged() && scan.isLoaded();
+	}
+	
+	/**
+	 * Get the totals of the craft with the current contents of its tanks and inventories.
+	 */
+	public CraftScan refresh()
+	{
+		scan.refresh();
+		return scan;
+	}
+	
+	public ArrayList<BlockPos> getPositionList()
+	{
+		return positionList;
+	}
+	
+	/**
+	 * Stop watching the craft for block changes.
+	 */
+	public void discard()
+	{
+		BlockChangeTracker.unwatch(world, watch);
+	}
+}
\ No newline at end of file
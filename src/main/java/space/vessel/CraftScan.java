@@ -0,0 +1,242 @@
+package space.vessel;
+
+import java.util.ArrayList;
+
+import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.world.World;
+import space.block.RocketThrusterBlock;
+import space.block.entity.FluidTankControllerBlockEntity;
+import space.block.entity.HydrogenTankBlockEntity;
+import space.block.entity.OxygenTankBlockEntity;
+import space.planet.PlanetDimensionData;
+import space.planet.PlanetList;
+
+/**
+ * Accumulates the mass, center of mass, propellant, thrust and extents of a craft in a single pass over its blocks.
+ * Each block state, block entity and redstone power level is only looked up once.
+ * Tanks and inventories are kept so their contents can be counted again by refresh() without scanning the other blocks.
+ */
+public class CraftScan
+{
+	private final World world;
+	private final double pressure;
+	private final ArrayList<BlockEntity> containers = new ArrayList<BlockEntity>();
+	private final BooleanArrayList containersPowered = new BooleanArrayList();
+	private double blockMass;
+	private double blockMassX;
+	private double blockMassY;
+	private double blockMassZ;
+	private double contentMass;
+	private double contentMassX;
+	private double contentMassY;
+	private double contentMassZ;
+	private double hydrogen;
+	private double hydrogenCapacity;
+	private double oxygen;
+	private double oxygenCapacity;
+	private double thrust;
+	private double thrustVacuum;
+	private double massFlow;
+	private int minX = Integer.MAX_VALUE;
+	private int minY = Integer.MAX_VALUE;
+	private int minZ = Integer.MAX_VALUE;
+	private int maxX = Integer.MIN_VALUE;
+	private int maxY = Integer.MIN_VALUE;
+	private int maxZ = Integer.MIN_VALUE;
+	
+	public CraftScan(World world_)
+	{
+		world = world_;
+		PlanetDimensionData data = PlanetList.getDimensionDataForWorld(world);
+		pressure = data != null && !data.isOrbit() ? data.getPressure() : 0.0;
+	}
+	
+	/**
+	 * Add the block at the given position to the craft.
+	 */
+	public void add(BlockPos pos)
+	{
+		BlockState blockState = world.getBlockState(pos);
+		BlockEntity blockEntity = world.getBlockEntity(pos);
+		boolean redstone = world.isReceivingRedstonePower(pos);
+		
+		// The mass of an inventory block depends on its contents, so it is counted along with them.
+		if(!(blockEntity instanceof Inventory))
+		{
+			double m = BlockMass.getMass(world, pos, blockState, blockEntity);
+			blockMass += m;
+			blockMassX += m * pos.getX();
+			blockMassY += m * pos.getY();
+			blockMassZ += m * pos.getZ();
+		}
+		
+		// Blocks taller than one block extend the craft downward.
+		VoxelShape blockShape = blockState.getCollisionShape(world, pos);
+		int bottomY = blockShape.isEmpty() ? pos.getY() : (int) (pos.getY() - blockShape.getBoundingBox().getYLength() + 1);
+		minX = Math.min(minX, pos.getX());
+		minY = Math.min(minY, bottomY);
+		minZ = Math.min(minZ, pos.getZ());
+		maxX = Math.max(maxX, pos.getX());
+		maxY = Math.max(maxY, pos.getY());
+		maxZ = Math.max(maxZ, pos.getZ());
+		
+		if(blockEntity instanceof Inventory || blockEntity instanceof HydrogenTankBlockEntity || blockEntity instanceof OxygenTankBlockEntity)
+		{
+			containers.add(blockEntity);
+			containersPowered.add(redstone);
+			addContents(blockEntity, redstone);
+		}
+		else if(blockEntity == null && blockState.getBlock() instanceof RocketThrusterBlock && !redstone)
+		{
+			RocketThrusterBlock thruster = (RocketThrusterBlock) blockState.getBlock();
+			thrust += thruster.getThrust(pressure);
+			thrustVacuum += thruster.getThrust(0.0);
+			massFlow += thruster.getMassFlow();
+		}
+	}
+	
+	/**
+	 * Count the current contents of the tanks and inventories of the craft again. Their blocks and redstone power are assumed not to have changed.
+	 */
+	public void refresh()
+	{
+		contentMass = 0.0;
+		contentMassX = 0.0;
+		contentMassY = 0.0;
+		contentMassZ = 0.0;
+		hydrogen = 0.0;
+		hydrogenCapacity = 0.0;
+		oxygen = 0.0;
+		oxygenCapacity = 0.0;
+		
+		for(int i = 0; i < containers.size(); i++)
+			addContents(containers.get(i), containersPowered.getBoolean(i));
+	}
+	
+	/**
+	 * Return false if any tank or inventory of the craft has been removed from the world, such as by its chunk unloading.
+	 */
+	public boolean isLoaded()
+	{
+		for(BlockEntity blockEntity : containers)
+		{
+			if(blockEntity.isRemoved())
+				return false;
+		}
+		
+		return true;
+	}
+	
+	private void addContents(BlockEntity blockEntity, boolean redstone)
+	{
+		if(blockEntity instanceof Inventory)
+		{
+			BlockPos pos = blockEntity.getPos();
+			addContentMass(BlockMass.getMass(world, pos, blockEntity.getCachedState(), blockEntity), pos.getX(), pos.getY(), pos.getZ());
+		}
+		
+		if(blockEntity instanceof HydrogenTankBlockEntity)
+		{
+			HydrogenTankBlockEntity hydrogenTank = (HydrogenTankBlockEntity) blockEntity;
+			
+			if(!redstone)
+			{
+				hydrogen += hydrogenTank.getStoredFluid();
+				hydrogenCapacity += hydrogenTank.getStorageCapacity();
+			}
+			
+			addFluidMass(hydrogenTank);
+		}
+		else if(blockEntity instanceof OxygenTankBlockEntity)
+		{
+			OxygenTankBlockEntity oxygenTank = (OxygenTankBlockEntity) blockEntity;
+			
+			if(!redstone)
+			{
+				oxygen += oxygenTank.getStoredFluid();
+				oxygenCapacity += oxygenTank.getStorageCapacity();
+			}
+			
+			addFluidMass(oxygenTank);
+		}
+	}
+	
+	private void addFluidMass(FluidTankControllerBlockEntity fluidTank)
+	{
+		BlockPos center = fluidTank.getCenterOfMass();
+		addContentMass(fluidTank.getStoredFluid(), center.getX() + 0.5, center.getY() + 0.5, center.getZ() + 0.5);
+	}
+	
+	private void addContentMass(double m, double x, double y, double z)
+	{
+		contentMass += m;
+		contentMassX += m * x;
+		contentMassY += m * y;
+		contentMassZ += m * z;
+	}
+	
+	public double getMass()
+	{
+		return blockMass + contentMass;
+	}
+	
+	public Vec3d getCenterOfMass()
+	{
+		double mass = getMass();
+		return new Vec3d((blockMassX + contentMassX) / mass, (blockMassY + contentMassY) / mass, (blockMassZ + contentMassZ) / mass);
+	}
+	
+	public double getHydrogen()
+	{
+		return hydrogen;
+	}
+	
+	public double getHydrogenCapacity()
+	{
+		return hydrogenCapacity;
+	}
+	
+	public double getOxygen()
+	{
+		return oxygen;
+	}
+	
+	public double getOxygenCapacity()
+	{
+		return oxygenCapacity;
+	}
+	
+	/**
+	 * Total thrust of all thrusters at the atmospheric pressure of the world.
+	 */
+	public double getThrust()
+	{
+		return thrust;
+	}
+	
+	public double getThrustVacuum()
+	{
+		return thrustVacuum;
+	}
+	
+	public double getMassFlow()
+	{
+		return massFlow;
+	}
+	
+	public BlockPos getMin()
+	{
+		return new BlockPos(minX, minY, minZ);
+	}
+	
+	public BlockPos getMax()
+	{
+		return new BlockPos(maxX, maxY, maxZ);
+	}
+}
\ No newline at end of file
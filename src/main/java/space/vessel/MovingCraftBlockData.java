@@ -24,6 +24,7 @@ import space.block.FluidTankInsideBlock;
 import space.block.SolarHubBlock;
 import space.block.StarflightBlocks;
 import space.block.entity.FluidTankControllerBlockEntity;
+import space.util.BlockTransaction;
 import space.util.BooleanByteUtil;
 
 public class MovingCraftBlockData
@@ -88,7 +89,10 @@ public class MovingCraftBlockData
 		return new MovingCraftBlockData(blockState, blockPos.subtract(centerPos), blockEntityData, sidesShowing, placeFirst, world.isReceivingRedstonePower(blockPos), storedFluid);
 	}
 	
-	public void toBlock(World world, BlockPos centerPos, int rotationSteps)
+	/**
+	 * Add this block to the given transaction at its position in the world. Return true if the block will be placed and needs onPlaced() once the transaction is applied.
+	 */
+	public boolean toBlock(World world, BlockTransaction transaction, BlockPos centerPos, int rotationSteps)
 	{
 		if(blockState.getProperties().contains(HorizontalFacingBlock.FACING))
 		{
@@ -116,13 +120,13 @@ public class MovingCraftBlockData
 				blockEntity.readNbt(blockEntityData);
 			
             Block.dropStacks(blockState, world, blockPos, blockEntity, null, ItemStack.EMPTY);
-            return;
+            return false;
 		}
 		
 		if(blockState.getBlock() instanceof FluidTankInsideBlock)
 		{
-			world.setBlockState(blockPos, Blocks.AIR.getDefaultState(), Block.NOTIFY_LISTENERS);
-			return;
+			transaction.setBlockState(blockPos, Blocks.AIR.getDefaultState());
+			return false;
 		}
 		else if(blockState.getBlock() instanceof Waterloggable)
 		{
@@ -130,12 +134,30 @@ public class MovingCraftBlockData
 			blockState = blockState.with(Properties.WATERLOGGED, fluidState.getFluid() == Fluids.WATER && fluidState.isStill());
 		}
 		
-		world.setBlockState(blockPos, blockState, Block.NOTIFY_LISTENERS);
+		transaction.setBlockState(blockPos, blockState);
+		return true;
+	}
+	
+	/**
+	 * Load the block entity data of this block and connect it to energy networks after it has been placed.
+	 */
+	public void onPlaced(World world, BlockPos centerPos, int rotationSteps)
+	{
+		BlockRotation rotation = BlockRotation.NONE;
+		
+		for(int i = 0; i < rotationSteps; i++)
+			rotation = rotation.rotate(BlockRotation.CLOCKWISE_90);
+		
+		BlockPos blockPos = centerPos.add(position.rotate(rotation));
 		BlockEntity blockEntity = world.getBlockEntity(blockPos);
 		
 		if(blockEntity != null && blockEntityData != null)
 			blockEntity.readNbt(blockEntityData);
 		
+		// Keep the cached tank geometry aligned with the released blocks.
+		if(blockEntity instanceof FluidTankControllerBlockEntity && ((FluidTankControllerBlockEntity) blockEntity).getGeometry() != null)
+			((FluidTankControllerBlockEntity) blockEntity).getGeometry().rotate(rotation);
+		
 		if(blockState.getBlock() instanceof EnergyBlock)
 		{
 			((EnergyBlock) blockState.getBlock()).addNode(world, blockPos);
@@ -14,13 +14,14 @@ import net.minecraft.block.HorizontalFacingBlock;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.OverlayTexture;
+import net.minecraft.client.render.RenderLayer;
 import net.minecraft.client.render.RenderLayers;
 import net.minecraft.client.render.VertexConsumer;
 import net.minecraft.client.render.VertexConsumerProvider;
 import net.minecraft.client.render.WorldRenderer;
 import net.minecraft.client.render.block.BlockModelRenderer;
 import net.minecraft.client.render.block.BlockRenderManager;
-import net.minecraft.client.render.block.entity.BlockEntityRenderDispatcher;
+import net.minecraft.client.render.block.entity.BlockEntityRenderer;
 import net.minecraft.client.render.model.BakedModel;
 import net.minecraft.client.render.model.BakedQuad;
 import net.minecraft.client.util.math.MatrixStack;
@@ -29,7 +30,6 @@ import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.BlockRenderView;
 import net.minecraft.world.World;
-import space.entity.MovingCraftEntity;
 import space.mixin.client.BlockModelRendererMixin;
 
 @Environment(value=EnvType.CLIENT)
@@ -40,6 +40,7 @@ public class MovingCraftBlockRenderData
 	private BlockPos position;
 	private boolean redstone;
 	private boolean[] sidesShowing = new boolean[6];
+	private BlockEntity blockEntity;
 	
 	public MovingCraftBlockRenderData(BlockState blockState, BlockPos position, boolean redstone, boolean[] sidesShowing)
 	{
@@ -87,39 +88,62 @@ public class MovingCraftBlockRenderData
 		}
 	}
 	
-	public void renderBlock(BlockRenderView world, MovingCraftEntity entity, MatrixStack matrixStack, VertexConsumerProvider vertexConsumerProvider, Random random, BlockPos centerBlockPos, BlockPos centerBlockPosInitial, int lightLevel, float craftYaw)
+	/**
+	 * Animated block entities are rendered every frame. All other blocks are baked into the mesh of their craft.
+	 */
+	public boolean isAnimated()
 	{
-		// Block entity render.
-		if(blockState.getRenderType() == BlockRenderType.ENTITYBLOCK_ANIMATED && blockState.getBlock() instanceof BlockWithEntity)
+		return blockState.getRenderType() == BlockRenderType.ENTITYBLOCK_ANIMATED && blockState.getBlock() instanceof BlockWithEntity;
+	}
+	
+	public RenderLayer getRenderLayer()
+	{
+		return RenderLayers.getMovingBlockLayer(blockState);
+	}
+	
+	public void renderBlockEntity(BlockRenderView world, MatrixStack matrixStack, VertexConsumerProvider vertexConsumerProvider, BlockPos centerBlockPos, BlockPos centerBlockPosInitial)
+	{
+		// Create the block entity once and keep it for later frames.
+		if(blockEntity == null)
 		{
-			BlockWithEntity blockWithEntity = (BlockWithEntity) blockState.getBlock();
-			BlockEntity blockEntity = blockWithEntity.createBlockEntity(position.add(centerBlockPosInitial), blockState);
-			blockEntity.setWorld((World) world);
-			BlockEntityRenderDispatcher blockEntityRenderDispatcher = MinecraftClient.getInstance().getBlockEntityRenderDispatcher();
-			int light = WorldRenderer.getLightmapCoordinates(world, blockState, position.add(centerBlockPos));
-			matrixStack.push();
-			matrixStack.translate(position.getX(), position.getY(), position.getZ());
+			blockEntity = ((BlockWithEntity) blockState.getBlock()).createBlockEntity(position.add(centerBlockPosInitial), blockState);
 			
-			if(blockState.getProperties().contains(HorizontalFacingBlock.FACING))
-			{
-				Direction direction = blockState.get(HorizontalFacingBlock.FACING).getOpposite();
-				matrixStack.multiply(new Quaternionf().rotationY(direction == Direction.NORTH || direction == Direction.SOUTH ? direction.asRotation() + 180.0f : direction.asRotation()));
-			}
-			
-			matrixStack.translate(-0.5, 0.0, -0.5);
-			blockEntityRenderDispatcher.get(blockEntity).render(blockEntity, 0.0F, matrixStack, vertexConsumerProvider, light, OverlayTexture.DEFAULT_UV);
-			matrixStack.pop();
+			if(blockEntity == null)
+				return;
+		}
+		
+		blockEntity.setWorld((World) world);
+		BlockEntityRenderer<BlockEntity> blockEntityRenderer = MinecraftClient.getInstance().getBlockEntityRenderDispatcher().get(blockEntity);
+		
+		if(blockEntityRenderer == null)
 			return;
+		
+		int light = WorldRenderer.getLightmapCoordinates(world, blockState, position.add(centerBlockPos));
+		matrixStack.push();
+		matrixStack.translate(position.getX(), position.getY(), position.getZ());
+		
+		if(blockState.getProperties().contains(HorizontalFacingBlock.FACING))
+		{
+			Direction direction = blockState.get(HorizontalFacingBlock.FACING).getOpposite();
+			matrixStack.multiply(new Quaternionf().rotationY(direction == Direction.NORTH || direction == Direction.SOUTH ? direction.asRotation() + 180.0f : direction.asRotation()));
 		}
 		
-		// Block model render.
-		if(blockState.getRenderType() != BlockRenderType.MODEL || blockState.getRenderType() == BlockRenderType.INVISIBLE)
+		matrixStack.translate(-0.5, 0.0, -0.5);
+		blockEntityRenderer.render(blockEntity, 0.0F, matrixStack, vertexConsumerProvider, light, OverlayTexture.DEFAULT_UV);
+		matrixStack.pop();
+	}
+	
+	/**
+	 * Add the visible quads of this block's model to the given vertex consumer in the coordinates of its craft, either while baking a mesh or for drawing in the current frame.
+	 */
+	public void bakeModel(BlockRenderView world, MatrixStack matrixStack, VertexConsumer vertexConsumer, Random random, BlockPos centerBlockPosInitial, int lightLevel)
+	{
+		if(blockState.getRenderType() != BlockRenderType.MODEL)
 			return;
 		
 		BlockRenderManager blockRenderManager = MinecraftClient.getInstance().getBlockRenderManager();
 		BlockModelRenderer blockModelRenderer = blockRenderManager.getModelRenderer();
 		BitSet bitSet = new BitSet(3);
-		VertexConsumer vertexConsumer = vertexConsumerProvider.getBuffer(RenderLayers.getMovingBlockLayer(blockState));
         BakedModel model = blockRenderManager.getModel(blockState);
         matrixStack.push();
         matrixStack.translate(position.getX() - 0.5, position.getY(), position.getZ() - 0.5);
@@ -0,0 +1,150 @@
+package space.vessel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.joml.Matrix4f;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.gl.VertexBuffer;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.render.chunk.BlockBufferBuilderStorage;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.world.BlockRenderView;
+
+/**
+ * The blocks of a moving craft baked into one vertex buffer for each render layer, so the whole craft is drawn with a few draw calls each frame.
+ * Animated block entities can not be baked and are rendered separately every frame.
+ * Translucent blocks are also submitted every frame so they are still sorted by distance from the camera.
+ * The light level of the craft is baked into the vertices, so the mesh has to be built again when it changes.
+ */
+@Environment(value=EnvType.CLIENT)
+public class MovingCraftMesh
+{
+	private static BlockBufferBuilderStorage builderStorage;
+	private final ArrayList<RenderLayer> layers = new ArrayList<RenderLayer>();
+	private final ArrayList<VertexBuffer> buffers = new ArrayList<VertexBuffer>();
+	private final ArrayList<MovingCraftBlockRenderData> animatedBlocks = new ArrayList<MovingCraftBlockRenderData>();
+	private final ArrayList<MovingCraftBlockRenderData> translucentBlocks = new ArrayList<MovingCraftBlockRenderData>();
+	private final Random random = Random.create();
+	private final int lightLevel;
+	
+	private MovingCraftMesh(int lightLevel_)
+	{
+		lightLevel = lightLevel_;
+	}
+	
+	/**
+	 * Build the mesh of a craft from its render data. This must be called on the render thread.
+	 */
+	public static MovingCraftMesh build(ArrayList<MovingCraftBlockRenderData> blockList, BlockRenderView world, BlockPos centerBlockPosInitial, int lightLevel)
+	{
+		if(builderStorage == null)
+			builderStorage = new BlockBufferBuilderStorage();
+		
+		MovingCraftMesh mesh = new MovingCraftMesh(lightLevel);
+		HashMap<RenderLayer, BufferBuilder> builders = new HashMap<RenderLayer, BufferBuilder>();
+		MatrixStack matrixStack = new MatrixStack();
+		Random random = Random.create();
+		
+		for(MovingCraftBlockRenderData blockData : blockList)
+		{
+			if(blockData.isAnimated())
+			{
+				mesh.animatedBlocks.add(blockData);
+				continue;
+			}
+			
+			RenderLayer layer = blockData.getRenderLayer();
+			
+			if(layer == RenderLayer.getTranslucentMovingBlock())
+			{
+				mesh.translucentBlocks.add(blockData);
+				continue;
+			}
+			
+			BufferBuilder bufferBuilder = builders.get(layer);
+			
+			if(bufferBuilder == null)
+			{
+				bufferBuilder = builderStorage.get(layer);
+				
+				if(bufferBuilder == null)
+					continue;
+				
+				bufferBuilder.begin(layer.getDrawMode(), layer.getVertexFormat());
+				builders.put(layer, bufferBuilder);
+				mesh.layers.add(layer);
+			}
+			
+			blockData.bakeModel(world, matrixStack, bufferBuilder, random, centerBlockPosInitial, lightLevel);
+		}
+		
+		for(RenderLayer layer : mesh.layers)
+		{
+			BufferBuilder.BuiltBuffer builtBuffer = builders.get(layer).end();
+			VertexBuffer vertexBuffer = new VertexBuffer(VertexBuffer.Usage.STATIC);
+			vertexBuffer.bind();
+			vertexBuffer.upload(builtBuffer);
+			mesh.buffers.add(vertexBuffer);
+		}
+		
+		VertexBuffer.unbind();
+		return mesh;
+	}
+	
+	public int getLightLevel()
+	{
+		return lightLevel;
+	}
+	
+	/**
+	 * Draw the baked blocks and render the animated block entities and translucent blocks of the craft.
+	 */
+	public void render(BlockRenderView world, MatrixStack matrixStack, VertexConsumerProvider vertexConsumerProvider, BlockPos centerBlockPos, BlockPos centerBlockPosInitial)
+	{
+		Matrix4f positionMatrix = matrixStack.peek().getPositionMatrix();
+		
+		for(int i = 0; i < layers.size(); i++)
+		{
+			RenderLayer layer = layers.get(i);
+			VertexBuffer vertexBuffer = buffers.get(i);
+			layer.startDrawing();
+			vertexBuffer.bind();
+			vertexBuffer.draw(positionMatrix, RenderSystem.getProjectionMatrix(), RenderSystem.getShader());
+			VertexBuffer.unbind();
+			layer.endDrawing();
+		}
+		
+		for(MovingCraftBlockRenderData blockData : animatedBlocks)
+			blockData.renderBlockEntity(world, matrixStack, vertexConsumerProvider, centerBlockPos, centerBlockPosInitial);
+		
+		if(translucentBlocks.isEmpty())
+			return;
+		
+		VertexConsumer vertexConsumer = vertexConsumerProvider.getBuffer(RenderLayer.getTranslucentMovingBlock());
+		
+		for(MovingCraftBlockRenderData blockData : translucentBlocks)
+			blockData.bakeModel(world, matrixStack, vertexConsumer, random, centerBlockPosInitial, lightLevel);
+	}
+	
+	/**
+	 * Release the vertex buffers of this mesh.
+	 */
+	public void close()
+	{
+		for(VertexBuffer vertexBuffer : buffers)
+			vertexBuffer.close();
+		
+		buffers.clear();
+		layers.clear();
+	}
+}
\ No newline at end of file
@@ -7,27 +7,58 @@ import java.util.UUID;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.networking.v1.PacketSender;
-import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
-import net.minecraft.nbt.NbtHelper;
 import net.minecraft.network.PacketByteBuf;
-import net.minecraft.registry.RegistryKeys;
-import net.minecraft.util.math.BlockPos;
 
 @Environment(value=EnvType.CLIENT)
 public class MovingCraftRenderList
 {
 	private static HashMap<UUID, ArrayList<MovingCraftBlockRenderData>> craftList = new HashMap<UUID, ArrayList<MovingCraftBlockRenderData>>();
+	private static HashMap<UUID, MovingCraftMesh> meshList = new HashMap<UUID, MovingCraftMesh>();
+	private static HashMap<UUID, byte[]> pendingData = new HashMap<UUID, byte[]>(); // Render data still being received. Only used by the network thread.
 	
 	public static void addCraft(UUID entityUUID, ArrayList<MovingCraftBlockRenderData> blockList)
 	{
 		craftList.put(entityUUID, blockList);
+		setMesh(entityUUID, null);
 	}
 	
 	public static void removeCraft(UUID entityUUID)
 	{
 		craftList.remove(entityUUID);
+		setMesh(entityUUID, null);
+	}
+	
+	/**
+	 * Get the baked mesh of a craft, or null if it has not been built yet.
+	 */
+	public static MovingCraftMesh getMesh(UUID entityUUID)
+	{
+		return meshList.get(entityUUID);
+	}
+	
+	/**
+	 * Replace the baked mesh of a craft and release the vertex buffers of the previous one.
+	 */
+	public static void setMesh(UUID entityUUID, MovingCraftMesh mesh)
+	{
+		MovingCraftMesh previous = mesh == null ? meshList.remove(entityUUID) : meshList.put(entityUUID, mesh);
+		
+		if(previous != null)
+			previous.close();
+	}
+	
+	/**
+	 * Discard the render data of every craft and release their vertex buffers, such as when disconnecting from a server.
+	 */
+	public static void clear()
+	{
+		for(MovingCraftMesh mesh : meshList.values())
+			mesh.close();
+		
+		craftList.clear();
+		meshList.clear();
 	}
 	
 	public static boolean hasBlocksForEntity(UUID entityUUID)
@@ -47,25 +78,36 @@ public class MovingCraftRenderList
 		
 		if(b)
 		{
-			int blockCount = buffer.readInt();
-			ArrayList<MovingCraftBlockRenderData> blockList = new ArrayList<MovingCraftBlockRenderData>();
+			// Render data arrives in chunks. Decode it once the last chunk has been received.
+			int totalLength = buffer.readInt();
+			int offset = buffer.readInt();
+			int length = buffer.readInt();
+			byte[] data = offset == 0 ? new byte[totalLength] : pendingData.get(entityUUID);
 			
-			for(int i = 0; i < blockCount; i++)
+			if(data == null || data.length != totalLength || offset + length > totalLength)
 			{
-				BlockState blockState = NbtHelper.toBlockState(client.world.createCommandRegistryWrapper(RegistryKeys.BLOCK), buffer.readNbt());
-				BlockPos blockPos = buffer.readBlockPos();
-				boolean redstone = buffer.readBoolean();
-				boolean[] sidesShowing = new boolean[6];
-				
-				for(int j = 0; j < 6; j++)
-					sidesShowing[j] = buffer.readBoolean();
-				
-				blockList.add(new MovingCraftBlockRenderData(blockState, blockPos, redstone, sidesShowing));
+				pendingData.remove(entityUUID);
+				return;
 			}
 			
-			client.execute(() -> craftList.put(entityUUID, blockList));
+			buffer.readBytes(data, offset, length);
+			
+			if(offset + length < totalLength)
+			{
+				pendingData.put(entityUUID, data);
+				return;
+			}
+			
+			pendingData.remove(entityUUID);
+			ArrayList<MovingCraftBlockRenderData> blockList = MovingCraftRenderPacket.decode(data);
+			
+			if(blockList != null)
+				client.execute(() -> addCraft(entityUUID, blockList));
 		}
 		else
-			client.execute(() -> craftList.remove(entityUUID));
+		{
+			pendingData.remove(entityUUID);
+			client.execute(() -> removeCraft(entityUUID));
+		}
 	}
 }
\ No newline at end of file
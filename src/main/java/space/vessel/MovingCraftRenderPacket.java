@@ -0,0 +1,213 @@
+package space.vessel;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Compact encoding of the blocks of a moving craft for rendering on clients.
+ * Block states are stored by raw id in a palette for each craft, positions are packed into one index within the bounding box of the craft, and visible sides and redstone power share one byte.
+ * The encoded data is compressed and sent in chunks of at most CHUNK_SIZE bytes, one chunk per player each tick.
+ */
+public class MovingCraftRenderPacket
+{
+	public static final int CHUNK_SIZE = 32768;
+	private static final int REDSTONE_BIT = 1 << 6;
+	
+	/**
+	 * Encode and compress the render data of the given blocks.
+	 */
+	public static byte[] encode(ArrayList<MovingCraftBlockData> blockDataList)
+	{
+		Object2IntOpenHashMap<BlockState> paletteIndices = new Object2IntOpenHashMap<BlockState>();
+		IntArrayList palette = new IntArrayList();
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int minZ = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxZ = Integer.MIN_VALUE;
+		
+		for(MovingCraftBlockData data : blockDataList)
+		{
+			BlockPos pos = data.getPosition();
+			minX = Math.min(minX, pos.getX());
+			minY = Math.min(minY, pos.getY());
+			minZ = Math.min(minZ, pos.getZ());
+			maxX = Math.max(maxX, pos.getX());
+			maxZ = Math.max(maxZ, pos.getZ());
+			
+			if(!paletteIndices.containsKey(data.getBlockState()))
+			{
+				paletteIndices.put(data.getBlockState(), palette.size());
+				palette.add(Block.getRawIdFromState(data.getBlockState()));
+			}
+		}
+		
+		int sizeX = blockDataList.isEmpty() ? 0 : maxX - minX + 1;
+		int sizeZ = blockDataList.isEmpty() ? 0 : maxZ - minZ + 1;
+		PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer());
+		buffer.writeVarInt(palette.size());
+		
+		for(int i = 0; i < palette.size(); i++)
+			buffer.writeVarInt(palette.getInt(i));
+		
+		buffer.writeInt(minX);
+		buffer.writeInt(minY);
+		buffer.writeInt(minZ);
+		buffer.writeVarInt(sizeX);
+		buffer.writeVarInt(sizeZ);
+		buffer.writeVarInt(blockDataList.size());
+		
+		for(MovingCraftBlockData data : blockDataList)
+		{
+			BlockPos pos = data.getPosition();
+			int flags = data.redstonePower() ? REDSTONE_BIT : 0;
+			
+			for(int i = 0; i < 6; i++)
+			{
+				if(data.getSidesShowing()[i])
+					flags |= 1 << i;
+			}
+			
+			buffer.writeVarInt(paletteIndices.getInt(data.getBlockState()));
+			buffer.writeVarInt(((pos.getY() - minY) * sizeZ + (pos.getZ() - minZ)) * sizeX + (pos.getX() - minX));
+			buffer.writeByte(flags);
+		}
+		
+		byte[] uncompressed = new byte[buffer.readableBytes()];
+		buffer.readBytes(uncompressed);
+		buffer.release();
+		return compress(uncompressed);
+	}
+	
+	/**
+	 * Decompress and decode render data. Return null if the data is not valid.
+	 */
+	@Environment(value=EnvType.CLIENT)
+	public static ArrayList<MovingCraftBlockRenderData> decode(byte[] data)
+	{
+		byte[] uncompressed = decompress(data);
+		
+		if(uncompressed == null)
+			return null;
+		
+		PacketByteBuf buffer = new PacketByteBuf(Unpooled.wrappedBuffer(uncompressed));
+		
+		try
+		{
+			int paletteSize = buffer.readVarInt();
+			BlockState[] palette = new BlockState[paletteSize];
+			
+			for(int i = 0; i < paletteSize; i++)
+				palette[i] = Block.getStateFromRawId(buffer.readVarInt());
+			
+			int minX = buffer.readInt();
+			int minY = buffer.readInt();
+			int minZ = buffer.readInt();
+			int sizeX = buffer.readVarInt();
+			int sizeZ = buffer.readVarInt();
+			int blockCount = buffer.readVarInt();
+			ArrayList<MovingCraftBlockRenderData> blockList = new ArrayList<MovingCraftBlockRenderData>(blockCount);
+			boolean[] sidesShowing = new boolean[6];
+			
+			for(int i = 0; i < blockCount; i++)
+			{
+				BlockState blockState = palette[buffer.readVarInt()];
+				int index = buffer.readVarInt();
+				int flags = buffer.readUnsignedByte();
+				int x = index % sizeX;
+				int z = (index / sizeX) % sizeZ;
+				int y = index / (sizeX * sizeZ);
+				
+				for(int j = 0; j < 6; j++)
+					sidesShowing[j] = (flags & (1 << j)) != 0;
+				
+				blockList.add(new MovingCraftBlockRenderData(blockState, new BlockPos(minX + x, minY + y, minZ + z), (flags & REDSTONE_BIT) != 0, sidesShowing));
+			}
+			
+			return blockList;
+		}
+		catch(IndexOutOfBoundsException | ArithmeticException e)
+		{
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	private static byte[] compress(byte[] input)
+	{
+		Deflater deflater = new Deflater();
+		deflater.setInput(input);
+		deflater.finish();
+		ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 4 + 16);
+		byte[] block = new byte[8192];
+		
+		// Start with the uncompressed length so the client can allocate the output at once.
+		output.write(input.length >>> 24);
+		output.write(input.length >>> 16);
+		output.write(input.length >>> 8);
+		output.write(input.length);
+		
+		while(!deflater.finished())
+		{
+			int length = deflater.deflate(block);
+			output.write(block, 0, length);
+		}
+		
+		deflater.end();
+		return output.toByteArray();
+	}
+	
+	private static byte[] decompress(byte[] input)
+	{
+		if(input.length < 4)
+			return null;
+		
+		int length = ((input[0] & 0xFF) << 24) | ((input[1] & 0xFF) << 16) | ((input[2] & 0xFF) << 8) | (input[3] & 0xFF);
+		
+		if(length < 0)
+			return null;
+		
+		Inflater inflater = new Inflater();
+		inflater.setInput(input, 4, input.length - 4);
+		byte[] output = new byte[length];
+		
+		try
+		{
+			int offset = 0;
+			
+			while(offset < length && !inflater.finished())
+			{
+				int inflated = inflater.inflate(output, offset, length - offset);
+				
+				if(inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					return null;
+				
+				offset += inflated;
+			}
+			
+			return offset == length ? output : null;
+		}
+		catch(DataFormatException e)
+		{
+			e.printStackTrace();
+			return null;
+		}
+		finally
+		{
+			inflater.end();
+		}
+	}
+}
\ No newline at end of file
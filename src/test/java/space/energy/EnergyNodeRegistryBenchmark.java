@@ -0,0 +1,170 @@
+package space.energy;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.world.World;
+
+/**
+ * Measures the cost of adding, finding and removing energy nodes in the registry against the linear list scans it replaced, from 1k to 100k nodes.
+ * The list baseline is quadratic in the node count, so it is only timed over a sample of operations.
+ */
+@Tag("benchmark")
+public class EnergyNodeRegistryBenchmark
+{
+	private static final int[] NODE_COUNTS = {1000, 10000, 100000};
+	private static final int BASELINE_SAMPLE = 1000;
+	private static final int WARMUP_ITERATIONS = 3;
+	
+	@BeforeAll
+	public static void bootstrap()
+	{
+		SharedConstants.createGameVersion();
+		Bootstrap.initialize();
+	}
+	
+	@Test
+	public void addGetRemove()
+	{
+		System.out.println("nodes | registry add ns | registry get ns | registry remove ns | list add ns | list get ns | list remove ns");
+		
+		for(int nodeCount : NODE_COUNTS)
+		{
+			ArrayList<EnergyNode> energyNodes = createNodes(nodeCount, World.OVERWORLD);
+			
+			for(int i = 0; i < WARMUP_ITERATIONS; i++)
+			{
+				measureRegistry(energyNodes);
+				measureList(energyNodes);
+			}
+			
+			double[] registry = measureRegistry(energyNodes);
+			double[] list = measureList(energyNodes);
+			System.out.println(String.format("%d | %.1f | %.1f | %.1f | %.1f | %.1f | %.1f", nodeCount, registry[0], registry[1], registry[2], list[0], list[1], list[2]));
+		}
+	}
+	
+	/**
+	 * Get the average time in nanoseconds to add, get and remove every node with the registry.
+	 */
+	private static double[] measureRegistry(ArrayList<EnergyNode> energyNodes)
+	{
+		EnergyNodeRegistry registry = new EnergyNodeRegistry();
+		double[] times = new double[3];
+		long start = System.nanoTime();
+		
+		for(EnergyNode energyNode : energyNodes)
+			registry.add(energyNode);
+		
+		times[0] = (double) (System.nanoTime() - start) / energyNodes.size();
+		int found = 0;
+		start = System.nanoTime();
+		
+		for(EnergyNode energyNode : energyNodes)
+		{
+			if(registry.get(energyNode.getDimension(), energyNode.getPosition()) != null)
+				found++;
+		}
+		
+		times[1] = (double) (System.nanoTime() - start) / energyNodes.size();
+		start = System.nanoTime();
+		
+		for(EnergyNode energyNode : energyNodes)
+			registry.remove(energyNode.getDimension(), energyNode.getPosition());
+		
+		times[2] = (double) (System.nanoTime() - start) / energyNodes.size();
+		
+		if(found != energyNodes.size() || registry.size() != 0)
+			throw new IllegalStateException("Registry lost track of nodes.");
+		
+		return times;
+	}
+	
+	/**
+	 * Get the average time in nanoseconds to add, get and remove a sample of nodes with a full list, the way EnergyNet stored producers and consumers before the registry.
+	 */
+	private static double[] measureList(ArrayList<EnergyNode> energyNodes)
+	{
+		ArrayList<EnergyNode> list = new ArrayList<EnergyNode>(energyNodes.subList(0, energyNodes.size() - BASELINE_SAMPLE));
+		int step = energyNodes.size() / BASELINE_SAMPLE;
+		double[] times = new double[3];
+		long start = System.nanoTime();
+		
+		for(EnergyNode energyNode : energyNodes.subList(energyNodes.size() - BASELINE_SAMPLE, energyNodes.size()))
+		{
+			if(!list.contains(energyNode))
+				list.add(energyNode);
+		}
+		
+		times[0] = (double) (System.nanoTime() - start) / BASELINE_SAMPLE;
+		int found = 0;
+		start = System.nanoTime();
+		
+		for(int i = 0; i < BASELINE_SAMPLE; i++)
+		{
+			EnergyNode energyNode = energyNodes.get(i * step);
+			
+			if(find(list, energyNode.getDimension(), energyNode.getPosition()) >= 0)
+				found++;
+		}
+		
+		times[1] = (double) (System.nanoTime() - start) / BASELINE_SAMPLE;
+		start = System.nanoTime();
+		
+		for(int i = 0; i < BASELINE_SAMPLE; i++)
+		{
+			EnergyNode energyNode = energyNodes.get(i * step);
+			list.remove(find(list, energyNode.getDimension(), energyNode.getPosition()));
+		}
+		
+		times[2] = (double) (System.nanoTime() - start) / BASELINE_SAMPLE;
+		
+		if(found != BASELINE_SAMPLE)
+			throw new IllegalStateException("List lost track of nodes.");
+		
+		return times;
+	}
+	
+	private static int find(ArrayList<EnergyNode> list, RegistryKey<World> dimension, BlockPos position)
+	{
+		for(int i = 0; i < list.size(); i++)
+		{
+			EnergyNode energyNode = list.get(i);
+			
+			if(energyNode.getPosition().equals(position) && energyNode.getDimension().getValue().equals(dimension.getValue()))
+				return i;
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Create energy nodes at distinct random positions spread over a few thousand chunks, mixing producers, consumers and dual nodes.
+	 */
+	private static ArrayList<EnergyNode> createNodes(int nodeCount, RegistryKey<World> dimension)
+	{
+		Random random = Random.create(nodeCount);
+		EnergyNodeRegistry positions = new EnergyNodeRegistry();
+		ArrayList<EnergyNode> energyNodes = new ArrayList<EnergyNode>();
+		
+		while(energyNodes.size() < nodeCount)
+		{
+			BlockPos position = new BlockPos(random.nextInt(1024) - 512, random.nextInt(128), random.nextInt(1024) - 512);
+			int type = random.nextInt(3);
+			EnergyNode energyNode = new EnergyNode(position, dimension, type != 1, type != 0);
+			
+			if(positions.add(energyNode))
+				energyNodes.add(energyNode);
+		}
+		
+		return energyNodes;
+	}
+}
\ No newline at end of file
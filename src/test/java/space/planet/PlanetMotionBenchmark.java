@@ -0,0 +1,160 @@
+package space.planet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * Measures the cost of a server tick of planet motion in ephemeris mode against the integrator for increasing /timesteps settings, using the bundled planets.
+ * The drift column is the largest distance between the integrated and the analytic position of a planet after one minute of ticks, relative to its distance from its parent.
+ */
+@Tag("benchmark")
+public class PlanetMotionBenchmark
+{
+	private static final String[] PLANET_NAMES = {"sol", "mercury", "venus", "earth", "moon", "mars", "phobos", "deimos"};
+	private static final int[] TIME_STEPS = {1, 10, 100, 1000};
+	private static final double TIME_STEP = 72.0 * 0.05;
+	private static final int TICKS = 1200;
+	private static final int WARMUP_TICKS = 200;
+	
+	@Test
+	public void ephemerisAndIntegrator() throws IOException
+	{
+		ArrayList<Planet> warmupPlanets = loadPlanets();
+		
+		for(int i = 0; i < WARMUP_TICKS; i++)
+		{
+			ephemerisTick(warmupPlanets, 10, i + 1);
+			integratorTick(warmupPlanets, 10);
+		}
+		
+		System.out.println("time steps | ephemeris us/tick | integrator us/tick | integrator drift");
+		
+		for(int timeSteps : TIME_STEPS)
+		{
+			ArrayList<Planet> ephemerisPlanets = loadPlanets();
+			ArrayList<Planet> integratorPlanets = loadPlanets();
+			long start = System.nanoTime();
+			
+			for(int i = 0; i < TICKS; i++)
+				ephemerisTick(ephemerisPlanets, timeSteps, i + 1);
+			
+			double ephemerisTime = (System.nanoTime() - start) / 1.0e3 / TICKS;
+			start = System.nanoTime();
+			
+			for(int i = 0; i < TICKS; i++)
+				integratorTick(integratorPlanets, timeSteps);
+			
+			double integratorTime = (System.nanoTime() - start) / 1.0e3 / TICKS;
+			System.out.println(String.format("%d | %.2f | %.2f | %.2e", timeSteps, ephemerisTime, integratorTime, maxDrift(ephemerisPlanets, integratorPlanets)));
+		}
+	}
+	
+	/**
+	 * The ephemeris branch of PlanetList.simulateMotion() for the given tick number.
+	 */
+	private static void ephemerisTick(ArrayList<Planet> planetList, int timeSteps, int tick)
+	{
+		double simulationTime = tick * TIME_STEP * timeSteps;
+		
+		for(Planet p : planetList)
+			p.simulateOrbitalPosition(simulationTime);
+		
+		for(Planet p : planetList)
+			p.simulateRotationChange(TIME_STEP * timeSteps, timeSteps);
+	}
+	
+	/**
+	 * The integrator branch of PlanetList.simulateMotion().
+	 */
+	private static void integratorTick(ArrayList<Planet> planetList, int timeSteps)
+	{
+		for(int i = 0; i < timeSteps; i++)
+		{
+			for(Planet p : planetList)
+			{
+				p.simulateGravityAcceleration();
+				p.simulateVelocityChange(TIME_STEP);
+			}
+			
+			for(Planet p : planetList)
+				p.simulatePositionAndRotationChange(TIME_STEP);
+		}
+	}
+	
+	private static double maxDrift(ArrayList<Planet> ephemerisPlanets, ArrayList<Planet> integratorPlanets)
+	{
+		double drift = 0.0;
+		
+		for(int i = 0; i < ephemerisPlanets.size(); i++)
+		{
+			Planet ephemerisPlanet = ephemerisPlanets.get(i);
+			Planet integratorPlanet = integratorPlanets.get(i);
+			
+			if(ephemerisPlanet.getParent() == null)
+				continue;
+			
+			Vec3d expected = ephemerisPlanet.getPosition().subtract(ephemerisPlanet.getParent().getPosition());
+			Vec3d actual = integratorPlanet.getPosition().subtract(integratorPlanet.getParent().getPosition());
+			drift = Math.max(drift, actual.distanceTo(expected) / expected.length());
+		}
+		
+		return drift;
+	}
+	
+	/**
+	 * Load the bundled planets and set them up the same way as PlanetResourceListener and PlanetList.loadDynamicData() for a new world.
+	 */
+	private static ArrayList<Planet> loadPlanets() throws IOException
+	{
+		ArrayList<Planet> planetList = new ArrayList<Planet>();
+		
+		for(String name : PLANET_NAMES)
+		{
+			try(InputStream stream = PlanetMotionBenchmark.class.getResourceAsStream("/data/space/planets/" + name + ".json"))
+			{
+				JsonObject json = JsonParser.parseReader(new InputStreamReader(stream)).getAsJsonObject();
+				Planet planet = new Planet(name, json.get("parentName").getAsString(), getDouble(json, "mass"), getDouble(json, "radius"), getDouble(json, "parkingOrbitRadius"), 0.0);
+				planet.setOrbitParameters(getDouble(json, "periapsis"), getDouble(json, "apoapsis"), getDouble(json, "argumentOfPeriapsis"), getDouble(json, "trueAnomaly"), getDouble(json, "ascendingNode"), getDouble(json, "inclination"));
+				planet.setRotationParameters(json.has("isTidallyLocked") && json.get("isTidallyLocked").getAsBoolean(), getDouble(json, "obliquity"), getDouble(json, "rotationRate"), 0.0);
+				planet.setDecorativeParameters(false, json.has("drawClouds") && json.get("drawClouds").getAsBoolean(), getDouble(json, "cloudRotationRate"));
+				planetList.add(planet);
+			}
+		}
+		
+		for(Planet p : planetList)
+			p.linkSatellites(planetList);
+		
+		for(Planet p1 : planetList)
+		{
+			int level = 0;
+			Planet p2 = p1.getParent();
+			
+			while(p2 != null)
+			{
+				level++;
+				p2 = p2.getParent();
+			}
+			
+			p1.setSatelliteLevel(level);
+		}
+		
+		PlanetState.bind(planetList);
+		planetList.get(0).setInitialPositionAndVelocity(new ArrayList<String>());
+		return planetList;
+	}
+	
+	private static double getDouble(JsonObject json, String name)
+	{
+		return json.has(name) ? json.get(name).getAsDouble() : 0.0;
+	}
+}
\ No newline at end of file
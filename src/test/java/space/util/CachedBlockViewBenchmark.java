@@ -0,0 +1,174 @@
+package space.util;
+
+import java.util.function.BiPredicate;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.chunk.PalettedContainer;
+
+/**
+ * Measures the sealed volume search over a 64x64x64 room reading block states straight from chunk sections against reading them through a cached view.
+ * Direct reads here only cost a section lookup, which is cheaper than a world read with its chunk manager, so the measured gain is a lower bound.
+ */
+@Tag("benchmark")
+public class CachedBlockViewBenchmark
+{
+	private static final int ROOM_SIZE = 64;
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int ITERATIONS = 10;
+	
+	@BeforeAll
+	public static void bootstrap()
+	{
+		SharedConstants.createGameVersion();
+		Bootstrap.initialize();
+	}
+	
+	@Test
+	public void sealedRoomSearch()
+	{
+		SectionBlockView world = createRoom();
+		BlockPos start = new BlockPos(ROOM_SIZE / 2, ROOM_SIZE / 2, ROOM_SIZE / 2);
+		int volume = search(world, start);
+		
+		if(volume != ROOM_SIZE * ROOM_SIZE * ROOM_SIZE || search(new CachedBlockView(world, world::getBlockStates), start) != volume)
+			throw new IllegalStateException("The search did not find the room.");
+		
+		for(int i = 0; i < WARMUP_ITERATIONS; i++)
+		{
+			search(world, start);
+			search(new CachedBlockView(world, world::getBlockStates), start);
+		}
+		
+		world.reads = 0;
+		long startTime = System.nanoTime();
+		
+		for(int i = 0; i < ITERATIONS; i++)
+			search(world, start);
+		
+		double directTime = (System.nanoTime() - startTime) / 1.0e6 / ITERATIONS;
+		long directReads = world.reads / ITERATIONS;
+		world.reads = 0;
+		startTime = System.nanoTime();
+		
+		for(int i = 0; i < ITERATIONS; i++)
+			search(new CachedBlockView(world, world::getBlockStates), start);
+		
+		double cachedTime = (System.nanoTime() - startTime) / 1.0e6 / ITERATIONS;
+		long cachedReads = world.reads / ITERATIONS;
+		System.out.println("view | volume | section reads | ms");
+		System.out.println(String.format("direct | %d | %d | %.2f", volume, directReads, directTime));
+		System.out.println(String.format("cached | %d | %d | %.2f", volume, cachedReads, cachedTime));
+	}
+	
+	/**
+	 * Search the room the same way AirUtil.findVolume() does. Vanilla blocks stand in for the atmosphere generator and oxygen sensor edge cases.
+	 */
+	private static int search(BlockView world, BlockPos start)
+	{
+		BiPredicate<BlockView, BlockPos> include = (w, p) -> {
+			BlockState blockState = w.getBlockState(p);
+			return blockState.getBlock() == Blocks.AIR || !blockState.isFullCube(w, p);
+		};
+		
+		BiPredicate<BlockView, BlockPos> passThrough = (w, p) -> {
+			return w.getBlockState(p).getBlock() != Blocks.AIR;
+		};
+		
+		BiPredicate<BlockView, BlockPos> edgeCase = (w, p) -> {
+			return w.getBlockState(p).getBlock() == Blocks.REDSTONE_LAMP || w.getBlockState(p).getBlock() == Blocks.OBSERVER;
+		};
+		
+		FloodFill floodFill = new FloodFill();
+		floodFill.passThroughSearch(world, start, include, edgeCase, passThrough, ROOM_SIZE * ROOM_SIZE * ROOM_SIZE + 1, true);
+		return floodFill.getVolume().size();
+	}
+	
+	/**
+	 * Build an air filled room enclosed by a one block thick iron shell with a few edge case blocks set into the walls.
+	 */
+	private static SectionBlockView createRoom()
+	{
+		SectionBlockView world = new SectionBlockView();
+		
+		for(int x = -1; x <= ROOM_SIZE; x++)
+		{
+			for(int y = -1; y <= ROOM_SIZE; y++)
+			{
+				for(int z = -1; z <= ROOM_SIZE; z++)
+				{
+					boolean wall = x < 0 || y < 0 || z < 0 || x == ROOM_SIZE || y == ROOM_SIZE || z == ROOM_SIZE;
+					world.setBlockState(x, y, z, wall ? Blocks.IRON_BLOCK.getDefaultState() : Blocks.AIR.getDefaultState());
+				}
+			}
+		}
+		
+		world.setBlockState(-1, 1, 1, Blocks.REDSTONE_LAMP.getDefaultState());
+		world.setBlockState(ROOM_SIZE, 1, 1, Blocks.OBSERVER.getDefaultState());
+		return world;
+	}
+	
+	/**
+	 * A block view made only of chunk sections that counts how many times a section is looked up.
+	 */
+	private static class SectionBlockView implements BlockView
+	{
+		private final Long2ObjectOpenHashMap<PalettedContainer<BlockState>> sections = new Long2ObjectOpenHashMap<PalettedContainer<BlockState>>();
+		private long reads;
+		
+		public void setBlockState(int x, int y, int z, BlockState blockState)
+		{
+			sections.computeIfAbsent(ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4), key -> new PalettedContainer<BlockState>(Block.STATE_IDS, Blocks.AIR.getDefaultState(), PalettedContainer.PaletteProvider.BLOCK_STATE)).set(x & 15, y & 15, z & 15, blockState);
+		}
+		
+		public PalettedContainer<BlockState> getBlockStates(int sectionX, int sectionY, int sectionZ)
+		{
+			reads++;
+			return sections.get(ChunkSectionPos.asLong(sectionX, sectionY, sectionZ));
+		}
+		
+		@Override
+		public BlockState getBlockState(BlockPos pos)
+		{
+			PalettedContainer<BlockState> section = getBlockStates(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+			return section == null ? Blocks.AIR.getDefaultState() : section.get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+		}
+		
+		@Override
+		public FluidState getFluidState(BlockPos pos)
+		{
+			return getBlockState(pos).getFluidState();
+		}
+		
+		@Override
+		public BlockEntity getBlockEntity(BlockPos pos)
+		{
+			return null;
+		}
+		
+		@Override
+		public int getHeight()
+		{
+			return 384;
+		}
+		
+		@Override
+		public int getBottomY()
+		{
+			return -64;
+		}
+	}
+}
\ No newline at end of file
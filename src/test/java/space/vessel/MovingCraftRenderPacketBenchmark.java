@@ -0,0 +1,120 @@
+package space.vessel;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Compares the size of the render data of rocket shaped crafts in the old per block NBT format and the palette format, and measures encoding and decoding throughput.
+ */
+@Tag("benchmark")
+public class MovingCraftRenderPacketBenchmark
+{
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int ITERATIONS = 20;
+	
+	@BeforeAll
+	public static void bootstrap()
+	{
+		SharedConstants.createGameVersion();
+		Bootstrap.initialize();
+	}
+	
+	@Test
+	public void encodeAndDecode()
+	{
+		System.out.println("blocks | legacy bytes | encoded bytes | ratio | chunks | encode ms | decode ms | encode blocks/ms | decode blocks/ms");
+		
+		for(int radius : new int[] {3, 7, 15})
+		{
+			ArrayList<MovingCraftBlockData> blocks = createRocket(radius, radius * 8);
+			int legacySize = legacySize(blocks);
+			byte[] data = MovingCraftRenderPacket.encode(blocks);
+			
+			for(int i = 0; i < WARMUP_ITERATIONS; i++)
+				MovingCraftRenderPacket.decode(MovingCraftRenderPacket.encode(blocks));
+			
+			long start = System.nanoTime();
+			
+			for(int i = 0; i < ITERATIONS; i++)
+				data = MovingCraftRenderPacket.encode(blocks);
+			
+			double encodeTime = (System.nanoTime() - start) / 1.0e6 / ITERATIONS;
+			start = System.nanoTime();
+			
+			for(int i = 0; i < ITERATIONS; i++)
+				MovingCraftRenderPacket.decode(data);
+			
+			double decodeTime = (System.nanoTime() - start) / 1.0e6 / ITERATIONS;
+			int chunks = (data.length + MovingCraftRenderPacket.CHUNK_SIZE - 1) / MovingCraftRenderPacket.CHUNK_SIZE;
+			System.out.println(String.format("%d | %d | %d | %.1f | %d | %.3f | %.3f | %.0f | %.0f", blocks.size(), legacySize, data.length, (double) legacySize / data.length, chunks, encodeTime, decodeTime, blocks.size() / encodeTime, blocks.size() / decodeTime));
+		}
+	}
+	
+	/**
+	 * Build a solid cylinder with an iron hull, glass windows, tanks inside and a ring of thrusters at the bottom.
+	 */
+	private static ArrayList<MovingCraftBlockData> createRocket(int radius, int height)
+	{
+		ArrayList<MovingCraftBlockData> blocks = new ArrayList<MovingCraftBlockData>();
+		BlockState hull = Blocks.IRON_BLOCK.getDefaultState();
+		BlockState window = Blocks.GLASS.getDefaultState();
+		BlockState tank = Blocks.WHITE_CONCRETE.getDefaultState();
+		BlockState thruster = Blocks.FURNACE.getDefaultState();
+		
+		for(int y = 0; y < height; y++)
+		{
+			for(int x = -radius; x <= radius; x++)
+			{
+				for(int z = -radius; z <= radius; z++)
+				{
+					int distance = x * x + z * z;
+					
+					if(distance > radius * radius)
+						continue;
+					
+					boolean outside = distance > (radius - 1) * (radius - 1);
+					BlockState blockState = y == 0 ? thruster : outside ? (y % 8 == 4 ? window : hull) : tank;
+					int sides = outside || y == 0 || y == height - 1 ? 0b111111 : 0;
+					blocks.add(MovingCraftRenderPacketTest.blockData(blockState, new BlockPos(x, y, z), MovingCraftRenderPacketTest.sides(sides), false));
+				}
+			}
+		}
+		
+		return blocks;
+	}
+	
+	/**
+	 * Get the size of the render data in the format used before the palette encoding.
+	 */
+	private static int legacySize(ArrayList<MovingCraftBlockData> blocks)
+	{
+		PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer());
+		buffer.writeInt(blocks.size());
+		
+		for(MovingCraftBlockData data : blocks)
+		{
+			buffer.writeNbt(NbtHelper.fromBlockState(data.getBlockState()));
+			buffer.writeBlockPos(data.getPosition());
+			buffer.writeBoolean(data.redstonePower());
+			
+			for(int i = 0; i < 6; i++)
+				buffer.writeBoolean(data.getSidesShowing()[i]);
+		}
+		
+		int size = buffer.readableBytes();
+		buffer.release();
+		return size;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+package space.vessel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import space.util.BooleanByteUtil;
+
+public class MovingCraftRenderPacketTest
+{
+	private static final Direction[] SIDE_ORDER = {Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST, Direction.UP, Direction.DOWN};
+	
+	@BeforeAll
+	public static void bootstrap()
+	{
+		SharedConstants.createGameVersion();
+		Bootstrap.initialize();
+	}
+	
+	@Test
+	public void emptyCraft()
+	{
+		ArrayList<MovingCraftBlockData> blocks = new ArrayList<MovingCraftBlockData>();
+		ArrayList<MovingCraftBlockRenderData> decoded = MovingCraftRenderPacket.decode(MovingCraftRenderPacket.encode(blocks));
+		assertNotNull(decoded);
+		assertTrue(decoded.isEmpty());
+	}
+	
+	@Test
+	public void singleBlock()
+	{
+		ArrayList<MovingCraftBlockData> blocks = new ArrayList<MovingCraftBlockData>();
+		blocks.add(blockData(Blocks.IRON_BLOCK.getDefaultState(), new BlockPos(-3, 7, 12), sides(0b101010), true));
+		assertRoundTrip(blocks);
+	}
+	
+	@Test
+	public void paletteLargerThan256()
+	{
+		ArrayList<MovingCraftBlockData> blocks = new ArrayList<MovingCraftBlockData>();
+		HashSet<BlockState> states = new HashSet<BlockState>();
+		int i = 0;
+		
+		for(BlockState blockState : Block.STATE_IDS)
+		{
+			if(states.size() == 1000)
+				break;
+			
+			if(states.add(blockState))
+			{
+				blocks.add(blockData(blockState, new BlockPos(i % 10, i / 100, (i / 10) % 10), sides(i & 0x3F), (i & 1) == 0));
+				i++;
+			}
+		}
+		
+		assertEquals(1000, states.size());
+		assertRoundTrip(blocks);
+	}
+	
+	@Test
+	public void blockEntitiesAndFlags()
+	{
+		// Every combination of visible sides and redstone power on blocks with and without block entities.
+		ArrayList<MovingCraftBlockData> blocks = new ArrayList<MovingCraftBlockData>();
+		BlockState[] blockStates = {Blocks.CHEST.getDefaultState(), Blocks.FURNACE.getDefaultState(), Blocks.STONE.getDefaultState()};
+		
+		for(int i = 0; i < 128; i++)
+		{
+			BlockState blockState = blockStates[i % blockStates.length];
+			NbtCompound blockEntityData = blockState.hasBlockEntity() ? new NbtCompound() : null;
+			blocks.add(blockData(blockState, new BlockPos(i, -i, i * 2), sides(i & 0x3F), (i & 0x40) != 0, blockEntityData));
+		}
+		
+		assertRoundTrip(blocks);
+	}
+	
+	@Test
+	public void dataSpanningSeveralChunks()
+	{
+		// Random states and sides at random positions compress poorly, so the encoded data needs several chunks.
+		ArrayList<MovingCraftBlockData> blocks = new ArrayList<MovingCraftBlockData>();
+		ArrayList<BlockState> states = new ArrayList<BlockState>();
+		Random random = new Random(42);
+		
+		for(BlockState blockState : Block.STATE_IDS)
+			states.add(blockState);
+		
+		HashSet<BlockPos> positions = new HashSet<BlockPos>();
+		
+		while(positions.size() < 60000)
+		{
+			BlockPos pos = new BlockPos(random.nextInt(200) - 100, random.nextInt(200) - 64, random.nextInt(200) - 100);
+			
+			if(positions.add(pos))
+				blocks.add(blockData(states.get(random.nextInt(states.size())), pos, sides(random.nextInt(64)), random.nextBoolean()));
+		}
+		
+		byte[] data = MovingCraftRenderPacket.encode(blocks);
+		assertTrue(data.length > MovingCraftRenderPacket.CHUNK_SIZE * 3, "Encoded data only has " + data.length + " bytes.");
+		
+		// Split and reassemble the data the same way the server sends it and the client receives it.
+		byte[] received = new byte[data.length];
+		int chunks = 0;
+		
+		for(int offset = 0; offset < data.length; offset += MovingCraftRenderPacket.CHUNK_SIZE)
+		{
+			int length = Math.min(data.length - offset, MovingCraftRenderPacket.CHUNK_SIZE);
+			System.arraycopy(data, offset, received, offset, length);
+			chunks++;
+		}
+		
+		assertTrue(chunks > 3);
+		assertArrayEquals(data, received);
+		assertDecoded(blocks, MovingCraftRenderPacket.decode(received));
+	}
+	
+	@Test
+	public void invalidData()
+	{
+		assertNull(MovingCraftRenderPacket.decode(new byte[0]));
+		assertNull(MovingCraftRenderPacket.decode(new byte[] {0, 0, 0, 10, 1, 2, 3}));
+		
+		byte[] data = MovingCraftRenderPacket.encode(new ArrayList<MovingCraftBlockData>(List.of(blockData(Blocks.STONE.getDefaultState(), BlockPos.ORIGIN, sides(63), false))));
+		byte[] truncated = new byte[data.length - 2];
+		System.arraycopy(data, 0, truncated, 0, truncated.length);
+		assertNull(MovingCraftRenderPacket.decode(truncated));
+	}
+	
+	private static void assertRoundTrip(ArrayList<MovingCraftBlockData> blocks)
+	{
+		assertDecoded(blocks, MovingCraftRenderPacket.decode(MovingCraftRenderPacket.encode(blocks)));
+	}
+	
+	private static void assertDecoded(ArrayList<MovingCraftBlockData> blocks, ArrayList<MovingCraftBlockRenderData> decoded)
+	{
+		assertNotNull(decoded);
+		assertEquals(blocks.size(), decoded.size());
+		
+		for(int i = 0; i < blocks.size(); i++)
+		{
+			MovingCraftBlockData expected = blocks.get(i);
+			MovingCraftBlockRenderData actual = decoded.get(i);
+			assertEquals(expected.getBlockState(), actual.getBlockState());
+			assertEquals(expected.getPosition(), actual.getPosition());
+			assertEquals(expected.redstonePower(), actual.redstonePower());
+			
+			for(int j = 0; j < 6; j++)
+				assertEquals(expected.getSidesShowing()[j], actual.canRenderSide(SIDE_ORDER[j]));
+		}
+	}
+	
+	static MovingCraftBlockData blockData(BlockState blockState, BlockPos pos, boolean[] sidesShowing, boolean redstone)
+	{
+		return blockData(blockState, pos, sidesShowing, redstone, null);
+	}
+	
+	static MovingCraftBlockData blockData(BlockState blockState, BlockPos pos, boolean[] sidesShowing, boolean redstone, NbtCompound blockEntityData)
+	{
+		NbtCompound data = new NbtCompound();
+		data.put("blockState", NbtHelper.fromBlockState(blockState));
+		data.put("position", NbtHelper.fromBlockPos(pos));
+		
+		if(blockEntityData != null)
+			data.put("blockEntityData", blockEntityData);
+		
+		data.putByte("sidesShowing", BooleanByteUtil.toByte(sidesShowing));
+		data.putBoolean("redstone", redstone);
+		return MovingCraftBlockData.loadData(data);
+	}
+	
+	static boolean[] sides(int bits)
+	{
+		boolean[] sidesShowing = new boolean[6];
+		
+		for(int i = 0; i < 6; i++)
+			sidesShowing[i] = (bits & (1 << i)) != 0;
+		
+		return sidesShowing;
+	}
+}
\ No newline at end of file